@@ -0,0 +1,45 @@
+package com.auction.aspect;
+
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接池选择切面
+ * 按 @WorkloadPool 设置当前线程的负载类型，方法返回后恢复
+ * 最先执行（在事务切面之外），事务中第一条SQL取连接时路由数据源已能读到负载类型
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadPoolAspect {
+
+    @Around("@within(com.auction.config.WorkloadPool) || @annotation(com.auction.config.WorkloadPool)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        WorkloadPool workloadPool = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), WorkloadPool.class);
+        if (workloadPool == null) {
+            workloadPool = AnnotatedElementUtils.findMergedAnnotation(joinPoint.getTarget().getClass(), WorkloadPool.class);
+        }
+        if (workloadPool == null) {
+            return joinPoint.proceed();
+        }
+        Workload previous = Workload.enter(workloadPool.value());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+}
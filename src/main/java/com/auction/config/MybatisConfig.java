@@ -1,14 +1,24 @@
 package com.auction.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.annotation.MapperScan;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * ========================================
@@ -19,6 +29,7 @@ import javax.sql.DataSource;
  * 2. 配置SqlSessionFactory（MyBatis的核心工厂类）
  * 3. 配置Mapper接口的扫描路径
  * 4. 配置Mapper XML文件的位置
+ * 5. 配置读写分离数据源（主库 + 可选只读从库）
  * 
  * MyBatis说明：
  * - MyBatis是一个优秀的持久层框架
@@ -31,6 +42,10 @@ import javax.sql.DataSource;
  * 2. Mapper扫描：自动扫描com.auction.mapper包下的所有接口
  * 3. XML映射：加载classpath:mapper/*.xml中的SQL映射文件
  * 4. 全局配置：加载mybatis-config.xml中的全局设置
+ * 5. 数据源：主库使用spring.datasource，配置auction.datasource.replica.jdbc-url后
+ *    只读事务（@Transactional(readOnly = true)）路由到从库，详见ReadWriteRoutingDataSource
+ * 6. 连接池隔离：主库按负载类型（出价/用户/管理/批处理）使用独立连接池，由@WorkloadPool选择，
+ *    未标注时使用用户请求池；主库连接总数为各池之和（默认20 + 10 + 5 + 5 = 40）
  * 
  * 目录结构：
  * - Mapper接口：src/main/java/com/auction/mapper/*.java
@@ -45,10 +60,100 @@ import javax.sql.DataSource;
 @MapperScan("com.auction.mapper")  // 扫描Mapper接口的包路径
 public class MybatisConfig {
 
-    /* ========================= 依赖注入 ========================= */
+    /* ========================= 数据源 ========================= */
 
-    @Autowired
-    private DataSource dataSource;  // 数据源，Spring Boot自动配置
+    /**
+     * 主库出价池（仅出价路径使用），连接参数来自spring.datasource，连接池参数来自spring.datasource.hikari
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return workloadPool(properties, Workload.BID, 20, 30000);
+    }
+
+    /**
+     * 主库用户请求池（未标注@WorkloadPool时的默认池），连接池参数来自auction.datasource.pools.user
+     */
+    @Bean
+    @ConfigurationProperties("auction.datasource.pools.user")
+    public HikariDataSource userDataSource(DataSourceProperties properties) {
+        return workloadPool(properties, Workload.USER, 10, 5000);
+    }
+
+    /**
+     * 主库管理后台池，连接池参数来自auction.datasource.pools.admin
+     */
+    @Bean
+    @ConfigurationProperties("auction.datasource.pools.admin")
+    public HikariDataSource adminDataSource(DataSourceProperties properties) {
+        return workloadPool(properties, Workload.ADMIN, 5, 10000);
+    }
+
+    /**
+     * 主库批处理池（定时任务、结算、归档），连接池参数来自auction.datasource.pools.batch
+     */
+    @Bean
+    @ConfigurationProperties("auction.datasource.pools.batch")
+    public HikariDataSource batchDataSource(DataSourceProperties properties) {
+        return workloadPool(properties, Workload.BATCH, 5, 60000);
+    }
+
+    /**
+     * 从库连接池（只读，可选），配置auction.datasource.replica.jdbc-url后启用
+     * 其余Hikari参数（username、password、maximum-pool-size等）同样配置在auction.datasource.replica下
+     */
+    @Bean
+    @ConditionalOnProperty("auction.datasource.replica.jdbc-url")
+    @ConfigurationProperties("auction.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * 应用使用的数据源：读写路由 + 延迟取连接
+     * MyBatis、JdbcTemplate和事务管理器都使用这个数据源
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("userDataSource") DataSource userDataSource,
+                                 @Qualifier("adminDataSource") DataSource adminDataSource,
+                                 @Qualifier("batchDataSource") DataSource batchDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        Map<Workload, DataSource> primaryPools = new EnumMap<>(Workload.class);
+        primaryPools.put(Workload.BID, primaryDataSource);
+        primaryPools.put(Workload.USER, userDataSource);
+        primaryPools.put(Workload.ADMIN, adminDataSource);
+        primaryPools.put(Workload.BATCH, batchDataSource);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                primaryPools, replicaDataSource.getIfAvailable(), readYourWritesTracker);
+        routing.afterPropertiesSet();
+
+        // 与连接池默认值一致，避免启动时为探测默认值而取连接
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    /**
+     * 创建主库上某类负载的连接池
+     * 默认大小和取连接超时在绑定配置前设置，配置文件中的值会覆盖
+     */
+    private static HikariDataSource workloadPool(DataSourceProperties properties, Workload workload,
+                                                 int maximumPoolSize, long connectionTimeoutMillis) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(workload.getPoolName());
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeoutMillis);
+        return dataSource;
+    }
 
     /**
      * 配置SqlSessionFactory Bean
@@ -68,11 +173,13 @@ public class MybatisConfig {
      * - mybatis-config.xml：MyBatis全局配置（驼峰命名、延迟加载等）
      * - mapper/*.xml：各个Mapper的SQL语句定义
      * 
+     * @param dataSource 读写路由数据源
+     * @param readYourWritesTracker 读己之写跟踪（写语句执行时开启读主库窗口）
      * @return SqlSessionFactory对象
      * @throws Exception 配置失败时抛出异常
      */
     @Bean  // 注册为Spring Bean
-    public SqlSessionFactory sqlSessionFactory() throws Exception {
+    public SqlSessionFactory sqlSessionFactory(DataSource dataSource, ReadYourWritesTracker readYourWritesTracker) throws Exception {
         // 创建SqlSessionFactory构建器
         SqlSessionFactoryBean sessionFactory = new SqlSessionFactoryBean();
         // 设置数据源
@@ -88,6 +195,9 @@ public class MybatisConfig {
         // 设置Mapper XML文件路径（支持通配符*）
         // 会加载classpath:mapper/目录下的所有.xml文件
         sessionFactory.setMapperLocations(resolver.getResources("classpath:mapper/*.xml"));
+
+        // 写语句执行时登记读己之写窗口（只读数据的事务不再让用户粘在主库）
+        sessionFactory.setPlugins(new ReadYourWritesInterceptor(readYourWritesTracker));
         
         // 构建并返回SqlSessionFactory对象
         return sessionFactory.getObject();
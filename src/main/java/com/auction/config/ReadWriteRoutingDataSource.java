@@ -0,0 +1,59 @@
+package com.auction.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读写分离路由数据源
+ * - 只读事务（@Transactional(readOnly = true)）路由到从库，其他一律走主库
+ * - 当前用户刚提交过写入（读己之写窗口内）时，只读事务也走主库；窗口由写语句开启，不在这里判断
+ * - 未配置从库时全部走主库
+ * - 主库按当前线程的负载类型（@WorkloadPool）选择独立的连接池，未设置时使用用户请求池
+ * - 必须包在 LazyConnectionDataSourceProxy 中使用：事务开始取连接时只读标记尚未设置，
+ *   延迟到第一条SQL执行时再路由才能拿到正确的标记
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    private final boolean replicaEnabled;
+
+    /**
+     * @param primaryPools 主库上各负载类型的连接池，必须包含用户请求池
+     * @param replica 从库，为空时全部走主库
+     * @param readYourWritesTracker 读己之写跟踪
+     */
+    public ReadWriteRoutingDataSource(Map<Workload, DataSource> primaryPools, DataSource replica,
+                                      ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaEnabled = replica != null;
+        Map<Object, Object> targets = new HashMap<>();
+        primaryPools.forEach((workload, pool) -> targets.put(workload.getPoolName(), pool));
+        if (replica != null) {
+            targets.put(REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primaryPools.get(Workload.USER));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaEnabled && !readYourWritesTracker.isSticky()) {
+                return REPLICA;
+            }
+            return Workload.current().getPoolName();
+        }
+        return Workload.current().getPoolName();
+    }
+}
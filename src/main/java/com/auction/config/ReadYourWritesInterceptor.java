@@ -0,0 +1,33 @@
+package com.auction.config;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 读己之写拦截器
+ * MyBatis 执行 INSERT/UPDATE/DELETE 时通知 ReadYourWritesTracker，事务提交后当前用户进入读主库窗口
+ * 只有真正写过数据的事务才开启窗口，只读数据的非只读事务不影响后续读从库
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class ReadYourWritesInterceptor implements Interceptor {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadYourWritesInterceptor(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        readYourWritesTracker.markAfterWrite();
+        return invocation.proceed();
+    }
+}
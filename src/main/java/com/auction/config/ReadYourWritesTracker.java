@@ -0,0 +1,140 @@
+package com.auction.config;
+
+import com.auction.util.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读己之写跟踪
+ * - 用户真正执行过写语句（由 ReadYourWritesInterceptor 在 MyBatis 更新时通知）的事务提交后，
+ *   在窗口期内该用户的只读事务仍然走主库，避免从库延迟导致读不到自己刚写入的数据；只读数据的非只读事务不开启窗口
+ * - 窗口标记同时写入本地和Redis（带过期时间），同一用户的后续请求落到其他节点也能识别
+ * - 判断时先查本地标记，本地没有才查Redis；同一HTTP请求内Redis结果只查一次
+ * - Redis不可用时按仍在窗口内处理（走主库）
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ReadYourWritesTracker {
+
+    private static final String STICKY_KEY_PREFIX = "db:rw-sticky:";
+
+    /** 请求属性：本次请求已查到的Redis窗口标记 */
+    private static final String REQUEST_STICKY_ATTRIBUTE = ReadYourWritesTracker.class.getName() + ".sticky";
+
+    /** 本地标记超过该数量时清理已过期的条目 */
+    private static final int LOCAL_PURGE_THRESHOLD = 10000;
+
+    /** 写入后读主库的窗口（毫秒），应大于从库的常见复制延迟 */
+    @Value("${auction.datasource.sticky-millis:3000}")
+    private long stickyMillis;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /** 用户ID -> 窗口截止时间 */
+    private final Map<Long, Long> localUntil = new ConcurrentHashMap<>();
+
+    /**
+     * 执行写语句时调用：当前事务提交后为当前用户开启读主库窗口，无事务（自动提交）时立即开启
+     * 同一事务内多次写入只登记一次
+     */
+    public void markAfterWrite() {
+        Long userId = SecurityUtils.getCurrentUserIdOrNull();
+        if (userId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mark(userId);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof StickyMark) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new StickyMark(userId));
+    }
+
+    /**
+     * 当前用户是否处于读主库窗口内
+     */
+    public boolean isSticky() {
+        Long userId = SecurityUtils.getCurrentUserIdOrNull();
+        if (userId == null) {
+            return false;
+        }
+        Long until = localUntil.get(userId);
+        if (until != null) {
+            if (until > System.currentTimeMillis()) {
+                return true;
+            }
+            localUntil.remove(userId, until);
+        }
+
+        // 本节点没有标记：写入可能发生在其他节点，查Redis（同一请求只查一次）
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object cached = request.getAttribute(REQUEST_STICKY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof Boolean) {
+                return (Boolean) cached;
+            }
+        }
+        boolean sticky;
+        try {
+            sticky = Boolean.TRUE.equals(stringRedisTemplate.hasKey(STICKY_KEY_PREFIX + userId));
+        } catch (Exception e) {
+            log.warn("读取读己之写标记失败: userId={}, 错误: {}", userId, e.getMessage());
+            return true;
+        }
+        if (request != null) {
+            request.setAttribute(REQUEST_STICKY_ATTRIBUTE, sticky, RequestAttributes.SCOPE_REQUEST);
+        }
+        return sticky;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void mark(Long userId) {
+        long now = System.currentTimeMillis();
+        if (localUntil.size() > LOCAL_PURGE_THRESHOLD) {
+            localUntil.values().removeIf(until -> until <= now);
+        }
+        localUntil.put(userId, now + stickyMillis);
+        try {
+            stringRedisTemplate.opsForValue().set(STICKY_KEY_PREFIX + userId, "1", stickyMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("写入读己之写标记失败: userId={}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 事务提交后开启窗口（每个事务最多登记一个）
+     */
+    private final class StickyMark implements TransactionSynchronization {
+        private final Long userId;
+
+        private StickyMark(Long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void afterCommit() {
+            mark(userId);
+        }
+    }
+}
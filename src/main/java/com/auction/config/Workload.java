@@ -0,0 +1,71 @@
+package com.auction.config;
+
+/**
+ * 数据库连接池隔离的负载类型
+ * 每类负载使用主库上独立的连接池（独立的大小、超时和统计），慢的结算和后台任务不会占满出价所需的连接
+ * 当前线程的负载类型由 @WorkloadPool 切面设置，未设置时为用户请求；只有出价路径显式使用出价池
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum Workload {
+
+    /** 出价（仅 placeBid 显式使用，连接池即spring.datasource.hikari） */
+    BID("bid"),
+
+    /** 用户端请求（浏览、订单、保证金、地址、通知），也是未标注路径的默认池（登录、认证过滤器、WebSocket、文件等） */
+    USER("user"),
+
+    /** 管理后台请求 */
+    ADMIN("admin"),
+
+    /** 定时任务、结算、归档等后台批处理 */
+    BATCH("batch");
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private final String poolName;
+
+    Workload(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * 连接池名称（也是路由键）
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * 当前线程的负载类型，未设置时为用户请求
+     */
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : USER;
+    }
+
+    /**
+     * 切换当前线程的负载类型
+     *
+     * @param workload 新的负载类型
+     * @return 切换前的负载类型（可能为null），用于 restore
+     */
+    public static Workload enter(Workload workload) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    /**
+     * 恢复切换前的负载类型
+     */
+    public static void restore(Workload previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.auction.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定类或方法使用的数据库连接池（负载类型）
+ * - 方法上的注解优先于类上的注解；嵌套调用时以最内层注解为准，方法返回后恢复外层的负载类型
+ * - 未标注的方法沿用调用方的负载类型
+ * - 已经在事务中拿到的连接不会切换，事务内调用标注了其他负载的方法仍使用外层事务的连接
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WorkloadPool {
+
+    /**
+     * 负载类型
+     */
+    Workload value();
+}
@@ -16,6 +16,12 @@ import com.auction.service.AuctionOrderService;
 import com.auction.service.AuctionLogisticsService;
 import com.auction.service.UserDepositAccountService;
 import com.auction.service.UserDepositTransactionService;
+import com.auction.service.DepositAccountCacheService;
+import com.auction.service.SysUserCacheService;
+import com.auction.service.SessionDetailSnapshotCache;
+import com.auction.service.RecentBidService;
+import com.auction.security.JwtAuthenticationCache;
+import com.auction.service.UserLockService;
 import com.auction.service.UserDepositRefundService;
 import com.auction.service.SysConfigService;
 import com.auction.service.MinioService;
@@ -24,6 +30,8 @@ import com.auction.entity.BidIncrementConfig;
 import com.auction.entity.BidIncrementRule;
 import com.auction.common.Result;
 import com.auction.service.impl.AuctionOrderServiceImpl;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,6 +40,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -50,8 +61,13 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/admin")
 @Tag(name = "超级管理", description = "超级管理员相关接口")
+@WorkloadPool(Workload.ADMIN)
 public class AdminController {
 
+    /** 出价总数（热表 + 归档表，归档后总数不变） */
+    private static final String TOTAL_BIDS_SQL = "SELECT (SELECT COUNT(*) FROM auction_bid WHERE deleted=0)"
+            + " + (SELECT COUNT(*) FROM auction_bid_archive WHERE deleted=0)";
+
     @Autowired
     private AuctionItemService auctionItemService;
 
@@ -76,6 +92,9 @@ public class AdminController {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private List<HikariDataSource> hikariDataSources;  // 各负载类型的连接池（含从库）
+
     @Autowired
     private AuctionLogisticsService auctionLogisticsService;
 
@@ -85,6 +104,24 @@ public class AdminController {
     @Autowired
     private UserDepositTransactionService userDepositTransactionService;
 
+    @Autowired
+    private UserLockService userLockService;
+
+    @Autowired
+    private DepositAccountCacheService depositAccountCacheService;
+
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
+    @Autowired
+    private SysUserCacheService sysUserCacheService;
+
+    @Autowired
+    private SessionDetailSnapshotCache sessionDetailSnapshotCache;
+
+    @Autowired
+    private RecentBidService recentBidService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -143,7 +180,7 @@ public class AdminController {
             Integer totalItems = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_item WHERE deleted=0", Integer.class);
             Integer totalSessions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_session WHERE deleted=0", Integer.class);
             Integer totalUsers = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sys_user WHERE deleted=0", Integer.class);
-            Integer totalBids = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_bid WHERE deleted=0", Integer.class);
+            Integer totalBids = jdbcTemplate.queryForObject(TOTAL_BIDS_SQL, Integer.class);
 
             Integer ongoingSessions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_session WHERE deleted=0 AND status=2", Integer.class);
             Integer endedSessions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_session WHERE deleted=0 AND status=3", Integer.class);
@@ -162,18 +199,61 @@ public class AdminController {
         }
     }
 
+    /**
+     * 获取缓存加载统计
+     */
+    @GetMapping("/cache/stats")
+    @Operation(summary = "获取缓存加载统计", description = "拍卖会/拍品列表加载的命中、实际加载和合并次数，用户资金锁等待统计")
+    public Result<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("loaders", auctionSessionService.getLoaderStatistics());
+        stats.put("userLocks", userLockService.getStatistics());
+        stats.put("depositAccounts", depositAccountCacheService.getStatistics());
+        stats.put("authentication", jwtAuthenticationCache.getStatistics());
+        stats.put("users", sysUserCacheService.getStatistics());
+        stats.put("sessionDetails", sessionDetailSnapshotCache.getStatistics());
+        stats.put("recentBids", recentBidService.getStatistics());
+        return Result.success("获取成功", stats);
+    }
+
+    /**
+     * 获取数据库连接池统计
+     */
+    @GetMapping("/datasource/pools")
+    @Operation(summary = "获取数据库连接池统计", description = "出价/用户/管理/批处理/从库各连接池的大小、活跃、空闲和等待线程数")
+    public Result<Map<String, Object>> getDataSourcePoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (HikariDataSource dataSource : hikariDataSources) {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+            pool.put("connectionTimeout", dataSource.getConnectionTimeout());
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            // 连接池在第一次取连接时才启动
+            pool.put("started", mxBean != null);
+            if (mxBean != null) {
+                pool.put("active", mxBean.getActiveConnections());
+                pool.put("idle", mxBean.getIdleConnections());
+                pool.put("total", mxBean.getTotalConnections());
+                pool.put("awaiting", mxBean.getThreadsAwaitingConnection());
+            }
+            stats.put(dataSource.getPoolName(), pool);
+        }
+        return Result.success("获取成功", stats);
+    }
+
     /**
      * 仪表盘总览统计（拍品数/拍卖会数/用户数/出价数）
      */
     @GetMapping("/dashboard/overview")
     @Operation(summary = "仪表盘总览统计", description = "拍品总数、拍卖会总数、用户总数、出价总数")
+    @Transactional(readOnly = true)
     public Result<Map<String, Object>> getDashboardOverview() {
         try {
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalItems", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_item WHERE deleted=0", Integer.class));
             stats.put("totalSessions", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_session WHERE deleted=0", Integer.class));
             stats.put("totalUsers", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sys_user WHERE deleted=0", Integer.class));
-            stats.put("totalBids", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auction_bid WHERE deleted=0", Integer.class));
+            stats.put("totalBids", jdbcTemplate.queryForObject(TOTAL_BIDS_SQL, Integer.class));
             return Result.success("获取总览统计成功", stats);
         } catch (Exception e) {
             log.error("获取总览统计失败: {}", e.getMessage(), e);
@@ -632,6 +712,10 @@ public class AdminController {
             session.setIsVisible(value != null && value == 1 ? 1 : 0);
             session.setUpdateTime(java.time.LocalDateTime.now());
             int updated = auctionSessionMapper.updateById(session);
+            if (updated > 0) {
+                // 隐藏后不能再从详情快照返回
+                sessionDetailSnapshotCache.invalidateAfterCommit(id);
+            }
             return updated > 0 ? Result.success("更新成功") : Result.error("更新失败");
         } catch (Exception e) {
             log.error("更新可见性失败: {}", e.getMessage(), e);
@@ -757,6 +841,23 @@ public class AdminController {
         }
     }
 
+    /**
+     * 键集分页查询订单列表
+     */
+    @GetMapping("/orders/page")
+    @Operation(summary = "分页查询订单列表", description = "按创建时间倒序的游标分页，withTotal=true时返回近似总数")
+    public Result<Map<String, Object>> getOrderPage(AuctionOrder order,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") Integer size,
+                                                    @RequestParam(defaultValue = "false") Boolean withTotal) {
+        try {
+            return Result.success("查询成功", auctionOrderService.getOrderPage(order, cursor, size, withTotal));
+        } catch (Exception e) {
+            log.error("分页查询订单列表失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取待发货订单列表
      */
@@ -877,6 +978,36 @@ public class AdminController {
         }
     }
 
+    /**
+     * 键集分页查询审计日志
+     */
+    @GetMapping("/audit-logs/page")
+    @Operation(summary = "分页查询审计日志", description = "按创建时间倒序的游标分页，withTotal=true时返回近似总数")
+    public Result<Map<String, Object>> getAuditLogPage(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) Integer success,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        try {
+            LocalDateTime start = startTime != null ? LocalDateTime.parse(startTime.replace(" ", "T")) : null;
+            LocalDateTime end = endTime != null ? LocalDateTime.parse(endTime.replace(" ", "T")) : null;
+
+            Map<String, Object> result = auditLogService.queryLogPage(
+                userId, operationType, module, success, start, end, cursor, size, withTotal
+            );
+
+            return Result.success("查询成功", result);
+        } catch (Exception e) {
+            log.error("分页查询审计日志失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
     // ==================== 物流公司配置管理 ====================
 
     @Autowired
@@ -1084,6 +1215,24 @@ public class AdminController {
         }
     }
 
+    /**
+     * 键集分页查询交易流水
+     */
+    @GetMapping("/deposit/transactions/page")
+    @Operation(summary = "分页查询交易流水", description = "按创建时间倒序的游标分页，withTotal=true时返回近似总数")
+    public Result<Map<String, Object>> getDepositTransactionPage(UserDepositTransaction transaction,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "20") Integer size,
+                                                                 @RequestParam(defaultValue = "false") Boolean withTotal) {
+        try {
+            return Result.success("查询成功",
+                    userDepositTransactionService.getTransactionPage(transaction, cursor, size, withTotal));
+        } catch (Exception e) {
+            log.error("分页查询交易流水失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 查询退款申请列表
      */
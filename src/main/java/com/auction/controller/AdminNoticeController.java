@@ -3,6 +3,8 @@ package com.auction.controller;
 import com.auction.common.Result;
 import com.auction.entity.NoticeCategory;
 import com.auction.mapper.NoticeCategoryMapper;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +17,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/admin/notices")
 @Tag(name = "参拍须知管理")
+@WorkloadPool(Workload.ADMIN)
 public class AdminNoticeController {
 
     @Autowired
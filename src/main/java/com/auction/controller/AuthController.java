@@ -4,6 +4,7 @@ import com.auction.common.Result;
 import com.auction.dto.LoginRequest;
 import com.auction.dto.RegisterRequest;
 import com.auction.entity.SysUser;
+import com.auction.security.JwtAuthenticationCache;
 import com.auction.security.JwtTokenProvider;
 import com.auction.service.SysUserService;
 import com.auction.service.RedisService;
@@ -45,6 +46,9 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
     @Autowired
     private SysUserService userService;
 
@@ -296,6 +300,9 @@ public class AuthController {
                 
                 // 设置用户离线
                 userOnlineStatusService.setUserOffline(userId);
+
+                // 清除各节点缓存的认证结果
+                jwtAuthenticationCache.invalidateUser(userId);
             }
             
             // 清理Security上下文
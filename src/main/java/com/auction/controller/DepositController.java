@@ -9,6 +9,8 @@ import com.auction.security.CustomUserDetailsService;
 import com.auction.service.UserDepositAccountService;
 import com.auction.service.UserDepositTransactionService;
 import com.auction.util.SecurityUtils;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -61,6 +63,7 @@ import java.util.Map;
 @RestController     // Spring注解：RESTful控制器，返回JSON格式数据
 @RequestMapping("/api/deposit")  // 基础请求路径
 @Tag(name = "保证金管理", description = "保证金相关接口")  // Swagger文档标签
+@WorkloadPool(Workload.USER)
 public class DepositController {
 
     /* ========================= 依赖注入 ========================= */
@@ -6,6 +6,8 @@ import com.auction.entity.UserNotification;
 import com.auction.security.CustomUserDetailsService;
 import com.auction.service.UserNotificationService;
 import com.auction.util.SecurityUtils;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/notifications")
 @Tag(name = "通知管理", description = "用户通知相关接口")
+@WorkloadPool(Workload.USER)
 public class NotificationController {
 
     @Autowired
@@ -5,6 +5,8 @@ import com.auction.entity.SysUser;
 import com.auction.service.AuctionOrderService;
 import com.auction.common.Result;
 import com.auction.util.SecurityUtils;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import com.github.pagehelper.PageInfo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -28,6 +30,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/orders")
 @Tag(name = "订单管理", description = "订单相关接口")
+@WorkloadPool(Workload.USER)
 public class OrderController {
 
     @Autowired
@@ -4,6 +4,8 @@ import com.auction.common.Result;
 import com.auction.entity.UserDepositAccount;
 import com.auction.service.UserDepositAccountService;
 import com.auction.util.SecurityUtils;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +26,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/admin/risk")
 @Tag(name = "风控管理", description = "风险控制相关接口")
+@WorkloadPool(Workload.ADMIN)
 public class RiskControlController {
 
     @Autowired
@@ -5,6 +5,8 @@ import com.auction.entity.SysUser;
 import com.auction.entity.UserAddress;
 import com.auction.util.SecurityUtils;
 import com.auction.service.UserAddressService;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/user/addresses")
 @Tag(name = "用户地址管理", description = "用户地址管理相关接口")
+@WorkloadPool(Workload.USER)
 public class UserAddressController {
 
     @Autowired
@@ -1,5 +1,7 @@
 package com.auction.controller;
 
+import com.auction.dto.BidHistoryEntry;
+import com.auction.dto.SessionDetailView;
 import com.auction.entity.*;
 import com.auction.service.*;
 import com.auction.websocket.AuctionWebSocketHandler;
@@ -9,11 +11,19 @@ import com.github.pagehelper.PageInfo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import com.auction.security.CustomUserDetailsService;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -35,6 +45,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/user")
 @Tag(name = "买家功能", description = "买家相关接口")
+@WorkloadPool(Workload.USER)
 public class UserController {
 
     @Autowired
@@ -77,10 +88,16 @@ public class UserController {
     private BidIncrementService bidIncrementService;
 
     @Autowired
-    private com.auction.mapper.AuctionResultMapper auctionResultMapper;
+    private AuctionSessionStatsService auctionSessionStatsService;
 
     @Autowired
-    private com.auction.mapper.AuctionOrderMapper auctionOrderMapper;
+    private SessionDetailService sessionDetailService;
+
+    @Autowired
+    private SessionDetailSnapshotCache sessionDetailSnapshotCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     // ==================== 拍卖会管理 ====================
 
@@ -88,49 +105,13 @@ public class UserController {
      * 获取拍卖会列表
      */
     @GetMapping("/sessions")
-    @Operation(summary = "获取拍卖会列表", description = "获取所有可用的拍卖会列表")
+    @Operation(summary = "获取拍卖会列表", description = "分页获取用户可见的拍卖会卡片；传入cursor时按游标翻页")
     public Result<Map<String, Object>> getSessions(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Long cursor) {
         try {
-            // 仅返回"已展示"的拍卖会
-            AuctionSession query = new AuctionSession();
-            query.setIsVisible(1);
-            List<AuctionSession> sessions = auctionSessionService.getSessionList(query);
-            
-            // 为每个拍卖会添加拍品数量和围观人数
-            List<Map<String, Object>> sessionList = new ArrayList<>();
-            for (AuctionSession session : sessions) {
-                Map<String, Object> sessionData = new HashMap<>();
-                sessionData.put("id", session.getId());
-                sessionData.put("sessionName", session.getSessionName());
-                sessionData.put("description", session.getDescription());
-                sessionData.put("startTime", session.getStartTime());
-                sessionData.put("endTime", session.getEndTime());
-                sessionData.put("status", session.getStatus());
-                sessionData.put("coverImage", session.getCoverImage());
-                sessionData.put("sessionType", session.getSessionType());
-                
-                // 获取拍品数量
-                List<com.auction.entity.AuctionItem> items = auctionItemMapper.selectBySessionId(session.getId());
-                sessionData.put("totalItems", items != null ? items.size() : 0);
-                
-                // 获取围观人数（从Redis获取实时数据）
-                try {
-                    Long viewCount = redisService.getAuctionViewCount(session.getId());
-                    sessionData.put("viewCount", viewCount != null ? viewCount : 0);
-                } catch (Exception e) {
-                    log.warn("获取围观人数失败: sessionId={}, error={}", session.getId(), e.getMessage());
-                    sessionData.put("viewCount", 0);
-                }
-                
-                sessionList.add(sessionData);
-            }
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("data", sessionList);
-            result.put("total", sessionList.size());
-            
+            Map<String, Object> result = auctionSessionService.getSessionCards(cursor, page, size);
             return Result.success("查询成功", result);
 
         } catch (Exception e) {
@@ -163,10 +144,11 @@ public class UserController {
 
             BigDecimal minBidAmount = currentPrice;
             String ruleDescription = "无加价阶梯规则";
+            BidIncrementRule rule = null;
 
             if (config != null) {
                 // 获取适用的加价规则
-                BidIncrementRule rule = bidIncrementService.getApplicableRule(currentPrice, config.getId());
+                rule = bidIncrementService.getApplicableRule(currentPrice, config.getId());
                 if (rule != null) {
                     minBidAmount = currentPrice.add(rule.getIncrementAmount());
                     ruleDescription = String.format("当前价格区间：¥%s - ¥%s，加价幅度：¥%s", 
@@ -191,11 +173,8 @@ public class UserController {
             result.put("hasIncrementRules", config != null);
             
             // 如果有加价阶梯规则，返回加价幅度信息
-            if (config != null) {
-                BidIncrementRule rule = bidIncrementService.getApplicableRule(currentPrice, config.getId());
-                if (rule != null) {
-                    result.put("incrementAmount", rule.getIncrementAmount());
-                }
+            if (rule != null) {
+                result.put("incrementAmount", rule.getIncrementAmount());
             }
 
             return Result.success("获取成功", result);
@@ -209,197 +188,61 @@ public class UserController {
 
     /**
      * 获取拍卖会详情
+     * 已结束且全部结算的拍卖会返回缓存的JSON快照，并支持 ETag / If-None-Match
      */
     @GetMapping("/sessions/{id}")
-    @Operation(summary = "获取拍卖会详情", description = "获取指定拍卖会的详细信息")
-    public Result<Map<String, Object>> getSessionDetail(@PathVariable Long id) {
+    @Operation(summary = "获取拍卖会详情", description = "根据ID获取拍卖会详细信息")
+    public ResponseEntity<?> getSessionDetail(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            SessionDetailSnapshotCache.Snapshot snapshot = sessionDetailSnapshotCache.get(id);
+            if (snapshot != null) {
+                return snapshotResponse(snapshot, ifNoneMatch);
+            }
+
             // 获取详情后校验是否可见
             AuctionSession session = auctionSessionService.getSessionById(id);
             if (session == null) {
-                return Result.error("拍卖会不存在");
+                return ResponseEntity.ok(Result.error("拍卖会不存在"));
             }
             if (session.getIsVisible() == null || session.getIsVisible() != 1) {
-                return Result.error("拍卖会暂未对外展示");
+                return ResponseEntity.ok(Result.error("拍卖会暂未对外展示"));
             }
-            
-            Map<String, Object> sessionDetail = new HashMap<>();
-            sessionDetail.put("id", session.getId());
-            sessionDetail.put("sessionName", session.getSessionName());
-            sessionDetail.put("description", session.getDescription());
-            sessionDetail.put("startTime", session.getStartTime());
-            sessionDetail.put("endTime", session.getEndTime());
-            sessionDetail.put("status", session.getStatus());
-            sessionDetail.put("coverImage", session.getCoverImage());
-            sessionDetail.put("depositRatio", session.getDepositRatio());
-            sessionDetail.put("commissionRatio", session.getCommissionRatio());
-            // 加价规则信息已通过 bidIncrementConfig 字段提供
-            sessionDetail.put("totalItems", session.getTotalItems());
-            sessionDetail.put("soldItems", session.getSoldItems());
-            sessionDetail.put("viewCount", session.getViewCount());
-            
-            // 加载该拍卖会的拍品列表
-            List<com.auction.entity.AuctionItem> items = auctionItemMapper.selectBySessionId(id);
-            List<Map<String, Object>> itemList = new ArrayList<>();
-            for (com.auction.entity.AuctionItem item : items) {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", item.getId());
-                m.put("itemName", item.getItemName());
-                m.put("description", item.getDescription());
-                m.put("itemCode", item.getItemCode());
-                m.put("estimatedPrice", item.getEstimatedPrice());
-                m.put("dimensions", item.getDimensions());
-                m.put("material", item.getMaterial());
-                m.put("startingPrice", item.getStartingPrice());
-                m.put("currentPrice", item.getCurrentPrice());
-                m.put("images", item.getImages());
-                m.put("status", item.getStatus());
-                
-                // 添加成交信息
-                if (item.getStatus() != null && (item.getStatus() == 5 || item.getStatus() == 6)) {
-                    // 拍品已结束（成交或流拍），查询成交信息
-                    try {
-                        // 查询拍卖结果（按会场+拍品，避免历史拍卖干扰）
-                        AuctionResult result = auctionResultMapper.selectBySessionAndItem(id, item.getId());
-                        if (result != null) {
-                            m.put("auctionResult", new HashMap<String, Object>() {{
-                                put("isEnded", true);
-                                put("hasWinner", result.getResultStatus() == 1); // 1-成交
-                                put("finalPrice", result.getFinalPrice());
-                                put("winnerId", result.getWinnerUserId());
-                                put("resultStatus", result.getResultStatus()); // 0-流拍 1-成交
-                            }});
-                            
-                            // 如果有中拍者，获取中拍者信息
-                            if (result.getWinnerUserId() != null && result.getResultStatus() == 1) {
-                                try {
-                                    SysUser winner = sysUserService.getById(result.getWinnerUserId());
-                                    if (winner != null) {
-                                        String winnerName = (winner.getNickname() != null && !winner.getNickname().trim().isEmpty()) 
-                                            ? winner.getNickname() 
-                                            : winner.getUsername();
-                                        ((Map<String, Object>) m.get("auctionResult")).put("winnerName", winnerName);
-                                    }
-                                } catch (Exception e) {
-                                    log.warn("获取中拍者信息失败: winnerId={}, error={}", result.getWinnerUserId(), e.getMessage());
-                                }
-                            }
-
-                            // 追加履约 outcome：基于订单状态衍生最终展示
-                            try {
-                                AuctionOrder queryOrder = new AuctionOrder();
-                                queryOrder.setSessionId(id);
-                                queryOrder.setItemId(item.getId());
-                                List<AuctionOrder> orders = auctionOrderMapper.selectList(queryOrder);
-                                AuctionOrder latestOrder = null;
-                                if (orders != null && !orders.isEmpty()) {
-                                    // 选取最新的一条（优先按updateTime，其次按createTime，最后按id）
-                                    latestOrder = orders.stream().max((a,b) -> {
-                                        if (a.getUpdateTime() != null && b.getUpdateTime() != null) {
-                                            return a.getUpdateTime().compareTo(b.getUpdateTime());
-                                        } else if (a.getCreateTime() != null && b.getCreateTime() != null) {
-                                            return a.getCreateTime().compareTo(b.getCreateTime());
-                                        } else {
-                                            return Long.compare(
-                                                a.getId() == null ? 0L : a.getId(),
-                                                b.getId() == null ? 0L : b.getId()
-                                            );
-                                        }
-                                    }).orElse(null);
-                                }
-
-                                Integer orderStatus = latestOrder != null ? latestOrder.getStatus() : null;
-                                String orderStatusText;
-                                if (orderStatus == null) {
-                                    orderStatusText = "成交-待下单";
-                                } else {
-                                    switch (orderStatus) {
-                                        case 1: orderStatusText = "成交-未支付"; break;
-                                        case 2: orderStatusText = "成交-待发货"; break;
-                                        case 3: orderStatusText = "成交-运输中"; break;
-                                        case 4: orderStatusText = "成交-已收货"; break;
-                                        case 5: orderStatusText = "成交-已完成"; break;
-                                        case 6: orderStatusText = "成交-取消/违约"; break;
-                                        default: orderStatusText = "成交-处理中"; break;
-                                    }
-                                }
-
-                                Map<String, Object> outcome = new HashMap<>();
-                                outcome.put("isEnded", true);
-                                outcome.put("hasWinner", result.getResultStatus() == 1);
-                                outcome.put("finalPrice", result.getFinalPrice());
-                                outcome.put("winnerId", result.getWinnerUserId());
-                                outcome.put("winnerName", ((Map<String, Object>) m.get("auctionResult")).get("winnerName"));
-                                outcome.put("orderStatus", orderStatus);
-                                outcome.put("orderStatusText", orderStatusText);
-                                // 汇总文案：若无中拍者直接流拍，否则用订单状态文本
-                                outcome.put("finalOutcomeText", (result.getResultStatus() == 1) ? orderStatusText : "流拍");
-                                m.put("outcome", outcome);
-                            } catch (Exception e) {
-                                log.warn("装配拍品履约状态失败: sessionId={}, itemId={}, err={}", id, item.getId(), e.getMessage());
-                            }
-                        } else {
-                            // 没有拍卖结果记录，但拍品状态显示已结束
-                            m.put("auctionResult", new HashMap<String, Object>() {{
-                                put("isEnded", true);
-                                put("hasWinner", false);
-                                put("finalPrice", item.getCurrentPrice());
-                                put("resultStatus", item.getStatus() == 5 ? 1 : 0); // 5-已成交 6-流拍
-                            }});
-
-                            Map<String, Object> outcome = new HashMap<>();
-                            outcome.put("isEnded", true);
-                            outcome.put("hasWinner", false);
-                            outcome.put("finalPrice", item.getCurrentPrice());
-                            outcome.put("finalOutcomeText", "流拍");
-                            m.put("outcome", outcome);
-                        }
-                    } catch (Exception e) {
-                        log.warn("查询拍品成交信息失败: itemId={}, error={}", item.getId(), e.getMessage());
-                        // 出错时设置默认值
-                        m.put("auctionResult", new HashMap<String, Object>() {{
-                            put("isEnded", true);
-                            put("hasWinner", false);
-                            put("finalPrice", item.getCurrentPrice());
-                            put("resultStatus", item.getStatus() == 5 ? 1 : 0);
-                        }});
-
-                        Map<String, Object> outcome = new HashMap<>();
-                        outcome.put("isEnded", true);
-                        outcome.put("hasWinner", false);
-                        outcome.put("finalPrice", item.getCurrentPrice());
-                        outcome.put("finalOutcomeText", "流拍");
-                        m.put("outcome", outcome);
-                    }
-                } else {
-                    // 拍品未结束，设置默认值
-                    m.put("auctionResult", new HashMap<String, Object>() {{
-                        put("isEnded", false);
-                        put("hasWinner", false);
-                        put("finalPrice", 0);
-                        put("resultStatus", 0);
-                    }});
-
-                    Map<String, Object> outcome = new HashMap<>();
-                    outcome.put("isEnded", false);
-                    outcome.put("hasWinner", false);
-                    outcome.put("finalPrice", 0);
-                    outcome.put("finalOutcomeText", "未结束");
-                    m.put("outcome", outcome);
+
+            // 版本号须在读取数据之前获取，生成期间发生的失效会使本次快照作废
+            long version = sessionDetailSnapshotCache.currentVersion(id);
+            SessionDetailView detail = sessionDetailService.buildDetail(session);
+            Result<SessionDetailView> result = Result.success("查询成功", detail);
+            if (sessionDetailService.isSettled(session, detail)) {
+                snapshot = sessionDetailSnapshotCache.put(id, version, objectMapper.writeValueAsBytes(result));
+                if (snapshot != null) {
+                    return snapshotResponse(snapshot, ifNoneMatch);
                 }
-                
-                itemList.add(m);
             }
-            sessionDetail.put("items", itemList);
-            
-            return Result.success("查询成功", sessionDetail);
+            return ResponseEntity.ok(result);
 
         } catch (Exception e) {
             log.error("获取拍卖会详情失败: {}", e.getMessage(), e);
-            return Result.error("查询失败: " + e.getMessage());
+            return ResponseEntity.ok(Result.error("查询失败: " + e.getMessage()));
         }
     }
 
+    private ResponseEntity<?> snapshotResponse(SessionDetailSnapshotCache.Snapshot snapshot, String ifNoneMatch) {
+        // 允许浏览器保存但每次都须携带 If-None-Match 重新验证
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
     /**
      * 记录一次围观（浏览）并返回最新围观人数
      */
@@ -408,6 +251,8 @@ public class UserController {
     public Result<Long> addSessionView(@PathVariable Long id) {
         try {
             Long count = redisService.incrementAuctionViewCount(id);
+            // 页面浏览只计围观次数，不影响峰值在线人数
+            auctionSessionStatsService.onViewerJoined(id, null);
             return Result.success("记录成功", count);
         } catch (Exception e) {
             log.error("记录围观人数失败: sessionId={}, error={}", id, e.getMessage(), e);
@@ -416,42 +261,17 @@ public class UserController {
     }
 
     /**
-     * 获取拍品出价记录
+     * 获取拍品出价记录（最新一页）
      */
     @GetMapping("/sessions/{sessionId}/items/{itemId}/bids")
-    @Operation(summary = "获取拍品出价记录", description = "获取指定拍卖会中指定拍品的出价记录")
-    public Result<List<Map<String, Object>>> getItemBids(@PathVariable Long sessionId, @PathVariable Long itemId) {
+    @Operation(summary = "获取拍品出价记录", description = "获取指定拍卖会中指定拍品最新的出价记录，更早的记录通过 bids/history 分页获取")
+    public Result<List<BidHistoryEntry>> getItemBids(@PathVariable Long sessionId, @PathVariable Long itemId,
+                                                     @RequestParam(defaultValue = "50") int size) {
         try {
-            // 使用现有的方法获取出价记录
-            AuctionBid bidQuery = new AuctionBid();
-            bidQuery.setSessionId(sessionId);  // 指定拍卖会
-            bidQuery.setItemId(itemId);       // 指定拍品
-            bidQuery.setStatus(0); // 只查询有效出价
-            List<AuctionBid> bids = auctionBidService.getBidList(bidQuery);
-            
-            List<Map<String, Object>> bidList = new ArrayList<>();
-            for (AuctionBid bid : bids) {
-                Map<String, Object> bidMap = new HashMap<>();
-                bidMap.put("id", bid.getId());
-                bidMap.put("bidAmountYuan", bid.getBidAmountYuan());
-                bidMap.put("bidTime", bid.getBidTime());
-                
-                // 获取用户真实信息
-                SysUser user = sysUserService.getById(bid.getUserId());
-                String displayName = "未知用户";
-                if (user != null) {
-                    // 优先使用昵称，如果没有昵称则使用用户名
-                    displayName = (user.getNickname() != null && !user.getNickname().trim().isEmpty()) 
-                        ? user.getNickname() 
-                        : user.getUsername();
-                }
-                bidMap.put("username", displayName);
-                bidMap.put("source", bid.getSource());
-                bidMap.put("isAuto", bid.getIsAuto());
-                bidList.add(bidMap);
-            }
-            
-            return Result.success("查询成功", bidList);
+            Map<String, Object> page = auctionBidService.getItemBidHistory(sessionId, itemId, null, size);
+            @SuppressWarnings("unchecked")
+            List<BidHistoryEntry> bids = (List<BidHistoryEntry>) page.get("data");
+            return Result.success("查询成功", bids);
 
         } catch (Exception e) {
             log.error("获取拍品出价记录失败: {}", e.getMessage(), e);
@@ -459,6 +279,23 @@ public class UserController {
         }
     }
 
+    /**
+     * 分页获取拍品出价记录
+     */
+    @GetMapping("/sessions/{sessionId}/items/{itemId}/bids/history")
+    @Operation(summary = "分页获取拍品出价记录", description = "按出价时间倒序键集分页，传入上一页返回的cursor获取更早的记录")
+    public Result<Map<String, Object>> getItemBidHistory(@PathVariable Long sessionId, @PathVariable Long itemId,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        try {
+            return Result.success("查询成功", auctionBidService.getItemBidHistory(sessionId, itemId, cursor, size));
+
+        } catch (Exception e) {
+            log.error("分页获取拍品出价记录失败: {}", e.getMessage(), e);
+            return Result.error("查询失败: " + e.getMessage());
+        }
+    }
+
 
     /**
      * 参与竞拍
@@ -513,6 +350,7 @@ public class UserController {
             Long bidId = auctionBidService.placeBid(bid);
             
             if (bidId != null) {
+                auctionSessionStatsService.onBidAccepted(id, currentUser.getId());
                 // 出价成功后通过WebSocket广播（兼容REST出价路径）
                 try {
                     Long userBidCount = redisService.incrementUserBidCount(currentUser.getId(), id);
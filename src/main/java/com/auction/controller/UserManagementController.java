@@ -3,6 +3,8 @@ package com.auction.controller;
 import com.auction.common.Result;
 import com.auction.entity.UserOnlineStatus;
 import com.auction.service.UserOnlineStatusService;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import com.github.pagehelper.PageInfo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,6 +27,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/admin/user-management")
 @Tag(name = "用户管理", description = "用户管理相关接口")
+@WorkloadPool(Workload.ADMIN)
 public class UserManagementController {
 
     @Autowired
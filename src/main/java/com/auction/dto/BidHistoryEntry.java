@@ -0,0 +1,38 @@
+package com.auction.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 拍品出价记录（用户端展示）
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class BidHistoryEntry {
+
+    /**
+     * 出价ID
+     */
+    private Long id;
+
+    private BigDecimal bidAmountYuan;
+
+    private LocalDateTime bidTime;
+
+    /**
+     * 出价人展示名（昵称，没有昵称时为用户名）
+     */
+    private String username;
+
+    /**
+     * 出价来源：1-手动出价，2-自动出价
+     */
+    private Integer source;
+
+    private Integer isAuto;
+}
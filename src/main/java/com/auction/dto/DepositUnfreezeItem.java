@@ -0,0 +1,36 @@
+package com.auction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量解冻保证金条目
+ * 用于拍品结算后一次性释放所有未中标用户的保证金
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepositUnfreezeItem {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 解冻金额（元）
+     */
+    private BigDecimal amount;
+
+    /**
+     * 关联拍品ID
+     */
+    private Long itemId;
+}
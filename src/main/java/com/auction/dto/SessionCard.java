@@ -0,0 +1,62 @@
+package com.auction.dto;
+
+import com.auction.entity.AuctionSession;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户端拍卖会列表卡片
+ * 字段直接取自 auction_session 行（拍品数量在写入时维护），围观人数取Redis实时计数
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class SessionCard {
+
+    private Long id;
+
+    private String sessionName;
+
+    private String description;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    /**
+     * 拍卖会状态（按当前时间纠正后）
+     */
+    private Integer status;
+
+    private String coverImage;
+
+    private Integer sessionType;
+
+    /**
+     * 拍品数量
+     */
+    private Integer totalItems;
+
+    /**
+     * 围观人数
+     */
+    private Long viewCount;
+
+    public static SessionCard of(AuctionSession session, Long viewCount) {
+        SessionCard card = new SessionCard();
+        card.setId(session.getId());
+        card.setSessionName(session.getSessionName());
+        card.setDescription(session.getDescription());
+        card.setStartTime(session.getStartTime());
+        card.setEndTime(session.getEndTime());
+        card.setStatus(session.getStatus());
+        card.setCoverImage(session.getCoverImage());
+        card.setSessionType(session.getSessionType());
+        card.setTotalItems(session.getTotalItems() != null ? session.getTotalItems() : 0);
+        card.setViewCount(viewCount);
+        return card;
+    }
+}
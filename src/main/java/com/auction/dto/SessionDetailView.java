@@ -0,0 +1,123 @@
+package com.auction.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户端拍卖会详情
+ * 由 SessionDetailService 一次装配，字段与原接口返回的JSON结构一致（空字段不输出）
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class SessionDetailView {
+
+    private Long id;
+
+    private String sessionName;
+
+    private String description;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private Integer status;
+
+    private String coverImage;
+
+    private BigDecimal depositRatio;
+
+    private BigDecimal commissionRatio;
+
+    private Integer totalItems;
+
+    private Integer soldItems;
+
+    private Integer viewCount;
+
+    private List<Item> items;
+
+    /**
+     * 拍品及其成交、履约结果
+     */
+    @Data
+    public static class Item {
+
+        private Long id;
+
+        private String itemName;
+
+        private String description;
+
+        private String itemCode;
+
+        private BigDecimal estimatedPrice;
+
+        private String dimensions;
+
+        private String material;
+
+        private BigDecimal startingPrice;
+
+        private BigDecimal currentPrice;
+
+        private String images;
+
+        private Integer status;
+
+        private ItemResult auctionResult;
+
+        private ItemOutcome outcome;
+    }
+
+    /**
+     * 拍卖结果
+     */
+    @Data
+    public static class ItemResult {
+
+        private Boolean isEnded;
+
+        private Boolean hasWinner;
+
+        private BigDecimal finalPrice;
+
+        private Long winnerId;
+
+        private String winnerName;
+
+        /**
+         * 0-流拍，1-成交
+         */
+        private Integer resultStatus;
+    }
+
+    /**
+     * 履约结果：基于最新订单状态衍生的展示文案
+     */
+    @Data
+    public static class ItemOutcome {
+
+        private Boolean isEnded;
+
+        private Boolean hasWinner;
+
+        private BigDecimal finalPrice;
+
+        private Long winnerId;
+
+        private String winnerName;
+
+        private Integer orderStatus;
+
+        private String orderStatusText;
+
+        private String finalOutcomeText;
+    }
+}
@@ -0,0 +1,71 @@
+package com.auction.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 结算事件发件箱实体类
+ * 结算事务内写入，由调度任务异步投递通知、WebSocket推送等副作用
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class AuctionOutboxEvent {
+
+    /**
+     * 事件ID
+     */
+    private Long id;
+
+    /**
+     * 事件类型：WIN_NOTIFICATION-中标通知，AUCTION_END-拍卖结束推送
+     */
+    private String eventType;
+
+    /**
+     * 聚合ID（拍品ID）
+     */
+    private Long aggregateId;
+
+    /**
+     * 事件内容（JSON）
+     */
+    private String payload;
+
+    /**
+     * 状态：0-待投递，1-已投递，2-投递失败，3-投递中
+     */
+    private Integer status;
+
+    /**
+     * 重试次数
+     */
+    private Integer retryCount;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String errorMsg;
+
+    /**
+     * 认领时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime claimedAt;
+
+    /**
+     * 创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
@@ -132,6 +132,30 @@ public class AuctionSession {
      */
     private Integer viewCount;
 
+    /**
+     * 出价次数
+     * 由统计投影（AuctionSessionStatsService）在Redis中累计，定期回写
+     */
+    private Integer bidCount;
+
+    /**
+     * 出价人数（去重）
+     * 由统计投影在Redis中累计，定期回写
+     */
+    private Integer bidderCount;
+
+    /**
+     * 成交总额（元）
+     * 结算后由统计投影累计成交价，定期回写
+     */
+    private BigDecimal gmvAmount;
+
+    /**
+     * 峰值在线人数
+     * 由统计投影记录实时围观人数的最大值，定期回写
+     */
+    private Integer peakViewers;
+
     /* ========================= 拍卖规则字段 ========================= */
 
     /**
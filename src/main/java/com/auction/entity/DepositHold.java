@@ -0,0 +1,51 @@
+package com.auction.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 保证金占用实体类
+ * 按（用户、关联类型、关联ID）汇总当前冻结金额，与冻结/解冻/扣除同事务维护
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+public class DepositHold {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 关联类型：item等
+     */
+    private String relatedType;
+
+    /**
+     * 关联ID（拍品ID等）
+     */
+    private Long relatedId;
+
+    /**
+     * 当前冻结金额（元）
+     */
+    private BigDecimal amount;
+
+    /**
+     * 创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
@@ -82,5 +82,10 @@ public class UserNotification {
      * 删除标志：0-未删除，1-已删除
      */
     private Integer deleted;
+
+    /**
+     * 去重键（同一事件重复投递时只保留一条通知）
+     */
+    private String dedupeKey;
 }
 
@@ -0,0 +1,62 @@
+package com.auction.mapper;
+
+import com.auction.entity.AuctionBid;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 出价归档Mapper
+ * 对应XML：resources/mapper/AuctionBidArchiveMapper.xml
+ * 数据库表：auction_bid_archive
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface AuctionBidArchiveMapper {
+
+    /**
+     * 查询可归档的拍卖会：已结束或已取消、结束时间早于截止时间、热表中仍有出价
+     *
+     * @param before 结束时间截止
+     * @param limit 最多返回条数
+     * @return 拍卖会ID列表（按结束时间升序）
+     */
+    List<Long> selectArchivableSessionIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 将拍卖会的全部出价从热表复制到归档表
+     *
+     * @param sessionId 拍卖会ID
+     * @return 复制条数
+     */
+    int copySessionBids(@Param("sessionId") Long sessionId);
+
+    /**
+     * 删除热表中已复制到归档表的拍卖会出价
+     *
+     * @param sessionId 拍卖会ID
+     * @return 删除条数
+     */
+    int deleteArchivedSessionBids(@Param("sessionId") Long sessionId);
+
+    /**
+     * 键集分页查询归档中的拍品有效出价（与 AuctionBidMapper.selectItemBidPage 一致）
+     *
+     * @param sessionId 拍卖会ID，为空时不限拍卖会
+     * @param itemId 拍品ID
+     * @param cursorTime 上一页最后一条的出价时间，为空时从最新开始
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     * @return 出价记录列表
+     */
+    List<AuctionBid> selectItemBidPage(@Param("sessionId") Long sessionId,
+                                       @Param("itemId") Long itemId,
+                                       @Param("cursorTime") LocalDateTime cursorTime,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("limit") int limit);
+}
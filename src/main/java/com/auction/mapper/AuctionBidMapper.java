@@ -4,6 +4,8 @@ import com.auction.entity.AuctionBid;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -88,6 +90,47 @@ public interface AuctionBidMapper {
      */
     List<AuctionBid> selectList(AuctionBid bid);
 
+    /**
+     * 键集分页查询拍品的有效出价记录
+     * 
+     * 功能：按 (bid_time, id) 倒序取一页，走 idx_item_status_time 索引
+     * SQL：SELECT ... WHERE item_id = #{itemId} AND status = 0
+     *      AND (bid_time &lt; #{cursorTime} OR (bid_time = #{cursorTime} AND id &lt; #{cursorId}))
+     *      ORDER BY bid_time DESC, id DESC LIMIT #{limit}
+     * 
+     * @param sessionId 拍卖会ID，可为空
+     * @param itemId 拍品ID
+     * @param cursorTime 上一页最后一条的出价时间，为空时从最新开始
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     * @return 出价记录列表
+     */
+    List<AuctionBid> selectItemBidPage(@Param("sessionId") Long sessionId,
+                                       @Param("itemId") Long itemId,
+                                       @Param("cursorTime") LocalDateTime cursorTime,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("limit") int limit);
+
+    /**
+     * 批量查询拍品在各拍卖会上的最大有效出价ID（只填充 sessionId、itemId、id）
+     * 用于核对最近出价缓冲是否漏掉了出价
+     * 
+     * @param itemIds 拍品ID列表
+     * @return 每个（拍卖会, 拍品）一条
+     */
+    List<AuctionBid> selectMaxValidBidIds(@Param("itemIds") List<Long> itemIds);
+
+    /**
+     * 查询用户在拍品（同一拍卖会）上的最高有效出价金额
+     * 
+     * @param itemId 拍品ID
+     * @param sessionId 拍卖会ID
+     * @param userId 用户ID
+     * @return 最高出价金额（元），没有出价时返回null
+     */
+    BigDecimal selectUserMaxBidAmount(@Param("itemId") Long itemId, @Param("sessionId") Long sessionId,
+                                      @Param("userId") Long userId);
+
     /**
      * 查询拍品最高出价
      * 
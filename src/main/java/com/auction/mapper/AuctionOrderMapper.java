@@ -4,6 +4,7 @@ import com.auction.entity.AuctionOrder;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -65,4 +66,22 @@ public interface AuctionOrderMapper {
      * 根据状态查询订单
      */
     List<AuctionOrder> selectByStatus(@Param("status") Integer status);
+
+    /**
+     * 键集分页查询订单列表（按 create_time, id 倒序，条件同 selectList）
+     *
+     * @param query 查询条件，非空字段作为条件
+     * @param cursorTime 上一页最后一条的创建时间，为空时从最新开始
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     */
+    List<AuctionOrder> selectPage(@Param("query") AuctionOrder query,
+                                  @Param("cursorTime") LocalDateTime cursorTime,
+                                  @Param("cursorId") Long cursorId,
+                                  @Param("limit") int limit);
+
+    /**
+     * 统计订单数量，最多数到 cap 条
+     */
+    int countCapped(@Param("query") AuctionOrder query, @Param("cap") int cap);
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.auction.mapper;
+
+import com.auction.entity.AuctionOutboxEvent;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 结算事件发件箱Mapper
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface AuctionOutboxEventMapper {
+
+    /**
+     * 插入事件
+     */
+    @Insert("INSERT INTO auction_outbox_event(event_type, aggregate_id, payload, status, retry_count, create_time, update_time) " +
+            "VALUES(#{eventType}, #{aggregateId}, #{payload}, 0, 0, NOW(), NOW())")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insert(AuctionOutboxEvent event);
+
+    /**
+     * 按ID顺序查询一批待投递事件
+     */
+    @Select("SELECT * FROM auction_outbox_event WHERE status = 0 ORDER BY id LIMIT #{limit}")
+    List<AuctionOutboxEvent> selectPending(@Param("limit") int limit);
+
+    /**
+     * 认领事件（待投递 -> 投递中），多节点并发时只有一个节点能认领成功
+     */
+    @Update("UPDATE auction_outbox_event SET status = 3, claimed_at = NOW(), update_time = NOW() WHERE id = #{id} AND status = 0")
+    int claim(@Param("id") Long id);
+
+    /**
+     * 认领超时的事件（节点在投递中宕机或标记结果失败）回到待投递，计一次重试，超过重试上限时标记为投递失败
+     * 升级前认领的事件没有认领时间，按更新时间判断
+     */
+    @Update("UPDATE auction_outbox_event SET status = IF(retry_count + 1 >= #{maxRetryCount}, 2, 0), " +
+            "retry_count = retry_count + 1, claimed_at = NULL, error_msg = '投递超时', update_time = NOW() " +
+            "WHERE status = 3 AND COALESCE(claimed_at, update_time) < DATE_SUB(NOW(), INTERVAL #{timeoutSeconds} SECOND)")
+    int releaseStaleClaims(@Param("timeoutSeconds") int timeoutSeconds, @Param("maxRetryCount") int maxRetryCount);
+
+    /**
+     * 标记为已投递
+     */
+    @Update("UPDATE auction_outbox_event SET status = 1, update_time = NOW() WHERE id = #{id}")
+    int markDelivered(@Param("id") Long id);
+
+    /**
+     * 记录投递失败，未超过重试上限时回到待投递状态
+     */
+    @Update("UPDATE auction_outbox_event SET status = #{status}, retry_count = retry_count + 1, " +
+            "error_msg = #{errorMsg}, update_time = NOW() WHERE id = #{id}")
+    int markFailed(@Param("id") Long id, @Param("status") Integer status, @Param("errorMsg") String errorMsg);
+}
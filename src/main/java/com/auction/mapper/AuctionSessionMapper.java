@@ -152,4 +152,47 @@ public interface AuctionSessionMapper {
      * @return 使用该配置的拍卖会列表
      */
     List<AuctionSession> selectSessionsByBidIncrementConfigId(@Param("configId") Long configId);
-}
\ No newline at end of file
+
+    /**
+     * 回写拍卖会统计数据
+     * 
+     * 功能：将统计投影在Redis中累计的计数回写到auction_session
+     * SQL：UPDATE auction_session SET sold_items = ..., view_count = ... WHERE id = #{id}
+     * 
+     * @param session 拍卖会对象，id必填，统计字段为最新累计值
+     * @return 影响的行数
+     */
+    int updateStatistics(AuctionSession session);
+
+    /**
+     * 查询用户端拍卖会卡片（键集分页）
+     * 
+     * 功能：只查询卡片展示需要的字段，按ID倒序
+     * SQL：SELECT ... WHERE is_visible = 1 AND deleted = 0 AND id < #{cursorId} ORDER BY id DESC LIMIT ...
+     * 
+     * @param cursorId 上一页最后一条的ID，为空时从最新开始
+     * @param offset 无游标按页码跳转时的偏移量，有游标时为空
+     * @param limit 查询条数
+     * @return 拍卖会卡片列表
+     */
+    List<AuctionSession> selectVisibleCards(@Param("cursorId") Long cursorId,
+                                            @Param("offset") Integer offset,
+                                            @Param("limit") int limit);
+
+    /**
+     * 统计用户端可见拍卖会数量
+     * 
+     * @return 可见且未删除的拍卖会数量
+     */
+    Long countVisible();
+
+    /**
+     * 回写拍品数量
+     * 
+     * 功能：拍品关联重建后按auction_session_item重新统计total_items
+     * 
+     * @param id 拍卖会ID
+     * @return 影响的行数
+     */
+    int refreshTotalItems(Long id);
+}
@@ -83,5 +83,55 @@ public interface AuditLogMapper {
      */
     @Select("SELECT * FROM audit_log WHERE user_id = #{userId} ORDER BY create_time DESC LIMIT #{limit}")
     List<AuditLog> selectRecentByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * 键集分页查询审计日志（idx_create_time，按 create_time, id 倒序）
+     */
+    @Select("<script>" +
+            "SELECT * FROM audit_log " +
+            "WHERE 1=1 " +
+            "<if test='userId != null'>AND user_id = #{userId}</if> " +
+            "<if test='operationType != null and operationType != \"\"'>AND operation_type = #{operationType}</if> " +
+            "<if test='module != null and module != \"\"'>AND module = #{module}</if> " +
+            "<if test='success != null'>AND success = #{success}</if> " +
+            "<if test='startTime != null'>AND create_time &gt;= #{startTime}</if> " +
+            "<if test='endTime != null'>AND create_time &lt;= #{endTime}</if> " +
+            "<if test='cursorTime != null and cursorId != null'>" +
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY create_time DESC, id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<AuditLog> selectPage(@Param("userId") Long userId,
+                              @Param("operationType") String operationType,
+                              @Param("module") String module,
+                              @Param("success") Integer success,
+                              @Param("startTime") LocalDateTime startTime,
+                              @Param("endTime") LocalDateTime endTime,
+                              @Param("cursorTime") LocalDateTime cursorTime,
+                              @Param("cursorId") Long cursorId,
+                              @Param("limit") int limit);
+
+    /**
+     * 统计审计日志数量，最多数到 cap 条
+     */
+    @Select("<script>" +
+            "SELECT COUNT(*) FROM (SELECT 1 FROM audit_log " +
+            "WHERE 1=1 " +
+            "<if test='userId != null'>AND user_id = #{userId}</if> " +
+            "<if test='operationType != null and operationType != \"\"'>AND operation_type = #{operationType}</if> " +
+            "<if test='module != null and module != \"\"'>AND module = #{module}</if> " +
+            "<if test='success != null'>AND success = #{success}</if> " +
+            "<if test='startTime != null'>AND create_time &gt;= #{startTime}</if> " +
+            "<if test='endTime != null'>AND create_time &lt;= #{endTime}</if> " +
+            "LIMIT #{cap}) t" +
+            "</script>")
+    int countCapped(@Param("userId") Long userId,
+                    @Param("operationType") String operationType,
+                    @Param("module") String module,
+                    @Param("success") Integer success,
+                    @Param("startTime") LocalDateTime startTime,
+                    @Param("endTime") LocalDateTime endTime,
+                    @Param("cap") int cap);
 }
 
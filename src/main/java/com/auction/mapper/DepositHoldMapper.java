@@ -0,0 +1,63 @@
+package com.auction.mapper;
+
+import com.auction.dto.DepositUnfreezeItem;
+import com.auction.entity.DepositHold;
+import org.apache.ibatis.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 保证金占用Mapper
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface DepositHoldMapper {
+
+    /**
+     * 增加占用金额（不存在时插入）
+     */
+    @Insert("INSERT INTO deposit_hold(user_id, related_type, related_id, amount, create_time, update_time) " +
+            "VALUES(#{userId}, #{relatedType}, #{relatedId}, #{amount}, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), update_time = NOW()")
+    int increase(@Param("userId") Long userId, @Param("relatedType") String relatedType,
+                 @Param("relatedId") Long relatedId, @Param("amount") BigDecimal amount);
+
+    /**
+     * 减少占用金额，最低减到0
+     */
+    @Update("UPDATE deposit_hold SET amount = GREATEST(amount - #{amount}, 0), update_time = NOW() " +
+            "WHERE user_id = #{userId} AND related_type = #{relatedType} AND related_id = #{relatedId}")
+    int decrease(@Param("userId") Long userId, @Param("relatedType") String relatedType,
+                 @Param("relatedId") Long relatedId, @Param("amount") BigDecimal amount);
+
+    /**
+     * 批量减少拍品占用金额（批量解冻时使用）
+     */
+    @Update("<script>" +
+            "UPDATE deposit_hold SET amount = GREATEST(amount - CASE " +
+            "<foreach collection='items' item='it'>" +
+            "WHEN user_id = #{it.userId} AND related_id = #{it.itemId} THEN #{it.amount} " +
+            "</foreach>" +
+            "ELSE 0 END, 0), update_time = NOW() " +
+            "WHERE related_type = 'item' AND (user_id, related_id) IN " +
+            "<foreach collection='items' item='it' open='(' separator=',' close=')'>(#{it.userId}, #{it.itemId})</foreach>" +
+            "</script>")
+    int batchDecreaseItemHolds(@Param("items") List<DepositUnfreezeItem> items);
+
+    /**
+     * 按主键查询占用金额
+     */
+    @Select("SELECT amount FROM deposit_hold WHERE user_id = #{userId} AND related_type = #{relatedType} AND related_id = #{relatedId}")
+    BigDecimal selectAmount(@Param("userId") Long userId, @Param("relatedType") String relatedType,
+                            @Param("relatedId") Long relatedId);
+
+    /**
+     * 查询某个关联对象上所有大于0的占用（结算时一次取出全部参与者）
+     */
+    @Select("SELECT * FROM deposit_hold WHERE related_type = #{relatedType} AND related_id = #{relatedId} AND amount > 0")
+    List<DepositHold> selectByRelated(@Param("relatedType") String relatedType, @Param("relatedId") Long relatedId);
+}
@@ -32,6 +32,14 @@ public interface SysUserMapper {
      */
     SysUser selectByUsername(@Param("username") String username);
 
+    /**
+     * 批量查询用户展示信息（仅 id, username, nickname）
+     * 
+     * @param ids 用户ID列表
+     * @return 用户列表
+     */
+    List<SysUser> selectDisplayNamesByIds(@Param("ids") List<Long> ids);
+
     /**
      * 查询所有用户
      * 
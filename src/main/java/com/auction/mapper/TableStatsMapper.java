@@ -0,0 +1,25 @@
+package com.auction.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 表统计信息Mapper
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface TableStatsMapper {
+
+    /**
+     * 查询表的估算行数（InnoDB统计信息，不扫描数据，可能与实际行数有偏差）
+     *
+     * @param tableName 当前库中的表名
+     * @return 估算行数，表不存在时返回null
+     */
+    @Select("SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{tableName}")
+    Long selectEstimatedRows(@Param("tableName") String tableName);
+}
@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户保证金账户Mapper接口
@@ -36,6 +37,11 @@ public interface UserDepositAccountMapper {
      */
     UserDepositAccount selectByUserId(@Param("userId") Long userId);
 
+    /**
+     * 根据用户ID列表批量查询保证金账户
+     */
+    List<UserDepositAccount> selectByUserIds(@Param("userIds") List<Long> userIds);
+
     /**
      * 查询保证金账户列表
      */
@@ -47,14 +53,43 @@ public interface UserDepositAccountMapper {
     int deleteById(Long id);
 
     /**
-     * 更新账户金额（原子操作）
+     * 冻结：可用余额转入冻结金额，可用余额不足时返回0
+     */
+    int freeze(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 解冻：冻结金额转回可用余额，冻结余额不足时返回0
+     */
+    int unfreeze(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 从冻结金额扣除，冻结余额不足时返回0
+     */
+    int deductFrozen(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 从可用余额扣除，可用余额不足时返回0
+     */
+    int deductAvailable(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 增加可用余额（充值入账）
      */
-    int updateAmount(@Param("id") Long id, 
-                    @Param("totalAmount") java.math.BigDecimal totalAmount,
-                    @Param("availableAmount") java.math.BigDecimal availableAmount,
-                    @Param("frozenAmount") java.math.BigDecimal frozenAmount,
-                    @Param("refundedAmount") java.math.BigDecimal refundedAmount);
-    
+    int credit(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 累加已退还金额
+     */
+    int addRefunded(@Param("userId") Long userId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 批量解冻账户金额（单条UPDATE，按账户ID增量调整）
+     * 
+     * @param amounts 账户ID -> 解冻金额（元）
+     * @return 实际更新的账户数，冻结余额不足的账户不会被更新
+     */
+    int batchUnfreeze(@Param("amounts") Map<Long, java.math.BigDecimal> amounts);
+
     /**
      * 更新账户状态
      */
@@ -4,6 +4,7 @@ import com.auction.entity.UserDepositTransaction;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,6 +22,11 @@ public interface UserDepositTransactionMapper {
      */
     int insert(UserDepositTransaction transaction);
 
+    /**
+     * 批量插入交易流水（单条多值INSERT）
+     */
+    int batchInsert(@Param("transactions") List<UserDepositTransaction> transactions);
+
     /**
      * 更新交易流水
      */
@@ -67,4 +73,22 @@ public interface UserDepositTransactionMapper {
      * @param transactionType 交易类型，null表示查询所有类型
      */
     List<UserDepositTransaction> selectPendingTransactions(@Param("transactionType") Integer transactionType);
+
+    /**
+     * 键集分页查询交易流水（按 create_time, id 倒序，条件同 selectList）
+     *
+     * @param query 查询条件，非空字段作为条件
+     * @param cursorTime 上一页最后一条的创建时间，为空时从最新开始
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     */
+    List<UserDepositTransaction> selectPage(@Param("query") UserDepositTransaction query,
+                                            @Param("cursorTime") LocalDateTime cursorTime,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("limit") int limit);
+
+    /**
+     * 统计交易流水数量，最多数到 cap 条
+     */
+    int countCapped(@Param("query") UserDepositTransaction query, @Param("cap") int cap);
 }
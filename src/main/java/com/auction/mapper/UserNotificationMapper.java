@@ -24,6 +24,14 @@ public interface UserNotificationMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(UserNotification notification);
 
+    /**
+     * 按去重键插入通知，去重键已存在时不插入（返回0）
+     */
+    @Insert("INSERT INTO user_notification(user_id, notification_type, title, content, related_id, related_type, link_url, is_read, dedupe_key, create_time, update_time) " +
+            "VALUES(#{userId}, #{notificationType}, #{title}, #{content}, #{relatedId}, #{relatedType}, #{linkUrl}, 0, #{dedupeKey}, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE id = id")
+    int insertIfAbsent(UserNotification notification);
+
     /**
      * 根据用户ID查询通知列表
      */
@@ -5,13 +5,17 @@ import com.auction.entity.AuctionSession;
 import com.auction.service.AuctionService;
 import com.auction.service.AuctionOrderService;
 import com.auction.service.SysConfigService;
+import com.auction.util.ConfigHandle;
 import com.auction.websocket.AuctionWebSocketHandler;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import com.github.pagehelper.PageInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +31,7 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@WorkloadPool(Workload.BATCH)
 public class AuctionScheduleTask {
 
     @Autowired
@@ -47,6 +52,29 @@ public class AuctionScheduleTask {
     @Autowired
     private com.auction.service.AuctionSessionService auctionSessionService;
 
+    @Autowired
+    private com.auction.service.AuctionOutboxService auctionOutboxService;
+
+    @Autowired
+    private com.auction.service.AuctionSessionStatsService auctionSessionStatsService;
+
+    @Autowired
+    private com.auction.service.AuctionLiveCacheService auctionLiveCacheService;
+
+    @Autowired
+    private com.auction.service.RecentBidService recentBidService;
+
+    @Autowired
+    private com.auction.service.AuctionBidArchiveService auctionBidArchiveService;
+
+    /** 拍卖倒计时秒数 */
+    private ConfigHandle<Integer> biddingTimeoutSeconds;
+
+    @PostConstruct
+    public void initConfigHandles() {
+        biddingTimeoutSeconds = sysConfigService.getIntHandle("auction.bidding.timeout_seconds", 300);
+    }
+
     /**
      * 每分钟检查拍卖状态
      * 自动开始和结束拍卖
@@ -94,10 +122,9 @@ public class AuctionScheduleTask {
                 }
             }
             
+            // 从系统配置获取倒计时时间
+            long remainingSeconds = biddingTimeoutSeconds.get();
             for (AuctionItem auction : activeAuctions) {
-                // 从系统配置获取倒计时时间
-                Integer timeoutSeconds = sysConfigService.getIntConfigValue("auction.bidding.timeout_seconds", 300);
-                long remainingSeconds = timeoutSeconds; // 从配置获取倒计时时间
                 sendAuctionCountdownMessage(auction.getId(), remainingSeconds);
             }
             
@@ -106,6 +133,69 @@ public class AuctionScheduleTask {
         }
     }
 
+    /**
+     * 预热即将开始的拍卖会
+     * 提前将会场、拍品、加价阶梯和当前价加载到直播缓存，避免开场瞬间集中回源数据库
+     */
+    @Scheduled(fixedRate = 30000) // 每30秒执行一次
+    public void warmUpLiveSessions() {
+        try {
+            auctionLiveCacheService.warmUpcomingSessions();
+        } catch (Exception e) {
+            log.error("预热拍卖会时发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 投递结算发件箱事件
+     * 中标通知、拍卖结束推送在结算事务提交后由此异步发送
+     */
+    @Scheduled(fixedDelay = 1000) // 上一批投递完成1秒后再次执行
+    public void dispatchOutboxEvents() {
+        try {
+            auctionOutboxService.dispatchPendingEvents();
+        } catch (Exception e) {
+            log.error("投递发件箱事件时发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 校验配置快照版本
+     * 配置变更通知通过发布订阅推送，此任务兜底处理通知丢失的情况
+     */
+    @Scheduled(fixedRate = 30000) // 每30秒执行一次
+    public void syncConfigSnapshot() {
+        try {
+            sysConfigService.syncConfigVersion();
+        } catch (Exception e) {
+            log.error("校验配置版本时发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清理长时间无人查看的拍品最近出价缓冲
+     */
+    @Scheduled(fixedRate = 300000) // 每5分钟执行一次
+    public void evictIdleRecentBids() {
+        try {
+            recentBidService.evictIdle();
+        } catch (Exception e) {
+            log.error("清理最近出价缓冲时发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 最近出价缓冲与数据库核对（补偿发布订阅丢失的出价）
+     */
+    @Scheduled(fixedRate = 30000) // 每30秒执行一次
+    public void reconcileRecentBids() {
+        try {
+            recentBidService.reconcile();
+        } catch (Exception e) {
+            log.error("核对最近出价缓冲时发生错误: {}", e.getMessage());
+        }
+    }
+
     /**
      * 每天凌晨2点执行数据清理任务
      */
@@ -128,9 +218,33 @@ public class AuctionScheduleTask {
     }
 
     /**
-     * 每小时执行一次统计任务
+     * 每天凌晨3点归档已结束超过保留期的拍卖会出价
+     * 每场拍卖会单独事务，某一场失败不影响其他场次
      */
-    @Scheduled(fixedRate = 3600000) // 每小时执行一次
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void archiveSettledBids() {
+        try {
+            List<Long> sessionIds = auctionBidArchiveService.findArchivableSessions();
+            int archived = 0;
+            for (Long sessionId : sessionIds) {
+                try {
+                    archived += auctionBidArchiveService.archiveSession(sessionId);
+                } catch (Exception e) {
+                    log.error("归档拍卖会出价失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+                }
+            }
+            if (!sessionIds.isEmpty()) {
+                log.info("出价归档任务完成: 拍卖会{}场，出价{}条", sessionIds.size(), archived);
+            }
+        } catch (Exception e) {
+            log.error("出价归档任务发生错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每分钟回写一次拍卖会统计
+     */
+    @Scheduled(fixedRate = 60000) // 每分钟执行一次
     public void updateAuctionStatistics() {
         log.debug("更新拍卖统计信息...");
         
@@ -314,9 +428,9 @@ public class AuctionScheduleTask {
      * 更新拍卖统计信息
      */
     private void updateAuctionStats() {
-        // 更新各种统计信息
-        // 这里可以实现具体的统计逻辑
-        log.debug("更新拍卖统计信息...");
+        // 统计投影在Redis中增量累计，这里将有变化的会场回写到auction_session
+        int flushed = auctionSessionStatsService.flushDirtySessions();
+        log.debug("更新拍卖统计信息: 回写{}个会场", flushed);
     }
 
     /**
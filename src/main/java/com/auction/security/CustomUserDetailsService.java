@@ -34,7 +34,8 @@ public class CustomUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("根据用户名加载用户: {}", username);
         
-        SysUser user = userService.getByUsername(username);
+        // 用户缓存不含密码，认证直接查库
+        SysUser user = userService.getByUsernameWithPassword(username);
         if (user == null) {
             log.error("未找到用户: {}", username);
             throw new UsernameNotFoundException("User not found with username: " + username);
@@ -0,0 +1,208 @@
+package com.auction.security;
+
+import com.auction.entity.SysUser;
+import com.auction.util.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JWT认证结果缓存
+ * - 以Token摘要为键缓存已认证的用户快照，命中时跳过签名校验、声明解析和用户查询
+ * - 有界本地缓存（无全局锁），条目有效期不超过Token自身的过期时间
+ * - 退出登录、修改密码、禁用或删除用户时按用户ID失效，并通过Redis发布订阅通知所有节点
+ * - 每次失效分配递增序号并记为该用户的失效代数；加载用户前取得当前序号，
+ *   写入和命中时若该用户在此之后被失效则丢弃，加载中的旧结果不会覆盖退出登录或禁用
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class JwtAuthenticationCache implements MessageListener {
+
+    /** 用户认证失效通知频道，消息内容为用户ID */
+    private static final String INVALIDATE_CHANNEL = "auth:user:invalidate";
+
+    /** 最大缓存条目数 */
+    private static final int MAX_ENTRIES = 10000;
+
+    /** 条目最长有效期（毫秒），用户信息变更通知丢失时的兜底 */
+    private static final long TTL_MILLIS = 5 * 60 * 1000L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final LocalCache<String, Entry> entries = new LocalCache<>(MAX_ENTRIES, TTL_MILLIS);
+
+    /** 用户最近一次失效的序号，保留时间与认证条目有效期相同 */
+    private final LocalCache<Long, Long> invalidatedAt = new LocalCache<>(MAX_ENTRIES, TTL_MILLIS);
+
+    /** 失效序号 */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 查找Token对应的已认证用户
+     *
+     * @param token JWT Token
+     * @return 用户副本，未缓存或已过期时返回null
+     */
+    public SysUser get(String token) {
+        Entry entry = entries.get(digest(token));
+        if (entry != null && (entry.expiresAt <= System.currentTimeMillis()
+                || invalidatedSince(entry.user.getId(), entry.generation))) {
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(entry.user);
+    }
+
+    /**
+     * 当前失效序号，在校验Token和加载用户之前取得，写入时传给 put
+     */
+    public long currentGeneration() {
+        return sequence.get();
+    }
+
+    /**
+     * 缓存认证结果，加载期间该用户已被失效时不写入
+     *
+     * @param token JWT Token
+     * @param user 认证通过的用户
+     * @param tokenExpiration Token过期时间
+     * @param generation 加载前通过 currentGeneration 取得的序号
+     */
+    public void put(String token, SysUser user, Date tokenExpiration, long generation) {
+        if (invalidatedSince(user.getId(), generation)) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + TTL_MILLIS;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        entries.put(digest(token), new Entry(copy(user), expiresAt, generation));
+    }
+
+    /**
+     * 失效用户的所有认证缓存（本节点立即失效，其他节点通过发布订阅失效）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        removeUser(userId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("发布认证缓存失效通知失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            removeUser(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无效的认证缓存失效通知: {}", body);
+        }
+    }
+
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("size", entries.size());
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void removeUser(Long userId) {
+        // 先记录失效序号，再清理已有条目：之后完成的加载和命中都会看到这次失效
+        invalidatedAt.put(userId, sequence.incrementAndGet());
+        entries.removeIf(entry -> userId.equals(entry.user.getId()));
+        invalidations.increment();
+    }
+
+    /**
+     * 用户是否在序号 generation 之后被失效过
+     */
+    private boolean invalidatedSince(Long userId, long generation) {
+        Long invalidated = userId != null ? invalidatedAt.get(userId) : null;
+        return invalidated != null && invalidated > generation;
+    }
+
+    /**
+     * 缓存键使用Token的SHA-256摘要，内存中不保留原始Token
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 返回副本，避免请求内修改用户对象影响缓存
+     */
+    private static SysUser copy(SysUser source) {
+        SysUser target = new SysUser();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+
+    private static final class Entry {
+        private final SysUser user;
+        private final long expiresAt;
+        private final long generation;
+
+        private Entry(SysUser user, long expiresAt, long generation) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+            this.generation = generation;
+        }
+    }
+}
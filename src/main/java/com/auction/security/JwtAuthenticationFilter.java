@@ -2,6 +2,7 @@ package com.auction.security;
 
 import com.auction.service.SysUserService;
 import com.auction.entity.SysUser;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -36,6 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private SysUserService userService;
 
+    @Autowired
+    private JwtAuthenticationCache authenticationCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                   HttpServletResponse response, 
@@ -56,37 +60,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             
             if (StringUtils.hasText(jwt)) {
-                if (tokenProvider.validateToken(jwt)) {
-                    // Token有效，进行认证
-                    String username = tokenProvider.getUsernameFromToken(jwt);
-                    
-                    // 加载用户详情
-                    SysUser user = userService.getByUsername(username);
+                // 先查认证缓存，命中时无需校验签名和查询用户
+                SysUser user = authenticationCache.get(jwt);
+                if (user == null) {
+                    // 加载前取得失效序号，加载期间用户退出登录或被禁用时不写入缓存
+                    long generation = authenticationCache.currentGeneration();
+                    Claims claims = tokenProvider.getValidClaims(jwt);
+                    if (claims == null) {
+                        // Token无效或过期，清理Cookie
+                        log.debug("Token无效或过期，清理Cookie");
+                        clearTokenCookie(response);
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
+
+                    // Token有效，加载用户详情
+                    String username = claims.getSubject();
+                    user = userService.getByUsername(username);
                     if (user == null) {
                         log.warn("用户不存在: {}", username);
                         // 清理无效token的Cookie
                         clearTokenCookie(response);
                         return;
                     }
-                    
-                    // 创建UserDetails对象
-                    UserDetails userDetails = new CustomUserDetailsService.CustomUserPrincipal(user);
-                    
-                    // 创建认证对象
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // 设置到Security上下文
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    log.debug("Set Authentication to security context for '{}', uri: {}", 
-                        username, request.getRequestURI());
-                } else {
-                    // Token无效或过期，清理Cookie
-                    log.debug("Token无效或过期，清理Cookie");
-                    clearTokenCookie(response);
+                    authenticationCache.put(jwt, user, claims.getExpiration(), generation);
                 }
+                
+                // 创建UserDetails对象
+                UserDetails userDetails = new CustomUserDetailsService.CustomUserPrincipal(user);
+                
+                // 创建认证对象
+                UsernamePasswordAuthenticationToken authentication = 
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                
+                // 设置到Security上下文
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                
+                log.debug("Set Authentication to security context for '{}', uri: {}", 
+                    user.getUsername(), request.getRequestURI());
             }
         } catch (Exception ex) {
             log.error("无法在安全上下文中设置用户认证", ex);
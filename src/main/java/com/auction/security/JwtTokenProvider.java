@@ -229,12 +229,22 @@ public class JwtTokenProvider {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
+        return getValidClaims(token) != null;
+    }
+
+    /**
+     * 验证Token并返回声明（一次解析同时完成校验和取值）
+     * 
+     * @param token JWT Token
+     * @return Token声明，无效或过期时返回null
+     */
+    public Claims getValidClaims(String token) {
         try {
-            Jwts.parserBuilder()
+            return Jwts.parserBuilder()
                     .setSigningKey(getSigningKey())
                     .build()
-                    .parseClaimsJws(token);
-            return true;
+                    .parseClaimsJws(token)
+                    .getBody();
         } catch (MalformedJwtException ex) {
             log.error("无效的JWT令牌: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -247,7 +257,7 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             log.error("JWT令牌验证失败", ex);
         }
-        return false;
+        return null;
     }
 
     /**
@@ -0,0 +1,149 @@
+package com.auction.service;
+
+import com.auction.entity.AuctionBid;
+import com.auction.mapper.AuctionBidArchiveMapper;
+import com.auction.mapper.AuctionBidMapper;
+import com.auction.util.ConfigHandle;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 出价归档服务
+ * - 结束（或取消）超过保留天数的拍卖会，整场出价从 auction_bid 迁入压缩的 auction_bid_archive，热表只保留近期活动
+ * - 每场拍卖会在一个事务内复制并删除，同一场的出价要么全在热表、要么全在归档表
+ * - 拍品出价记录先查热表，热表没有时查归档表，历史查询不受归档影响；后台出价总数同时统计归档表
+ * - 结算、最高出价、用户最高出价、出价校验等只读热表：归档只针对结束超过保留天数的拍卖会，
+ *   这些拍卖会早已结算，不再有出价和结算读取；拍品重新上拍时新场次的出价在热表，
+ *   这些读取也不能回退到归档表（否则会读到旧场次的出价）
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class AuctionBidArchiveService {
+
+    public static final String CONFIG_RETENTION_DAYS = "auction.bid.archive_retention_days";
+    private static final int DEFAULT_RETENTION_DAYS = 90;
+
+    /** 每次任务最多归档的拍卖会数 */
+    private static final int SESSIONS_PER_RUN = 100;
+
+    @Autowired
+    private AuctionBidMapper auctionBidMapper;
+
+    @Autowired
+    private AuctionBidArchiveMapper auctionBidArchiveMapper;
+
+    @Autowired
+    private SysConfigService sysConfigService;
+
+    private ConfigHandle<Integer> retentionDaysHandle;
+
+    @PostConstruct
+    public void initConfigHandles() {
+        retentionDaysHandle = sysConfigService.getIntHandle(CONFIG_RETENTION_DAYS, DEFAULT_RETENTION_DAYS);
+    }
+
+    /**
+     * 查询本次需要归档的拍卖会
+     *
+     * @return 拍卖会ID列表，保留天数配置小于1时不归档
+     */
+    public List<Long> findArchivableSessions() {
+        int retentionDays = retentionDaysHandle.get();
+        if (retentionDays < 1) {
+            return Collections.emptyList();
+        }
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        return auctionBidArchiveMapper.selectArchivableSessionIds(before, SESSIONS_PER_RUN);
+    }
+
+    /**
+     * 归档一场拍卖会的全部出价
+     *
+     * @param sessionId 拍卖会ID
+     * @return 归档条数
+     */
+    @Transactional
+    @WorkloadPool(Workload.BATCH)
+    public int archiveSession(Long sessionId) {
+        try {
+            int copied = auctionBidArchiveMapper.copySessionBids(sessionId);
+            int deleted = auctionBidArchiveMapper.deleteArchivedSessionBids(sessionId);
+            if (copied != deleted) {
+                throw new IllegalStateException("复制" + copied + "条，删除" + deleted + "条");
+            }
+            log.info("归档拍卖会出价完成: sessionId={}, 条数={}", sessionId, copied);
+            return copied;
+        } catch (Exception e) {
+            log.error("归档拍卖会出价失败: sessionId={}, 错误: {}", sessionId, e.getMessage(), e);
+            throw new RuntimeException("归档拍卖会出价失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 键集分页查询拍品有效出价：先查热表，热表没有时查归档表
+     * 只读事务，配置从库时从从库读取
+     *
+     * @param sessionId 拍卖会ID，为空时不限拍卖会
+     * @param itemId 拍品ID
+     * @param cursorTime 上一页最后一条的出价时间，为空时从最新开始
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
+     * @return 出价记录列表（按出价时间倒序）
+     */
+    @Transactional(readOnly = true)
+    public List<AuctionBid> selectItemBidPage(Long sessionId, Long itemId,
+                                              LocalDateTime cursorTime, Long cursorId, int limit) {
+        return readItemBidPage(sessionId, itemId, cursorTime, cursorId, limit);
+    }
+
+    /**
+     * 查询拍品最近的有效出价（主库）
+     * 最近出价缓冲的种子必须包含所有已提交的出价，不能读可能有延迟的从库
+     *
+     * @param sessionId 拍卖会ID
+     * @param itemId 拍品ID
+     * @param limit 查询条数
+     * @return 出价记录列表（按出价时间倒序）
+     */
+    public List<AuctionBid> selectLatestItemBids(Long sessionId, Long itemId, int limit) {
+        return readItemBidPage(sessionId, itemId, null, null, limit);
+    }
+
+    // ==================== 内部方法 ====================
+
+    private List<AuctionBid> readItemBidPage(Long sessionId, Long itemId,
+                                             LocalDateTime cursorTime, Long cursorId, int limit) {
+        List<AuctionBid> bids = auctionBidMapper.selectItemBidPage(sessionId, itemId, cursorTime, cursorId, limit);
+        if (sessionId != null) {
+            // 同一场的出价整体归档，热表有数据时不会在归档表
+            return !bids.isEmpty() ? bids
+                    : auctionBidArchiveMapper.selectItemBidPage(sessionId, itemId, cursorTime, cursorId, limit);
+        }
+        if (bids.size() >= limit) {
+            return bids;
+        }
+        // 不限拍卖会时拍品可能跨场：热表不足一页，从最后一条之后继续查归档表补齐
+        List<AuctionBid> merged = new ArrayList<>(bids);
+        if (!bids.isEmpty()) {
+            AuctionBid last = bids.get(bids.size() - 1);
+            cursorTime = last.getBidTime();
+            cursorId = last.getId();
+        }
+        merged.addAll(auctionBidArchiveMapper.selectItemBidPage(null, itemId, cursorTime, cursorId, limit - bids.size()));
+        return merged;
+    }
+}
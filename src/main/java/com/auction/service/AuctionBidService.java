@@ -1,5 +1,6 @@
 package com.auction.service;
 
+import com.auction.dto.BidHistoryEntry;
 import com.auction.entity.AuctionBid;
 import com.auction.entity.AuctionItem;
 import com.auction.entity.AuctionSession;
@@ -9,17 +10,26 @@ import com.auction.mapper.AuctionSessionMapper;
 import com.auction.service.RedisService;
 import com.auction.service.UserDepositAccountService;
 import com.auction.entity.UserDepositAccount;
+import com.auction.util.KeysetCursor;
+import com.auction.util.MoneyUtils;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * ========================================
@@ -74,6 +84,21 @@ public class AuctionBidService {
     @Autowired
     private BidIncrementService bidIncrementService;  // 加价阶梯服务
 
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;  // 拍卖会直播缓存
+
+    @Autowired
+    private UserLockService userLockService;  // 用户资金操作锁
+
+    @Autowired
+    private SysUserService sysUserService;  // 用户服务，批量查询出价人展示名
+
+    @Autowired
+    private RecentBidService recentBidService;  // 拍品最近出价缓冲
+
+    @Autowired
+    private AuctionBidArchiveService auctionBidArchiveService;  // 出价归档（热表+归档表读取）
+
 
     /**
      * 出价（核心方法）
@@ -106,34 +131,36 @@ public class AuctionBidService {
      * @throws RuntimeException 出价失败时抛出异常
      */
     @Transactional  // 事务注解：确保所有操作原子性
+    @WorkloadPool(Workload.BID)  // 出价池，不受用户端浏览和后台任务影响
     public Long placeBid(AuctionBid bid) {
         try {
-            // 验证出价（包含差额冻结所需校验）
-            validateBid(bid);
+            // 同一用户的出价串行执行：差额冻结依赖该用户的历史最高出价，锁在事务结束后释放
+            userLockService.lockForTransaction(bid.getUserId());
+
+            // 验证出价（包含差额冻结所需校验），金额在出价引擎内部按分计算
+            BidQuote quote = validateBid(bid);
 
-            // 设置出价时间
-            bid.setBidTime(LocalDateTime.now());
+            // 设置出价时间：截断到秒，与 bid_time（datetime）存储值一致，最近出价和翻页游标按同一精度比较
+            bid.setBidTime(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
             bid.setStatus(0); // 有效
             bid.setCreateTime(LocalDateTime.now());
             bid.setUpdateTime(LocalDateTime.now());
             bid.setDeleted(0); // 未删除
 
-            // 在插入出价记录之前，先计算历史最高出价（避免包含当前出价）
-            BigDecimal oldRequiredDeposit = calculateHistoricalDepositRequirement(bid);
-
             // 插入出价记录
             auctionBidMapper.insert(bid);
+            afterCommit(() -> recentBidService.onBidAccepted(bid));
 
             // 更新拍品当前价格
             updateItemCurrentPrice(bid);
 
             // 冻结保证金：按会场比例，仅冻结相较于该用户历史最高有效出价的差额
-            freezeDepositAmount(bid, oldRequiredDeposit);
+            freezeDepositAmount(bid, quote);
 
             // 延时拍卖：在结束前阈值内出价则顺延结束时间
             try {
-                AuctionSession session = auctionSessionMapper.selectById(bid.getSessionId());
-                if (session != null && session.getAntiSnipingEnabled() != null && session.getAntiSnipingEnabled() == 1) {
+                AuctionSession session = quote.session;
+                if (session.getAntiSnipingEnabled() != null && session.getAntiSnipingEnabled() == 1) {
                     java.time.LocalDateTime now = java.time.LocalDateTime.now();
                     java.time.Duration toEnd = java.time.Duration.between(now, session.getEndTime());
                     int threshold = session.getExtendThresholdSec() != null ? session.getExtendThresholdSec() : 60;
@@ -148,6 +175,7 @@ public class AuctionBidService {
                             session.setEndTime(session.getEndTime().plusSeconds(extendSec));
                             session.setUpdateTime(java.time.LocalDateTime.now());
                             auctionSessionMapper.updateById(session);
+                            afterCommit(() -> auctionLiveCacheService.updateEndTime(session.getId(), session.getEndTime()));
                         }
                     }
                 }
@@ -204,6 +232,65 @@ public class AuctionBidService {
         }
     }
 
+    /**
+     * 分页查询拍品出价记录（用户端展示）
+     * 
+     * 功能说明：
+     * 按 (出价时间, ID) 倒序键集分页，每页一次查询；出价人展示名按页批量查询一次
+     * 
+     * @param sessionId 拍卖会ID
+     * @param itemId 拍品ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回最新一页
+     * @param size 每页数量（1-100）
+     * @return data-出价记录，nextCursor-下一页游标，hasMore-是否还有更早的出价
+     */
+    public Map<String, Object> getItemBidHistory(Long sessionId, Long itemId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, 100));
+
+        // 第一页优先从最近出价缓冲读取，不访问数据库
+        if (cursor == null || cursor.isEmpty()) {
+            RecentBidService.RecentBids recent = recentBidService.getLatest(sessionId, itemId, pageSize);
+            if (recent != null) {
+                return toHistoryPage(recent.getEntries(), recent.isHasMore());
+            }
+        }
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        // 多取一条判断是否还有下一页（已归档的拍卖会从归档表读取）
+        List<AuctionBid> bids = auctionBidArchiveService.selectItemBidPage(sessionId, itemId,
+                position != null ? position.getTime() : null,
+                position != null ? position.getId() : null,
+                pageSize + 1);
+        boolean hasMore = bids.size() > pageSize;
+        if (hasMore) {
+            bids = bids.subList(0, pageSize);
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        for (AuctionBid bid : bids) {
+            userIds.add(bid.getUserId());
+        }
+        Map<Long, String> names = sysUserService.getDisplayNames(userIds);
+
+        List<BidHistoryEntry> entries = new ArrayList<>(bids.size());
+        for (AuctionBid bid : bids) {
+            entries.add(toHistoryEntry(bid, names.getOrDefault(bid.getUserId(), "未知用户")));
+        }
+        return toHistoryPage(entries, hasMore);
+    }
+
+    private static Map<String, Object> toHistoryPage(List<BidHistoryEntry> entries, boolean hasMore) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("data", entries);
+        result.put("hasMore", hasMore && !entries.isEmpty());
+        if (hasMore && !entries.isEmpty()) {
+            BidHistoryEntry last = entries.get(entries.size() - 1);
+            result.put("nextCursor", KeysetCursor.encode(last.getBidTime(), last.getId()));
+        }
+        return result;
+    }
+
     /**
      * 获取拍品最高出价
      * 
@@ -228,6 +315,7 @@ public class AuctionBidService {
      * 
      * 功能说明：
      * 对出价进行全面验证，确保符合所有规则
+     * 金额统一换算为分（long）比较，避免每次出价产生大量BigDecimal中间对象
      * 
      * 验证项目：
      * 1. 拍品是否存在
@@ -238,9 +326,10 @@ public class AuctionBidService {
      * 6. 用户保证金是否充足（差额冻结策略）
      * 
      * @param bid 要验证的出价对象
+     * @return 校验结果，包含会场信息和新旧保证金需求（出价前计算，不包含当前出价）
      * @throws RuntimeException 验证不通过时抛出异常，包含具体错误信息
      */
-    private void validateBid(AuctionBid bid) {
+    private BidQuote validateBid(AuctionBid bid) {
         // 获取拍品信息
         AuctionItem item = auctionItemMapper.selectById(bid.getItemId());
         if (item == null) {
@@ -253,81 +342,45 @@ public class AuctionBidService {
         }
 
         // 检查出价金额
-        if (bid.getBidAmountYuan().compareTo(item.getCurrentPrice()) <= 0) {
+        long bidFen = MoneyUtils.toFen(bid.getBidAmountYuan());
+        long currentFen = MoneyUtils.toFen(item.getCurrentPrice());
+        if (bidFen <= currentFen) {
             throw new RuntimeException("出价必须高于当前价格");
         }
 
-        // 获取拍卖会信息进行加价阶梯校验
-        AuctionSession auctionSession = auctionSessionMapper.selectById(bid.getSessionId());
-        if (auctionSession != null && auctionSession.getBidIncrementConfigId() != null) {
-            boolean isValidBid = bidIncrementService.validateBidAmount(
-                item.getCurrentPrice(),
-                bid.getBidAmountYuan(),
-                auctionSession.getBidIncrementConfigId()
-            );
-
-            if (!isValidBid) {
-                throw new RuntimeException("出价不符合加价阶梯规则，请按照规定加价");
-            }
+        AuctionSession session = auctionSessionMapper.selectById(bid.getSessionId());
+        if (session == null) {
+            throw new RuntimeException("拍卖会不存在");
+        }
+
+        // 加价阶梯校验
+        if (session.getBidIncrementConfigId() != null
+                && !bidIncrementService.validateBidAmount(currentFen, bidFen, session.getBidIncrementConfigId())) {
+            throw new RuntimeException("出价不符合加价阶梯规则，请按照规定加价");
         }
 
         // 检查起拍价
-        if (bid.getBidAmountYuan().compareTo(item.getStartingPrice()) < 0) {
+        if (bidFen < MoneyUtils.toFen(item.getStartingPrice())) {
             throw new RuntimeException("出价不能低于起拍价");
         }
 
         // 检查保留价
         // 保留价仅用于结果判定，不在出价环节校验
-        // if (item.getReservePrice() != null &&
-        //     bid.getBidAmountYuan().compareTo(item.getReservePrice()) < 0) {
-        //     throw new RuntimeException("出价不能低于保留价");
-        // }
 
-        // 校验保证金充足（基于会场保证金比例）
-        AuctionSession session = auctionSessionMapper.selectById(bid.getSessionId());
-        if (session == null) {
-            throw new RuntimeException("拍卖会不存在");
-        }
-        java.math.BigDecimal ratio = session.getDepositRatio() != null ? session.getDepositRatio() : new java.math.BigDecimal("0.10");
-        // 差额校验：只校验新增冻结部分所需（向上取整到元）
-        BigDecimal newRequiredDeposit = bid.getBidAmountYuan().multiply(ratio)
-                .setScale(0, java.math.RoundingMode.CEILING);
-
-        BigDecimal oldRequiredDeposit = BigDecimal.ZERO;
-        try {
-            AuctionBid query = new AuctionBid();
-            query.setItemId(bid.getItemId());
-            query.setSessionId(bid.getSessionId());
-            query.setUserId(bid.getUserId());
-            query.setStatus(0);
-            List<AuctionBid> userBids = auctionBidMapper.selectList(query);
-            BigDecimal maxBidAmount = BigDecimal.ZERO;
-            if (userBids != null) {
-                for (AuctionBid b : userBids) {
-                    if (b.getBidAmountYuan() != null && b.getBidAmountYuan().compareTo(maxBidAmount) > 0) {
-                        maxBidAmount = b.getBidAmountYuan();
-                    }
-                }
-            }
-            if (maxBidAmount.compareTo(BigDecimal.ZERO) > 0) {
-                oldRequiredDeposit = maxBidAmount.multiply(ratio)
-                        .setScale(0, java.math.RoundingMode.CEILING);
-            }
-        } catch (Exception ignore) {}
-
-        BigDecimal deltaFreeze = newRequiredDeposit.subtract(oldRequiredDeposit);
-        if (deltaFreeze.compareTo(BigDecimal.ZERO) < 0) {
-            deltaFreeze = BigDecimal.ZERO;
-        }
+        // 校验保证金充足（基于会场保证金比例，向上取整到元）
+        long ratioBasisPoints = MoneyUtils.toRatioBasisPoints(session.getDepositRatio());
+        long newRequiredFen = MoneyUtils.requiredDepositFen(bidFen, ratioBasisPoints);
+        long oldRequiredFen = calculateHistoricalDepositRequirement(bid, ratioBasisPoints);
+        BidQuote quote = new BidQuote(session, newRequiredFen, oldRequiredFen);
 
         UserDepositAccount account = depositAccountService.getAccountByUserId(bid.getUserId());
         if (account == null) {
             throw new RuntimeException("保证金账户不存在，请先充值");
         }
-        BigDecimal available = account.getAvailableAmount();
-        if (available.compareTo(deltaFreeze) < 0) {
-            throw new RuntimeException("可用保证金不足，需新增：" + deltaFreeze + " 元");
+        if (MoneyUtils.toFen(account.getAvailableAmount()) < quote.deltaFreezeFen()) {
+            throw new RuntimeException("可用保证金不足，需新增：" + MoneyUtils.toWholeYuan(quote.deltaFreezeFen()) + " 元");
         }
+        return quote;
     }
 
     /**
@@ -341,57 +394,23 @@ public class AuctionBidService {
      * 计算公式：
      * 历史最高出价 × 拍卖会保证金比例（向上取整到元）
      * 
-     * 示例：
-     * - 用户历史最高出价：1000元
-     * - 保证金比例：10%
-     * - 所需保证金：100元
-     * 
-     * @param bid 当前出价对象
-     * @return 历史最高出价所需保证金（元），如果无历史出价返回0
+     * @param bid 当前出价对象（尚未插入）
+     * @param ratioBasisPoints 保证金比例（万分比）
+     * @return 历史最高出价所需保证金（分），如果无历史出价返回0
      */
-    private BigDecimal calculateHistoricalDepositRequirement(AuctionBid bid) {
+    private long calculateHistoricalDepositRequirement(AuctionBid bid, long ratioBasisPoints) {
         try {
-            AuctionSession session = auctionSessionMapper.selectById(bid.getSessionId());
-            if (session == null) {
-                log.warn("拍卖会不存在: sessionId={}", bid.getSessionId());
-                return BigDecimal.ZERO;
-            }
-            
-            java.math.BigDecimal ratio = session.getDepositRatio() != null ? 
-                session.getDepositRatio() : new java.math.BigDecimal("0.10");
-            
-            // 查询该用户在该拍品（同一会场）下的历史最高有效出价（不包含当前出价）
-            AuctionBid query = new AuctionBid();
-            query.setItemId(bid.getItemId());
-            query.setSessionId(bid.getSessionId());
-            query.setUserId(bid.getUserId());
-            query.setStatus(0);
-            List<AuctionBid> userBids = auctionBidMapper.selectList(query);
-            
-            BigDecimal maxBidAmount = BigDecimal.ZERO;
-            if (userBids != null) {
-                for (AuctionBid b : userBids) {
-                    if (b.getBidAmountYuan() != null && b.getBidAmountYuan().compareTo(maxBidAmount) > 0) {
-                        maxBidAmount = b.getBidAmountYuan();
-                    }
-                }
+            BigDecimal maxBidAmount = auctionBidMapper.selectUserMaxBidAmount(
+                bid.getItemId(), bid.getSessionId(), bid.getUserId());
+            if (maxBidAmount == null) {
+                return 0L;
             }
-            
-            if (maxBidAmount.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal oldRequiredDeposit = maxBidAmount.multiply(ratio)
-                        .setScale(0, java.math.RoundingMode.CEILING);
-                
-                log.debug("历史最高出价: {}元, 所需保证金: {}元", maxBidAmount, oldRequiredDeposit);
-                return oldRequiredDeposit;
-            }
-            
-            log.debug("用户无历史出价记录");
-            return BigDecimal.ZERO;
-            
+            return MoneyUtils.requiredDepositFen(MoneyUtils.toFen(maxBidAmount), ratioBasisPoints);
+
         } catch (Exception e) {
             log.error("计算历史保证金需求失败: userId={}, itemId={}, sessionId={}, error={}", 
                 bid.getUserId(), bid.getItemId(), bid.getSessionId(), e.getMessage(), e);
-            return BigDecimal.ZERO; // 出错时返回0，确保不会过度冻结
+            return 0L; // 出错时返回0，确保不会过度冻结
         }
     }
 
@@ -399,10 +418,7 @@ public class AuctionBidService {
      * 冻结保证金金额（差额冻结策略）
      * 
      * 功能说明：
-     * 1. 计算当前出价所需的总保证金
-     * 2. 计算与历史最高出价的保证金差额
-     * 3. 只冻结差额部分（新增部分）
-     * 4. 调用保证金账户服务执行冻结操作
+     * 只冻结当前出价与历史最高出价所需保证金的差额（新增部分）
      * 
      * 计算示例：
      * - 用户历史最高出价1000元，所需保证金100元（已冻结）
@@ -411,62 +427,26 @@ public class AuctionBidService {
      * 
      * 安全保障：
      * - 差额为负数时自动设为0，避免错误解冻
-     * - 再次验证可用余额是否充足
+     * - 可用余额由冻结时的数据库条件更新再次校验
      * - 记录详细的冻结日志用于审计
      * 
      * @param bid 出价记录对象
-     * @param oldRequiredDeposit 历史最高出价所需保证金（元）
+     * @param quote 出价校验结果
      * @throws RuntimeException 冻结失败时抛出异常
      */
-    private void freezeDepositAmount(AuctionBid bid, BigDecimal oldRequiredDeposit) {
+    private void freezeDepositAmount(AuctionBid bid, BidQuote quote) {
         try {
-            AuctionSession session = auctionSessionMapper.selectById(bid.getSessionId());
-            if (session == null) {
-                log.error("拍卖会不存在，无法冻结保证金: sessionId={}", bid.getSessionId());
-                throw new RuntimeException("拍卖会不存在");
-            }
-            
-            java.math.BigDecimal ratio = session.getDepositRatio() != null ? 
-                session.getDepositRatio() : new java.math.BigDecimal("0.10");
-            
-            // 新出价所需保证金（元，向上取整）
-            BigDecimal newRequiredDeposit = bid.getBidAmountYuan().multiply(ratio)
-                    .setScale(0, java.math.RoundingMode.CEILING);
+            long deltaFreezeFen = quote.deltaFreezeFen();
 
-            BigDecimal deltaFreeze = newRequiredDeposit.subtract(oldRequiredDeposit);
-            if (deltaFreeze.compareTo(BigDecimal.ZERO) < 0) {
-                deltaFreeze = BigDecimal.ZERO;
-            }
-            
             // 记录详细的冻结信息
             log.info("保证金冻结计算: 用户ID={}, 拍品ID={}, 出价={}元, 新需保证金={}元, 历史需保证金={}元, 差额冻结={}元", 
-                bid.getUserId(), bid.getItemId(), bid.getBidAmountYuan(), newRequiredDeposit, oldRequiredDeposit, deltaFreeze);
-            
-            // 冻结金额（元）
-            BigDecimal freezeAmount = deltaFreeze;
-
-            // 安全检查：如果差额为0但新出价大于历史最高出价，因为计算目前计算保证才用向上取整，如果相邻两次加价价格较近则会出现这种情况
-            if (deltaFreeze.compareTo(BigDecimal.ZERO) == 0 && newRequiredDeposit.compareTo(oldRequiredDeposit) > 0) {
-                log.error("保证金计算标点: 新出价大于历史最高出价但差额为0, userId={}, itemId={}, newRequired={}, oldRequired={}",
-                    bid.getUserId(), bid.getItemId(), newRequiredDeposit, oldRequiredDeposit);
-                //throw new RuntimeException("保证金计算异常，请检查历史出价记录");
-            }
+                bid.getUserId(), bid.getItemId(), bid.getBidAmountYuan(),
+                MoneyUtils.toWholeYuan(quote.newRequiredFen), MoneyUtils.toWholeYuan(quote.oldRequiredFen),
+                MoneyUtils.toWholeYuan(deltaFreezeFen));
 
-            UserDepositAccount account = depositAccountService.getAccountByUserId(bid.getUserId());
-            if (account == null) {
-                log.error("用户保证金账户不存在: userId={}", bid.getUserId());
-                throw new RuntimeException("保证金账户不存在");
-            }
-            
-            if (deltaFreeze.compareTo(BigDecimal.ZERO) > 0) {
-                
-                // 再次验证可用余额
-                if (account.getAvailableAmount().compareTo(freezeAmount) < 0) {
-                    log.error("可用保证金不足: userId={}, 需要={}, 可用={}", 
-                        bid.getUserId(), freezeAmount, account.getAvailableAmount());
-                    throw new RuntimeException("可用保证金不足，需新增：" + freezeAmount + " 元");
-                }
-                
+            if (deltaFreezeFen > 0) {
+                // 冻结金额（元）只在调用账户服务时换算
+                BigDecimal freezeAmount = MoneyUtils.toWholeYuan(deltaFreezeFen);
                 boolean success = depositAccountService.freezeAmount(
                     bid.getUserId(), freezeAmount, bid.getItemId(), "item", "出价冻结保证金");
                 
@@ -477,8 +457,7 @@ public class AuctionBidService {
                 log.info("保证金冻结成功: 用户ID={}, 金额={}元, 拍品ID={}", 
                     bid.getUserId(), freezeAmount, bid.getItemId());
             } else {
-                log.info("无需冻结保证金: 用户ID={}, 出价ID={}, 差额={}元", 
-                    bid.getUserId(), bid.getId(), deltaFreeze);
+                log.info("无需冻结保证金: 用户ID={}, 出价ID={}", bid.getUserId(), bid.getId());
             }
             
         } catch (Exception e) {
@@ -505,9 +484,66 @@ public class AuctionBidService {
             item.setUpdateTime(LocalDateTime.now());
             
             auctionItemMapper.updateById(item);
+
+            // 事务提交后同步直播缓存中的当前价
+            afterCommit(() -> auctionLiveCacheService.updateCurrentPrice(
+                bid.getSessionId(), bid.getItemId(), bid.getBidAmountYuan()));
         } catch (Exception e) {
             log.error("更新拍品当前价格失败: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * 出价记录转为历史列表条目（出价人显示为展示名）
+     */
+    private static BidHistoryEntry toHistoryEntry(AuctionBid bid, String displayName) {
+        BidHistoryEntry entry = new BidHistoryEntry();
+        entry.setId(bid.getId());
+        entry.setBidAmountYuan(bid.getBidAmountYuan());
+        entry.setBidTime(bid.getBidTime());
+        entry.setUsername(displayName);
+        entry.setSource(bid.getSource());
+        entry.setIsAuto(bid.getIsAuto());
+        return entry;
+    }
+
+    /**
+     * 在当前事务提交后执行（无事务时立即执行）
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 出价校验结果（金额单位：分，整元）
+     */
+    private static final class BidQuote {
+        /** 出价所在拍卖会 */
+        private final AuctionSession session;
+        /** 本次出价所需保证金 */
+        private final long newRequiredFen;
+        /** 历史最高出价所需保证金（已冻结部分） */
+        private final long oldRequiredFen;
+
+        private BidQuote(AuctionSession session, long newRequiredFen, long oldRequiredFen) {
+            this.session = session;
+            this.newRequiredFen = newRequiredFen;
+            this.oldRequiredFen = oldRequiredFen;
+        }
+
+        /** 需要新增冻结的差额，不为负 */
+        private long deltaFreezeFen() {
+            return Math.max(newRequiredFen - oldRequiredFen, 0L);
+        }
+    }
+
 }
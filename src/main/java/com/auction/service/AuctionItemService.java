@@ -1,7 +1,9 @@
 package com.auction.service;
 
 import com.auction.entity.AuctionItem;
+import com.auction.entity.AuctionSession;
 import com.auction.mapper.AuctionItemMapper;
+import com.auction.mapper.AuctionSessionMapper;
 import com.auction.service.MinioService;
 import com.auction.service.SysConfigService;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -67,6 +69,15 @@ public class AuctionItemService {
     @Autowired
     private CommonImageService commonImageService;  // 通用图片服务
 
+    @Autowired
+    private AuctionSessionMapper auctionSessionMapper;  // 拍卖会数据访问对象，用于查找拍品所在的拍卖会
+
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;  // 拍卖会直播缓存（含拍品列表）
+
+    @Autowired
+    private SessionDetailSnapshotCache sessionDetailSnapshotCache;  // 已结束拍卖会详情快照
+
     /**
      * 创建拍品
      * 
@@ -149,6 +160,7 @@ public class AuctionItemService {
 
             // 更新数据库
             int result = auctionItemMapper.update(item);
+            evictSessionCaches(item.getId());
             
             if (result > 0) {
                 log.info("拍品更新成功: ID={}, 名称={}", item.getId(), item.getItemName());
@@ -195,6 +207,7 @@ public class AuctionItemService {
 
             // 更新数据库
             int result = auctionItemMapper.update(item);
+            evictSessionCaches(item.getId());
             
             if (result > 0) {
                 log.info("拍品更新成功: ID={}, 名称={}", item.getId(), item.getItemName());
@@ -246,6 +259,7 @@ public class AuctionItemService {
      * @param item 查询条件对象，非空字段作为查询条件
      * @return 拍品列表，如果查询失败返回空列表
      */
+    @Transactional(readOnly = true)
     public List<AuctionItem> getItemList(AuctionItem item) {
         try {
             List<AuctionItem> items = auctionItemMapper.selectList(item);
@@ -286,6 +300,9 @@ public class AuctionItemService {
             // 删除图片文件
             deleteItemImages(item);
 
+            // 先清除所在拍卖会的缓存（删除后关联关系可能查不到）
+            evictSessionCaches(id);
+
             // 删除数据库记录
             int result = auctionItemMapper.deleteById(id);
             
@@ -320,6 +337,7 @@ public class AuctionItemService {
             item.setUpdateTime(LocalDateTime.now());
 
             int result = auctionItemMapper.update(item);
+            evictSessionCaches(id);
             
             if (result > 0) {
                 log.info("拍品状态更新成功: ID={}, 状态={}", id, status);
@@ -407,6 +425,7 @@ public class AuctionItemService {
 
             // 更新数据库
             int result = auctionItemMapper.update(existingItem);
+            evictSessionCaches(id);
             
             if (result > 0) {
                 log.info("拍品更新成功: ID={}, 名称={}", id, itemName);
@@ -529,4 +548,23 @@ public class AuctionItemService {
         }
         return null;
     }
+
+    /**
+     * 拍品变更后清除所在拍卖会的拍品列表缓存和详情快照（事务提交后执行）
+     * 
+     * @param itemId 拍品ID
+     */
+    private void evictSessionCaches(Long itemId) {
+        if (itemId == null) {
+            return;
+        }
+        try {
+            for (AuctionSession session : auctionSessionMapper.selectSessionsByItemId(itemId)) {
+                auctionLiveCacheService.evictAfterCommit(session.getId());
+                sessionDetailSnapshotCache.invalidateAfterCommit(session.getId());
+            }
+        } catch (Exception e) {
+            log.warn("清除拍品所在拍卖会缓存失败: itemId={}, 错误: {}", itemId, e.getMessage());
+        }
+    }
 }
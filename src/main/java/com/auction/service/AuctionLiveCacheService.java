@@ -0,0 +1,378 @@
+package com.auction.service;
+
+import com.auction.entity.AuctionItem;
+import com.auction.entity.AuctionSession;
+import com.auction.entity.BidIncrementConfig;
+import com.auction.entity.BidIncrementRule;
+import com.auction.mapper.AuctionItemMapper;
+import com.auction.mapper.AuctionSessionMapper;
+import com.auction.util.ConfigHandle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拍卖会直播缓存服务
+ * - 在拍卖会开始前若干分钟（系统配置 auction.session.warmup_minutes）预热会场、拍品、加价阶梯和当前价
+ * - 会场快照保存在Redis中供所有节点共享，本地再保留数秒，开场瞬间的读请求只访问内存
+ * - 当前价按拍品保存在Redis Hash中，出价事务提交后更新
+ * - 拍卖会结束、修改或删除时清除，之后的读取回到数据库
+ */
+@Slf4j
+@Service
+public class AuctionLiveCacheService {
+
+    private static final String SESSION_KEY_PREFIX = "auction:live:session:";
+    private static final String ITEMS_KEY_PREFIX = "auction:live:items:";
+    private static final String PRICE_KEY_PREFIX = "auction:live:price:";
+
+    /** 预热提前分钟数配置键 */
+    public static final String CONFIG_WARMUP_MINUTES = "auction.session.warmup_minutes";
+    private static final int DEFAULT_WARMUP_MINUTES = 5;
+
+    /** Redis快照过期时间（小时），进行中的会场每轮预热检查都会续期 */
+    private static final long LIVE_EXPIRE_HOURS = 6;
+
+    /** 本地副本有效期（毫秒），延时拍卖等变更最多延迟这么久在其他节点可见 */
+    private static final long LOCAL_TTL_MILLIS = 3000;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private AuctionSessionMapper auctionSessionMapper;
+
+    @Autowired
+    private AuctionItemMapper auctionItemMapper;
+
+    @Autowired
+    private BidIncrementService bidIncrementService;
+
+    @Autowired
+    private SysConfigService sysConfigService;
+
+    /** 预热提前分钟数 */
+    private ConfigHandle<Integer> warmupMinutesHandle;
+
+    /** 本地副本：拍卖会ID -> 快照 */
+    private final Map<Long, LocalEntry> localEntries = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initConfigHandles() {
+        warmupMinutesHandle = sysConfigService.getIntHandle(CONFIG_WARMUP_MINUTES, DEFAULT_WARMUP_MINUTES);
+    }
+
+    // ==================== 预热 ====================
+
+    /**
+     * 预热即将开始和进行中的拍卖会
+     * 已在Redis中的会场只续期，不重复加载
+     *
+     * @return 本次新加载的会场数
+     */
+    public int warmUpcomingSessions() {
+        int warmupMinutes = warmupMinutesHandle.get();
+        LocalDateTime deadline = LocalDateTime.now().plusMinutes(warmupMinutes);
+
+        List<AuctionSession> candidates = new ArrayList<>();
+        for (Integer status : new Integer[]{1, 2}) { // 1-待开始，2-进行中
+            AuctionSession query = new AuctionSession();
+            query.setStatus(status);
+            List<AuctionSession> sessions = auctionSessionMapper.selectList(query);
+            if (sessions != null) {
+                candidates.addAll(sessions);
+            }
+        }
+
+        int warmed = 0;
+        for (AuctionSession session : candidates) {
+            if (session.getStatus() == 1
+                    && (session.getStartTime() == null || session.getStartTime().isAfter(deadline))) {
+                continue;
+            }
+            try {
+                String sessionKey = SESSION_KEY_PREFIX + session.getId();
+                if (Boolean.TRUE.equals(redisTemplate.hasKey(sessionKey))) {
+                    touch(session.getId());
+                    // 会场可能由其他节点预热，本节点的编译阶梯仍需加载
+                    primeLadder(session.getBidIncrementConfigId());
+                    continue;
+                }
+                warmUp(session.getId());
+                warmed++;
+            } catch (Exception e) {
+                log.error("预热拍卖会失败: sessionId={}, 错误: {}", session.getId(), e.getMessage(), e);
+            }
+        }
+
+        if (warmed > 0) {
+            log.info("拍卖会预热完成: 新加载{}个会场, 提前{}分钟", warmed, warmupMinutes);
+        }
+        return warmed;
+    }
+
+    /**
+     * 从数据库加载单个拍卖会的直播快照
+     */
+    public void warmUp(Long sessionId) {
+        AuctionSession session = auctionSessionMapper.selectById(sessionId);
+        if (session == null) {
+            return;
+        }
+        // 与 AuctionSessionService.getSessionById 返回的结构保持一致
+        session.setItems(new ArrayList<>());
+        if (session.getBidIncrementConfigId() != null) {
+            BidIncrementConfig config = bidIncrementService.getConfigById(session.getBidIncrementConfigId());
+            if (config != null && config.getRules() != null) {
+                // 按区间下限排序，出价时按顺序查找适用区间
+                List<BidIncrementRule> ladder = new ArrayList<>(config.getRules());
+                ladder.sort(Comparator.comparing(BidIncrementRule::getMinAmount,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+                config.setRules(ladder);
+            }
+            session.setBidIncrementConfig(config);
+            primeLadder(session.getBidIncrementConfigId());
+        }
+
+        List<AuctionItem> items = auctionItemMapper.selectBySessionId(sessionId);
+        if (items == null) {
+            items = new ArrayList<>();
+        }
+        Map<String, Object> prices = new HashMap<>();
+        for (AuctionItem item : items) {
+            BigDecimal price = item.getCurrentPrice() != null ? item.getCurrentPrice() : item.getStartingPrice();
+            if (price != null) {
+                prices.put(String.valueOf(item.getId()), price.toPlainString());
+            }
+        }
+
+        String priceKey = PRICE_KEY_PREFIX + sessionId;
+        if (!prices.isEmpty()) {
+            redisTemplate.opsForHash().putAll(priceKey, prices);
+        }
+        redisTemplate.opsForValue().set(ITEMS_KEY_PREFIX + sessionId, items, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.opsForValue().set(SESSION_KEY_PREFIX + sessionId, session, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.expire(priceKey, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+
+        localEntries.put(sessionId, new LocalEntry(session, items));
+        log.info("拍卖会直播缓存已预热: sessionId={}, 拍品数={}", sessionId, items.size());
+    }
+
+    /**
+     * 预先编译加价阶梯，开场后的第一次出价校验不再读库编译（阶梯已缓存时不重复编译）
+     */
+    private void primeLadder(Long configId) {
+        if (configId == null) {
+            return;
+        }
+        try {
+            bidIncrementService.getLadder(configId);
+        } catch (Exception e) {
+            log.warn("预热加价阶梯失败: configId={}, 错误: {}", configId, e.getMessage());
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 获取拍卖会快照（含加价阶梯），未预热返回null
+     * 返回副本，调用方可修改状态等字段
+     */
+    public AuctionSession getSession(Long sessionId) {
+        LocalEntry entry = getEntry(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        AuctionSession copy = new AuctionSession();
+        BeanUtils.copyProperties(entry.session, copy);
+        copy.setItems(new ArrayList<>());
+        return copy;
+    }
+
+    /**
+     * 获取拍卖会拍品列表（当前价取实时快照），未预热返回null
+     */
+    public List<AuctionItem> getSessionItems(Long sessionId) {
+        LocalEntry entry = getEntry(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        Map<Long, BigDecimal> prices = getCurrentPrices(sessionId);
+        List<AuctionItem> items = new ArrayList<>(entry.items.size());
+        for (AuctionItem cached : entry.items) {
+            AuctionItem item = new AuctionItem();
+            BeanUtils.copyProperties(cached, item);
+            BigDecimal price = prices.get(item.getId());
+            if (price != null) {
+                item.setCurrentPrice(price);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * 拍品是否属于已预热（即将开始或进行中）的拍卖会，会场未预热时返回false
+     */
+    public boolean isLiveItem(Long sessionId, Long itemId) {
+        LocalEntry entry = getEntry(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        for (AuctionItem item : entry.items) {
+            if (itemId.equals(item.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取拍卖会各拍品当前价（拍品ID -> 当前价），未预热返回空Map
+     */
+    public Map<Long, BigDecimal> getCurrentPrices(Long sessionId) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        try {
+            Map<Object, Object> hash = redisTemplate.opsForHash().entries(PRICE_KEY_PREFIX + sessionId);
+            if (hash != null) {
+                for (Map.Entry<Object, Object> e : hash.entrySet()) {
+                    prices.put(Long.valueOf(e.getKey().toString()), new BigDecimal(e.getValue().toString()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取直播当前价失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+        }
+        return prices;
+    }
+
+    // ==================== 更新与清除 ====================
+
+    /**
+     * 出价成功后更新当前价（仅对已预热的会场生效）
+     */
+    public void updateCurrentPrice(Long sessionId, Long itemId, BigDecimal price) {
+        try {
+            if (!isWarm(sessionId)) {
+                return;
+            }
+            redisTemplate.opsForHash().put(PRICE_KEY_PREFIX + sessionId, String.valueOf(itemId), price.toPlainString());
+        } catch (Exception e) {
+            log.warn("更新直播当前价失败: sessionId={}, itemId={}, 错误: {}", sessionId, itemId, e.getMessage());
+        }
+    }
+
+    /**
+     * 延时拍卖顺延结束时间后刷新快照
+     */
+    public void updateEndTime(Long sessionId, LocalDateTime endTime) {
+        try {
+            String sessionKey = SESSION_KEY_PREFIX + sessionId;
+            Object cached = redisTemplate.opsForValue().get(sessionKey);
+            if (cached instanceof AuctionSession) {
+                AuctionSession session = (AuctionSession) cached;
+                session.setEndTime(endTime);
+                redisTemplate.opsForValue().set(sessionKey, session, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+                localEntries.remove(sessionId);
+            }
+        } catch (Exception e) {
+            log.warn("更新直播结束时间失败，清除快照: sessionId={}, 错误: {}", sessionId, e.getMessage());
+            evict(sessionId);
+        }
+    }
+
+    /**
+     * 清除拍卖会快照（结束、修改、删除时调用）
+     */
+    public void evict(Long sessionId) {
+        localEntries.remove(sessionId);
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add(SESSION_KEY_PREFIX + sessionId);
+            keys.add(ITEMS_KEY_PREFIX + sessionId);
+            keys.add(PRICE_KEY_PREFIX + sessionId);
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.warn("清除直播缓存失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前事务提交后清除拍卖会快照（拍品修改、删除时调用），提交前清除可能被预热任务用旧数据重新加载
+     */
+    public void evictAfterCommit(Long sessionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(sessionId);
+                }
+            });
+        } else {
+            evict(sessionId);
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private boolean isWarm(Long sessionId) {
+        return localEntries.containsKey(sessionId)
+                || Boolean.TRUE.equals(redisTemplate.hasKey(SESSION_KEY_PREFIX + sessionId));
+    }
+
+    private void touch(Long sessionId) {
+        redisTemplate.expire(SESSION_KEY_PREFIX + sessionId, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.expire(ITEMS_KEY_PREFIX + sessionId, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.expire(PRICE_KEY_PREFIX + sessionId, LIVE_EXPIRE_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * 本地副本未过期直接返回，否则从Redis刷新
+     */
+    @SuppressWarnings("unchecked")
+    private LocalEntry getEntry(Long sessionId) {
+        LocalEntry entry = localEntries.get(sessionId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < LOCAL_TTL_MILLIS) {
+            return entry;
+        }
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(
+                    Arrays.asList(SESSION_KEY_PREFIX + sessionId, ITEMS_KEY_PREFIX + sessionId));
+            if (values != null && values.get(0) instanceof AuctionSession && values.get(1) instanceof List) {
+                entry = new LocalEntry((AuctionSession) values.get(0), (List<AuctionItem>) values.get(1));
+                localEntries.put(sessionId, entry);
+                return entry;
+            }
+        } catch (Exception e) {
+            log.warn("读取直播缓存失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+        }
+        localEntries.remove(sessionId);
+        return null;
+    }
+
+    private static final class LocalEntry {
+        private final AuctionSession session;
+        private final List<AuctionItem> items;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private LocalEntry(AuctionSession session, List<AuctionItem> items) {
+            this.session = session;
+            this.items = items;
+        }
+    }
+}
@@ -108,6 +108,7 @@ public class AuctionLogisticsService {
     /**
      * 查询物流信息列表
      */
+    @Transactional(readOnly = true)
     public List<AuctionLogistics> getLogisticsList(AuctionLogistics logistics) {
         try {
             return auctionLogisticsMapper.selectList(logistics);
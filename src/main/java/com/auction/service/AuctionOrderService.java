@@ -60,6 +60,17 @@ public interface AuctionOrderService {
      */
     List<AuctionOrder> getOrderList(AuctionOrder order);
 
+    /**
+     * 键集分页查询订单列表（管理端）
+     *
+     * @param query 查询条件，非空字段作为条件
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否返回近似总数
+     * @return data-订单列表，hasMore-是否还有下一页，nextCursor-下一页游标，total/totalExact-近似总数（仅 withTotal 时）
+     */
+    Map<String, Object> getOrderPage(AuctionOrder query, String cursor, int size, boolean withTotal);
+
     /**
      * 根据ID查询订单
      */
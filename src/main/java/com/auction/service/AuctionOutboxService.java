@@ -0,0 +1,217 @@
+package com.auction.service;
+
+import com.auction.entity.AuctionOutboxEvent;
+import com.auction.entity.SysUser;
+import com.auction.entity.UserDepositAccount;
+import com.auction.mapper.AuctionOutboxEventMapper;
+import com.auction.websocket.AuctionWebSocketHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结算事件发件箱服务
+ * - 结算事务内调用 publish 写入事件，与 auction_result 同时提交或回滚
+ * - 调度任务调用 dispatchPendingEvents 批量投递中标通知、拍卖结束推送
+ * - 结算事务只包含资金和结果数据，慢速的通知和 WebSocket 写入不再延长锁持有时间
+ * - 投递至少一次：认领超时的事件会重新投递，中标通知按订单去重
+ */
+@Slf4j
+@Service
+public class AuctionOutboxService {
+
+    public static final String EVENT_WIN_NOTIFICATION = "WIN_NOTIFICATION";
+    public static final String EVENT_AUCTION_END = "AUCTION_END";
+
+    /** 每批投递事件数 */
+    private static final int DISPATCH_BATCH_SIZE = 100;
+
+    /** 最大重试次数，超过后标记为投递失败 */
+    private static final int MAX_RETRY_COUNT = 5;
+
+    /** 认领超时（秒），超过后认为投递节点已宕机，事件回到待投递 */
+    private static final int CLAIM_TIMEOUT_SECONDS = 300;
+
+    @Autowired
+    private AuctionOutboxEventMapper outboxEventMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserNotificationService userNotificationService;
+
+    @Autowired
+    private UserDepositAccountService userDepositAccountService;
+
+    @Autowired
+    private SysUserService sysUserService;
+
+    @Autowired
+    private AuctionWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private AuctionSessionStatsService auctionSessionStatsService;
+
+    /**
+     * 写入事件（必须在调用方事务内执行）
+     * 金额字段请以字符串形式放入payload，避免JSON浮点数丢失精度
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, Map<String, Object> payload) {
+        try {
+            AuctionOutboxEvent event = new AuctionOutboxEvent();
+            event.setEventType(eventType);
+            event.setAggregateId(aggregateId);
+            event.setPayload(objectMapper.writeValueAsString(payload));
+            outboxEventMapper.insert(event);
+        } catch (Exception e) {
+            log.error("写入发件箱事件失败: type={}, aggregateId={}, error={}", eventType, aggregateId, e.getMessage(), e);
+            throw new RuntimeException("写入发件箱事件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量投递待处理事件
+     *
+     * @return 本次成功投递的事件数
+     */
+    public int dispatchPendingEvents() {
+        int reclaimed = outboxEventMapper.releaseStaleClaims(CLAIM_TIMEOUT_SECONDS, MAX_RETRY_COUNT);
+        if (reclaimed > 0) {
+            log.warn("发件箱事件认领超时，重新投递: count={}", reclaimed);
+        }
+
+        List<AuctionOutboxEvent> events = outboxEventMapper.selectPending(DISPATCH_BATCH_SIZE);
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+
+        int delivered = 0;
+        for (AuctionOutboxEvent event : events) {
+            // 认领失败说明已被其他节点处理
+            if (outboxEventMapper.claim(event.getId()) == 0) {
+                continue;
+            }
+            try {
+                dispatch(event);
+                outboxEventMapper.markDelivered(event.getId());
+                delivered++;
+            } catch (Exception e) {
+                int retryCount = event.getRetryCount() != null ? event.getRetryCount() : 0;
+                int status = retryCount + 1 >= MAX_RETRY_COUNT ? 2 : 0;
+                String errorMsg = e.getMessage() != null && e.getMessage().length() > 500
+                        ? e.getMessage().substring(0, 500) : e.getMessage();
+                outboxEventMapper.markFailed(event.getId(), status, errorMsg);
+                log.error("发件箱事件投递失败: id={}, type={}, retry={}, error={}",
+                        event.getId(), event.getEventType(), retryCount + 1, e.getMessage(), e);
+            }
+        }
+
+        if (delivered > 0) {
+            log.info("发件箱事件投递完成: delivered={}, fetched={}", delivered, events.size());
+        }
+        return delivered;
+    }
+
+    private void dispatch(AuctionOutboxEvent event) throws Exception {
+        JsonNode payload = objectMapper.readTree(event.getPayload());
+        switch (event.getEventType()) {
+            case EVENT_WIN_NOTIFICATION:
+                sendWinNotification(payload);
+                break;
+            case EVENT_AUCTION_END:
+                sendAuctionEndMessage(payload);
+                break;
+            default:
+                throw new IllegalStateException("未知的发件箱事件类型: " + event.getEventType());
+        }
+    }
+
+    /**
+     * 发送中标通知（包含充值提醒）
+     */
+    private void sendWinNotification(JsonNode payload) {
+        Long winnerUserId = payload.get("winnerUserId").asLong();
+        Long orderId = payload.get("orderId").asLong();
+        BigDecimal balanceYuan = new BigDecimal(payload.get("balanceAmount").asText());
+
+        // 检查用户保证金余额是否足够支付尾款
+        UserDepositAccount account = userDepositAccountService.getAccountByUserId(winnerUserId);
+        BigDecimal userAvailable = account != null ? account.getAvailableAmount() : BigDecimal.ZERO;
+        boolean needRecharge = userAvailable.compareTo(balanceYuan) < 0;
+        BigDecimal rechargeAmount = needRecharge ? balanceYuan.subtract(userAvailable) : BigDecimal.ZERO;
+
+        boolean created = userNotificationService.createWinNotification(
+            winnerUserId,
+            orderId,
+            payload.get("itemId").asLong(),
+            payload.path("itemName").asText(null),
+            payload.path("orderNo").asText(null),
+            balanceYuan,
+            needRecharge,
+            rechargeAmount
+        );
+        if (!created) {
+            throw new IllegalStateException("中标通知创建失败");
+        }
+        log.info("中标通知已发送: userId={}, orderId={}, needRecharge={}", winnerUserId, orderId, needRecharge);
+    }
+
+    /**
+     * 发送拍卖结束消息到竞价房间，并更新会场统计
+     */
+    private void sendAuctionEndMessage(JsonNode payload) {
+        Long sessionId = payload.get("sessionId").asLong();
+        Long itemId = payload.get("itemId").asLong();
+        Long winnerUserId = payload.hasNonNull("winnerId") ? payload.get("winnerId").asLong() : null;
+        BigDecimal finalPriceYuan = new BigDecimal(payload.get("finalPrice").asText());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "AUCTION_END");
+        message.put("content", "拍卖结束");
+        message.put("timestamp", System.currentTimeMillis());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("itemId", itemId);
+        data.put("itemName", payload.path("itemName").asText(null));
+        data.put("winnerId", winnerUserId);
+        data.put("finalPrice", finalPriceYuan);
+        data.put("finalPriceYuan", finalPriceYuan);
+
+        // 获取中拍者信息
+        if (winnerUserId != null) {
+            try {
+                SysUser winner = sysUserService.getById(winnerUserId);
+                if (winner != null) {
+                    String winnerName = (winner.getNickname() != null && !winner.getNickname().trim().isEmpty())
+                        ? winner.getNickname()
+                        : winner.getUsername();
+                    data.put("winnerName", winnerName);
+                }
+            } catch (Exception e) {
+                log.warn("获取中拍者信息失败: winnerId={}, error={}", winnerUserId, e.getMessage());
+            }
+        }
+
+        message.put("data", data);
+
+        // 广播到拍卖会
+        webSocketHandler.broadcastToAuction(sessionId, message, null);
+
+        log.info("拍卖结束消息已发送: sessionId={}, itemId={}, winnerId={}, finalPrice={}",
+            sessionId, itemId, winnerUserId, finalPriceYuan);
+
+        // 统计投影放在最后且自身不抛异常；按拍品去重，重新投递时不会重复计数
+        auctionSessionStatsService.onItemSettled(sessionId, itemId, winnerUserId != null, finalPriceYuan);
+    }
+}
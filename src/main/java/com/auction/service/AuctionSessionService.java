@@ -1,5 +1,6 @@
 package com.auction.service;
 
+import com.auction.dto.SessionCard;
 import com.auction.entity.AuctionItem;
 import com.auction.entity.AuctionSession;
 import com.auction.entity.BidIncrementConfig;
@@ -9,7 +10,9 @@ import com.auction.mapper.AuctionSessionMapper;
 import com.auction.service.MinioService;
 import com.auction.service.RedisService;
 import com.auction.service.SysConfigService;
+import com.auction.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,6 +63,23 @@ public class AuctionSessionService {
     @Autowired
     private BidIncrementService bidIncrementService;
 
+    @Autowired
+    private AuctionSessionStatsService auctionSessionStatsService;
+
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;
+
+    @Autowired
+    private SessionDetailSnapshotCache sessionDetailSnapshotCache;
+
+    /** 拍卖会详情加载合并：同一拍卖会的并发未命中只查询一次数据库，每个调用方得到独立副本 */
+    private final SingleFlight<Long, AuctionSession> sessionLoader =
+            new SingleFlight<>("session", AuctionSessionService::copySession);
+
+    /** 拍卖会拍品列表加载合并 */
+    private final SingleFlight<Long, List<AuctionItem>> sessionItemsLoader =
+            new SingleFlight<>("sessionItems", AuctionSessionService::copyItems);
+
     /**
      * 创建拍卖会
      */
@@ -147,8 +168,11 @@ public class AuctionSessionService {
                 if (!itemIds.isEmpty()) {
                     auctionSessionItemMapper.batchInsert(session.getId(), itemIds);
                 }
+                auctionSessionMapper.refreshTotalItems(session.getId());
             }
 
+            auctionLiveCacheService.evict(session.getId());
+            sessionDetailSnapshotCache.invalidateAfterCommit(session.getId());
             log.info("拍卖会更新成功: ID={}, 名称={}", session.getId(), session.getSessionName());
             return true;
 
@@ -192,7 +216,11 @@ public class AuctionSessionService {
                 }
                 auctionSessionItemMapper.deleteBySessionId(session.getId());
                 if (!itemIds.isEmpty()) auctionSessionItemMapper.batchInsert(session.getId(), itemIds);
+                // 拍品数量随关联一起维护，列表卡片直接读取
+                auctionSessionMapper.refreshTotalItems(session.getId());
             }
+            auctionLiveCacheService.evict(session.getId());
+            sessionDetailSnapshotCache.invalidateAfterCommit(session.getId());
             return true;
         } catch (Exception e) {
             log.error("更新拍卖会(含多图)失败: {}", e.getMessage(), e);
@@ -248,16 +276,27 @@ public class AuctionSessionService {
      */
     public AuctionSession getSessionById(Long id) {
         try {
-            AuctionSession session = auctionSessionMapper.selectById(id);
-            if (session != null) {
-                // 动态纠正状态
-                recalculateSessionStatus(session);
-                // 加载拍品列表
-                loadSessionItems(session);
-                // 加载加价阶梯配置
-                loadBidIncrementConfig(session);
+            // 已预热的拍卖会直接读直播缓存
+            AuctionSession live = auctionLiveCacheService.getSession(id);
+            if (live != null) {
+                sessionLoader.recordHit();
+                recalculateSessionStatus(live);
+                return live;
             }
-            return session;
+
+            // 并发请求共享同一次数据库加载，各自得到副本
+            return sessionLoader.load(id, () -> {
+                AuctionSession session = auctionSessionMapper.selectById(id);
+                if (session != null) {
+                    // 动态纠正状态
+                    recalculateSessionStatus(session);
+                    // 加载拍品列表
+                    loadSessionItems(session);
+                    // 加载加价阶梯配置
+                    loadBidIncrementConfig(session);
+                }
+                return session;
+            });
         } catch (Exception e) {
             log.error("查询拍卖会失败: ID={}, 错误: {}", id, e.getMessage(), e);
             return null;
@@ -267,6 +306,7 @@ public class AuctionSessionService {
     /**
      * 查询拍卖会列表
      */
+    @Transactional(readOnly = true)
     public List<AuctionSession> getSessionList(AuctionSession session) {
         try {
             List<AuctionSession> sessions = auctionSessionMapper.selectList(session);
@@ -283,6 +323,59 @@ public class AuctionSessionService {
         }
     }
 
+    /**
+     * 查询用户端拍卖会卡片
+     * - 一次查询取卡片字段，拍品数量使用写入时维护的 total_items，不再逐个拍卖会查询拍品和加价配置
+     * - 围观人数一次MGET批量读取，Redis无计数时使用统计回写的 view_count
+     * - 传入游标时按ID键集分页；未传游标时按页码定位，并返回总数供分页组件使用
+     *
+     * @param cursor 上一页返回的 nextCursor，可为空
+     * @param page 页码（从1开始），仅在未传游标时使用
+     * @param size 每页数量
+     * @return data-卡片列表，nextCursor-下一页游标，hasMore-是否还有下一页，total-总数（仅未传游标时）
+     */
+    public Map<String, Object> getSessionCards(Long cursor, int page, int size) {
+        try {
+            int pageSize = Math.max(1, Math.min(size, 100));
+            Integer offset = cursor == null && page > 1 ? (page - 1) * pageSize : null;
+
+            // 多取一条判断是否还有下一页
+            List<AuctionSession> rows = auctionSessionMapper.selectVisibleCards(cursor, offset, pageSize + 1);
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (AuctionSession row : rows) {
+                ids.add(row.getId());
+            }
+            Map<Long, Long> viewCounts = redisService.getAuctionViewCounts(ids);
+
+            List<SessionCard> cards = new ArrayList<>(rows.size());
+            for (AuctionSession row : rows) {
+                recalculateSessionStatus(row);
+                Long viewCount = viewCounts.get(row.getId());
+                if (viewCount == null) {
+                    viewCount = row.getViewCount() != null ? row.getViewCount().longValue() : 0L;
+                }
+                cards.add(SessionCard.of(row, viewCount));
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("data", cards);
+            result.put("hasMore", hasMore);
+            result.put("nextCursor", hasMore ? rows.get(rows.size() - 1).getId() : null);
+            if (cursor == null) {
+                result.put("total", auctionSessionMapper.countVisible());
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("查询拍卖会卡片失败: {}", e.getMessage(), e);
+            throw new RuntimeException("查询拍卖会卡片失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 删除拍卖会
      */
@@ -313,6 +406,8 @@ public class AuctionSessionService {
             int result = auctionSessionMapper.deleteById(id);
             
             if (result > 0) {
+                auctionLiveCacheService.evict(id);
+                sessionDetailSnapshotCache.invalidateAfterCommit(id);
                 log.info("拍卖会删除成功: ID={}", id);
                 return true;
             } else {
@@ -502,25 +597,15 @@ public class AuctionSessionService {
         Map<String, Object> statistics = new java.util.HashMap<>();
         
         try {
-            // 获取围观人数
+            // 统计投影（出价次数、出价人数、成交额、成交率、峰值人数等）
+            statistics.putAll(auctionSessionStatsService.getStatistics(sessionId));
+
+            // 获取实时围观人数
             Long viewCount = redisService.getAuctionViewCount(sessionId);
             statistics.put("viewCount", viewCount);
             
-            // 获取总出价次数
-            Long bidCount = redisService.getAuctionBidCount(sessionId);
-            statistics.put("bidCount", bidCount);
-            
-            // 获取拍卖会基本信息
-            AuctionSession session = auctionSessionMapper.selectById(sessionId);
-            if (session != null) {
-                statistics.put("sessionName", session.getSessionName());
-                statistics.put("status", session.getStatus());
-                statistics.put("totalItems", session.getTotalItems());
-                statistics.put("soldItems", session.getSoldItems());
-            }
-            
             log.debug("获取拍卖会统计信息: 拍卖会ID={}, 围观人数={}, 出价次数={}", 
-                sessionId, viewCount, bidCount);
+                sessionId, viewCount, statistics.get("bidCount"));
             
         } catch (Exception e) {
             log.error("获取拍卖会统计信息失败: 拍卖会ID={}, 错误: {}", sessionId, e.getMessage(), e);
@@ -587,10 +672,47 @@ public class AuctionSessionService {
      */
     public List<AuctionItem> getSessionItems(Long sessionId) {
         try {
-            return auctionItemMapper.selectBySessionId(sessionId);
+            List<AuctionItem> live = auctionLiveCacheService.getSessionItems(sessionId);
+            if (live != null) {
+                sessionItemsLoader.recordHit();
+                return live;
+            }
+            return sessionItemsLoader.load(sessionId, () -> auctionItemMapper.selectBySessionId(sessionId));
         } catch (Exception e) {
             log.error("获取拍卖会拍品列表失败: sessionId={}, 错误: {}", sessionId, e.getMessage(), e);
             return new ArrayList<>();
         }
     }
+
+    /**
+     * 获取拍卖会/拍品列表加载计数（命中、实际加载、合并次数）
+     */
+    public List<Map<String, Object>> getLoaderStatistics() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        stats.add(sessionLoader.getStatistics());
+        stats.add(sessionItemsLoader.getStatistics());
+        return stats;
+    }
+
+    /**
+     * 复制拍卖会（含拍品列表），加价配置只读共享
+     */
+    private static AuctionSession copySession(AuctionSession source) {
+        AuctionSession copy = new AuctionSession();
+        BeanUtils.copyProperties(source, copy);
+        if (source.getItems() != null) {
+            copy.setItems(copyItems(source.getItems()));
+        }
+        return copy;
+    }
+
+    private static List<AuctionItem> copyItems(List<AuctionItem> source) {
+        List<AuctionItem> copy = new ArrayList<>(source.size());
+        for (AuctionItem item : source) {
+            AuctionItem itemCopy = new AuctionItem();
+            BeanUtils.copyProperties(item, itemCopy);
+            copy.add(itemCopy);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,310 @@
+package com.auction.service;
+
+import com.auction.entity.AuctionSession;
+import com.auction.mapper.AuctionSessionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拍卖会统计投影服务
+ * - 由出价、结算、围观等事件增量驱动，计数保存在Redis Hash中
+ * - 首次使用时从auction_session已回写的统计字段初始化，Redis数据丢失后可继续累计
+ * - 初始化完成后写入标记字段；累加脚本发现标记不存在（Hash丢失或过期）时不累加，先重新初始化再累加，
+ *   不会在空Hash上累出残缺的计数
+ * - 定时任务调用 flushDirtySessions 将变化的会场统计回写到auction_session，回写只增不减
+ * - 统计接口只读Redis，不再查询拍卖会表
+ */
+@Slf4j
+@Service
+public class AuctionSessionStatsService {
+
+    private static final String STATS_KEY_PREFIX = "auction:stats:";
+    private static final String BIDDERS_KEY_PREFIX = "auction:stats:bidders:";
+    private static final String SETTLED_KEY_PREFIX = "auction:stats:settled:";
+    private static final String DIRTY_KEY = "auction:stats:dirty";
+
+    private static final String FIELD_SESSION_NAME = "sessionName";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_TOTAL_ITEMS = "totalItems";
+    private static final String FIELD_SOLD_ITEMS = "soldItems";
+    private static final String FIELD_SETTLED_ITEMS = "settledItems";
+    private static final String FIELD_VIEW_COUNT = "viewCount";
+    private static final String FIELD_BID_COUNT = "bidCount";
+    private static final String FIELD_BIDDER_COUNT = "bidderCount";
+    private static final String FIELD_GMV_FEN = "gmvFen";
+    private static final String FIELD_PEAK_VIEWERS = "peakViewers";
+    private static final String FIELD_SEEDED = "seeded";
+
+    /** 统计数据过期时间（天），过期后从数据库回写值重新初始化 */
+    private static final long STATS_EXPIRE_DAYS = 7;
+
+    /** 每次回写处理的最大会场数 */
+    private static final int FLUSH_BATCH_SIZE = 100;
+
+    /** 已初始化时按 字段,增量 成对累加并返回1，未初始化时不累加并返回0 */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '" + FIELD_SEEDED + "') == 0 then return 0 end " +
+            "for i = 1, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return 1", Long.class);
+
+    /** 已初始化且新值更大时更新峰值，未初始化时返回-1 */
+    private static final DefaultRedisScript<Long> PEAK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '" + FIELD_SEEDED + "') == 0 then return -1 end " +
+            "local cur = tonumber(redis.call('HGET', KEYS[1], '" + FIELD_PEAK_VIEWERS + "') or '0') " +
+            "local v = tonumber(ARGV[1]) " +
+            "if v > cur then redis.call('HSET', KEYS[1], '" + FIELD_PEAK_VIEWERS + "', v) return v end " +
+            "return cur", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /** 执行脚本用，参数不经JSON序列化 */
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private AuctionSessionMapper auctionSessionMapper;
+
+    // ==================== 事件投影 ====================
+
+    /**
+     * 出价成功事件
+     */
+    public void onBidAccepted(Long sessionId, Long userId) {
+        try {
+            Long added = redisTemplate.opsForSet().add(BIDDERS_KEY_PREFIX + sessionId, userId);
+            if (added != null && added > 0) {
+                redisTemplate.expire(BIDDERS_KEY_PREFIX + sessionId, STATS_EXPIRE_DAYS, TimeUnit.DAYS);
+                increment(sessionId, FIELD_BID_COUNT, 1, FIELD_BIDDER_COUNT, 1);
+            } else {
+                increment(sessionId, FIELD_BID_COUNT, 1);
+            }
+        } catch (Exception e) {
+            log.error("统计出价事件失败: sessionId={}, userId={}, 错误: {}", sessionId, userId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 拍品结算事件
+     * 同一拍品只计一次（发件箱可能重复投递拍卖结束事件）
+     *
+     * @param itemId 拍品ID
+     * @param sold 是否成交
+     * @param finalPriceYuan 成交价（元），流拍时忽略
+     */
+    public void onItemSettled(Long sessionId, Long itemId, boolean sold, BigDecimal finalPriceYuan) {
+        try {
+            Long added = redisTemplate.opsForSet().add(SETTLED_KEY_PREFIX + sessionId, itemId);
+            if (added == null || added == 0) {
+                return;
+            }
+            redisTemplate.expire(SETTLED_KEY_PREFIX + sessionId, STATS_EXPIRE_DAYS, TimeUnit.DAYS);
+            if (sold) {
+                long fen = finalPriceYuan != null
+                        ? finalPriceYuan.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+                increment(sessionId, FIELD_SETTLED_ITEMS, 1, FIELD_SOLD_ITEMS, 1, FIELD_GMV_FEN, fen);
+            } else {
+                increment(sessionId, FIELD_SETTLED_ITEMS, 1);
+            }
+        } catch (Exception e) {
+            log.error("统计结算事件失败: sessionId={}, 错误: {}", sessionId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 围观事件
+     *
+     * @param onlineViewers 当前实时在线连接数（WebSocket），用于记录峰值；页面浏览传null，只计围观次数
+     */
+    public void onViewerJoined(Long sessionId, Long onlineViewers) {
+        try {
+            increment(sessionId, FIELD_VIEW_COUNT, 1);
+            if (onlineViewers != null && onlineViewers > 0) {
+                // 累加时已确保初始化
+                stringRedisTemplate.execute(PEAK_SCRIPT, Collections.singletonList(STATS_KEY_PREFIX + sessionId),
+                        String.valueOf(onlineViewers));
+            }
+        } catch (Exception e) {
+            log.error("统计围观事件失败: sessionId={}, 错误: {}", sessionId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 拍卖会状态变更事件（开始、结束）
+     */
+    public void onStatusChanged(Long sessionId, Integer status) {
+        try {
+            String key = STATS_KEY_PREFIX + sessionId;
+            // 未初始化的会场在首次读取时会从数据库加载最新状态
+            if (redisTemplate.opsForHash().hasKey(key, FIELD_SEEDED)) {
+                redisTemplate.opsForHash().put(key, FIELD_STATUS, status);
+            }
+        } catch (Exception e) {
+            log.error("统计状态变更失败: sessionId={}, status={}, 错误: {}", sessionId, status, e.getMessage(), e);
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 获取拍卖会统计信息（只读Redis）
+     */
+    public Map<String, Object> getStatistics(Long sessionId) {
+        Map<String, Object> statistics = new HashMap<>();
+        String key = STATS_KEY_PREFIX + sessionId;
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(key);
+        if (hash == null || !hash.containsKey(FIELD_SEEDED)) {
+            if (!seed(sessionId)) {
+                return statistics;
+            }
+            hash = redisTemplate.opsForHash().entries(key);
+        }
+
+        long totalItems = toLong(hash.get(FIELD_TOTAL_ITEMS));
+        long soldItems = toLong(hash.get(FIELD_SOLD_ITEMS));
+
+        statistics.put("sessionName", hash.get(FIELD_SESSION_NAME));
+        statistics.put("status", hash.get(FIELD_STATUS));
+        statistics.put("totalItems", totalItems);
+        statistics.put("soldItems", soldItems);
+        statistics.put("settledItems", toLong(hash.get(FIELD_SETTLED_ITEMS)));
+        statistics.put("totalViews", toLong(hash.get(FIELD_VIEW_COUNT)));
+        statistics.put("bidCount", toLong(hash.get(FIELD_BID_COUNT)));
+        statistics.put("bidderCount", toLong(hash.get(FIELD_BIDDER_COUNT)));
+        statistics.put("gmv", BigDecimal.valueOf(toLong(hash.get(FIELD_GMV_FEN)), 2));
+        statistics.put("peakViewers", toLong(hash.get(FIELD_PEAK_VIEWERS)));
+        statistics.put("sellThroughRate", totalItems > 0
+                ? BigDecimal.valueOf(soldItems).divide(BigDecimal.valueOf(totalItems), 4, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        return statistics;
+    }
+
+    // ==================== 回写 ====================
+
+    /**
+     * 将有变化的会场统计回写到auction_session
+     *
+     * @return 回写的会场数
+     */
+    public int flushDirtySessions() {
+        List<Object> dirty = redisTemplate.opsForSet().pop(DIRTY_KEY, FLUSH_BATCH_SIZE);
+        if (dirty == null || dirty.isEmpty()) {
+            return 0;
+        }
+
+        int flushed = 0;
+        for (Object member : dirty) {
+            Long sessionId = toLong(member);
+            try {
+                String key = STATS_KEY_PREFIX + sessionId;
+                Map<Object, Object> hash = redisTemplate.opsForHash().entries(key);
+                if (hash == null || !hash.containsKey(FIELD_SEEDED)) {
+                    // 未初始化（Hash丢失后的残缺数据）不回写，下次事件重新初始化后再回写
+                    continue;
+                }
+                // 活跃会场每次回写时续期
+                redisTemplate.expire(key, STATS_EXPIRE_DAYS, TimeUnit.DAYS);
+                AuctionSession update = new AuctionSession();
+                update.setId(sessionId);
+                update.setSoldItems((int) toLong(hash.get(FIELD_SOLD_ITEMS)));
+                update.setViewCount((int) toLong(hash.get(FIELD_VIEW_COUNT)));
+                update.setBidCount((int) toLong(hash.get(FIELD_BID_COUNT)));
+                update.setBidderCount((int) toLong(hash.get(FIELD_BIDDER_COUNT)));
+                update.setGmvAmount(BigDecimal.valueOf(toLong(hash.get(FIELD_GMV_FEN)), 2));
+                update.setPeakViewers((int) toLong(hash.get(FIELD_PEAK_VIEWERS)));
+                auctionSessionMapper.updateStatistics(update);
+                flushed++;
+            } catch (Exception e) {
+                // 回写失败时重新标记，下一轮再试
+                markDirty(sessionId);
+                log.error("回写拍卖会统计失败: sessionId={}, 错误: {}", sessionId, e.getMessage(), e);
+            }
+        }
+
+        log.debug("拍卖会统计回写完成: {} 个会场", flushed);
+        return flushed;
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 累加统计字段并标记待回写；统计未初始化时先从数据库初始化再累加
+     *
+     * @param fieldAndDeltas 字段名、增量成对传入
+     */
+    private void increment(Long sessionId, Object... fieldAndDeltas) {
+        List<String> keys = Collections.singletonList(STATS_KEY_PREFIX + sessionId);
+        String[] args = new String[fieldAndDeltas.length];
+        for (int i = 0; i < fieldAndDeltas.length; i++) {
+            args[i] = String.valueOf(fieldAndDeltas[i]);
+        }
+        Long applied = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, (Object[]) args);
+        if (applied == null || applied == 0) {
+            if (!seed(sessionId)) {
+                return;
+            }
+            stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, (Object[]) args);
+        }
+        markDirty(sessionId);
+    }
+
+    /**
+     * 从auction_session已回写的统计字段初始化，最后写入初始化标记
+     *
+     * @return 拍卖会不存在时返回false
+     */
+    private boolean seed(Long sessionId) {
+        AuctionSession session = auctionSessionMapper.selectById(sessionId);
+        if (session == null) {
+            return false;
+        }
+        String key = STATS_KEY_PREFIX + sessionId;
+        // 使用HSETNX，避免覆盖其他节点已累计的计数
+        putIfAbsent(key, FIELD_SESSION_NAME, session.getSessionName());
+        putIfAbsent(key, FIELD_STATUS, session.getStatus());
+        putIfAbsent(key, FIELD_TOTAL_ITEMS, session.getTotalItems());
+        putIfAbsent(key, FIELD_SOLD_ITEMS, session.getSoldItems());
+        putIfAbsent(key, FIELD_VIEW_COUNT, session.getViewCount());
+        putIfAbsent(key, FIELD_BID_COUNT, session.getBidCount());
+        putIfAbsent(key, FIELD_BIDDER_COUNT, session.getBidderCount());
+        putIfAbsent(key, FIELD_PEAK_VIEWERS, session.getPeakViewers());
+        if (session.getGmvAmount() != null) {
+            putIfAbsent(key, FIELD_GMV_FEN, session.getGmvAmount().movePointRight(2).longValue());
+        }
+        redisTemplate.opsForHash().put(key, FIELD_SEEDED, 1);
+        redisTemplate.expire(key, STATS_EXPIRE_DAYS, TimeUnit.DAYS);
+        return true;
+    }
+
+    private void putIfAbsent(String key, String field, Object value) {
+        if (value != null) {
+            redisTemplate.opsForHash().putIfAbsent(key, field, value);
+        }
+    }
+
+    private void markDirty(Long sessionId) {
+        redisTemplate.opsForSet().add(DIRTY_KEY, sessionId);
+    }
+
+    private long toLong(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+}
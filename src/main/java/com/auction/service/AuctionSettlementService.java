@@ -1,9 +1,12 @@
 package com.auction.service;
 
+import com.auction.dto.DepositUnfreezeItem;
 import com.auction.entity.*;
 import com.auction.mapper.AuctionItemMapper;
 import com.auction.mapper.AuctionSessionMapper;
 import com.auction.service.impl.AuctionOrderServiceImpl;
+import com.auction.config.Workload;
+import com.auction.config.WorkloadPool;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -19,9 +22,11 @@ import java.util.*;
  * - 为中标者创建订单并计算应付尾款（成交价 + 佣金 - 已冻结保证金）
  * - 为未中标的竞拍者解冻保证金
  * - 记录结果到 auction_result
+ * - 中标通知、拍卖结束推送通过发件箱（auction_outbox_event）在提交后异步投递
  */
 @Slf4j
 @Service
+@WorkloadPool(Workload.BATCH)
 public class AuctionSettlementService {
 
     @Autowired
@@ -43,13 +48,7 @@ public class AuctionSettlementService {
     private UserDepositAccountService userDepositAccountService;
 
     @Autowired
-    private UserNotificationService userNotificationService;
-
-    @Autowired
-    private com.auction.websocket.AuctionWebSocketHandler webSocketHandler;
-
-    @Autowired
-    private com.auction.service.SysUserService sysUserService;
+    private AuctionOutboxService auctionOutboxService;
 
     @Autowired
     private UserDepositTransactionService userDepositTransactionService;
@@ -182,68 +181,21 @@ public class AuctionSettlementService {
             result.setCommissionFee(commissionYuan);
             result.setDepositUsed(actualWinnerDepositYuan);
 
-            // 发送中标通知（包含充值提醒）
-            if (orderId != null) {
-                try {
-                    // 检查用户保证金余额是否足够支付尾款
-                    com.auction.entity.UserDepositAccount account = 
-                        userDepositAccountService.getAccountByUserId(winnerUserId);
-                    BigDecimal userAvailable = account != null ? account.getAvailableAmount() : BigDecimal.ZERO;
-                    boolean needRecharge = userAvailable.compareTo(balanceYuan) < 0;
-                    BigDecimal rechargeAmount = needRecharge ? balanceYuan.subtract(userAvailable) : BigDecimal.ZERO;
-                    
-                    userNotificationService.createWinNotification(
-                        winnerUserId, 
-                        orderId, 
-                        itemId, 
-                        item.getItemName(), 
-                        order.getOrderNo(),
-                        balanceYuan,
-                        needRecharge,
-                        rechargeAmount
-                    );
-                    log.info("中标通知已发送: userId={}, orderId={}, itemId={}, needRecharge={}", 
-                        winnerUserId, orderId, itemId, needRecharge);
-                } catch (Exception e) {
-                    log.error("发送中标通知失败: userId={}, orderId={}, error={}", winnerUserId, orderId, e.getMessage());
-                }
-            }
+            // 中标通知（含充值提醒）写入发件箱，提交后异步投递
+            Map<String, Object> winPayload = new HashMap<>();
+            winPayload.put("winnerUserId", winnerUserId);
+            winPayload.put("orderId", orderId);
+            winPayload.put("orderNo", order.getOrderNo());
+            winPayload.put("itemId", itemId);
+            winPayload.put("itemName", item.getItemName());
+            winPayload.put("balanceAmount", balanceYuan.toPlainString());
+            auctionOutboxService.publish(AuctionOutboxService.EVENT_WIN_NOTIFICATION, itemId, winPayload);
 
             // 未中标者解冻保证金 - 使用实际冻结金额
-            for (Map.Entry<Long, BigDecimal> entry : userMaxBidYuan.entrySet()) {
-                Long userId = entry.getKey();
-                if (!userId.equals(winnerUserId)) {
-                    // 查询该用户在该拍品上的实际冻结金额
-                    BigDecimal actualFrozenAmount = userDepositTransactionService.getFrozenAmountByUserAndItem(userId, itemId);
-                    if (actualFrozenAmount.compareTo(BigDecimal.ZERO) > 0) {
-                        try {
-                            userDepositAccountService.unfreezeAmount(userId, actualFrozenAmount, itemId, "item", "未中标解冻");
-                            log.info("未中标解冻保证金: userId={}, itemId={}, actualFrozen={}", userId, itemId, actualFrozenAmount);
-                        } catch (Exception e) {
-                            log.warn("解冻未中标保证金失败: userId={}, itemId={}, actualFrozen={}, err={}", userId, itemId, actualFrozenAmount, e.getMessage());
-                        }
-                    } else {
-                        log.warn("未中标用户无冻结保证金可解冻: userId={}, itemId={}", userId, itemId);
-                    }
-                }
-            }
+            releaseDeposits(itemId, userMaxBidYuan.keySet(), winnerUserId, "未中标解冻");
         } else {
             // 流拍：所有参与者解冻保证金 - 使用实际冻结金额
-            for (Map.Entry<Long, BigDecimal> entry : userMaxBidYuan.entrySet()) {
-                Long userId = entry.getKey();
-                // 查询该用户在该拍品上的实际冻结金额
-                BigDecimal actualFrozenAmount = userDepositTransactionService.getFrozenAmountByUserAndItem(userId, itemId);
-                if (actualFrozenAmount.compareTo(BigDecimal.ZERO) > 0) {
-                    try {
-                        userDepositAccountService.unfreezeAmount(userId, actualFrozenAmount, itemId, "item", "流拍解冻");
-                        log.info("流拍解冻保证金: userId={}, itemId={}, actualFrozen={}", userId, itemId, actualFrozenAmount);
-                    } catch (Exception e) {
-                        log.warn("流拍解冻保证金失败: userId={}, itemId={}, actualFrozen={}, err={}", userId, itemId, actualFrozenAmount, e.getMessage());
-                    }
-                } else {
-                    log.warn("流拍用户无冻结保证金可解冻: userId={}, itemId={}", userId, itemId);
-                }
-            }
+            releaseDeposits(itemId, userMaxBidYuan.keySet(), null, "流拍解冻");
         }
 
         // 写入结果表
@@ -266,7 +218,7 @@ public class AuctionSettlementService {
             throw new RuntimeException("更新拍品状态失败: " + e.getMessage(), e);
         }
 
-        // 发送拍卖结束消息到竞价房间
+        // 拍卖结束消息写入发件箱，提交后异步推送到竞价房间
         // 根据是否成交决定传递的参数
         Long messageWinnerId = sold ? winnerUserId : null;
         BigDecimal messageFinalPrice = sold ? finalPriceYuan : BigDecimal.ZERO;
@@ -274,53 +226,75 @@ public class AuctionSettlementService {
         log.info("拍卖结算完成: itemId={}, sold={}, winnerId={}, finalPrice={}, messageWinnerId={}, messageFinalPrice={}", 
             itemId, sold, winnerUserId, finalPriceYuan, messageWinnerId, messageFinalPrice);
         
-        sendAuctionEndMessage(sessionId, itemId, item, messageWinnerId, messageFinalPrice);
+        Map<String, Object> endPayload = new HashMap<>();
+        endPayload.put("sessionId", sessionId);
+        endPayload.put("itemId", itemId);
+        endPayload.put("itemName", item.getItemName());
+        endPayload.put("winnerId", messageWinnerId);
+        endPayload.put("finalPrice", messageFinalPrice.toPlainString());
+        auctionOutboxService.publish(AuctionOutboxService.EVENT_AUCTION_END, itemId, endPayload);
     }
 
     /**
-     * 发送拍卖结束消息到竞价房间
+     * 批量解冻拍品参与者的保证金（排除中标者）
+     * 按用户锁分段分组解冻，每组的余额变更和流水写入各只需一条SQL
+     * 解冻按拍品独立提交：结算事务之后若回滚重试，已解冻用户的占用为0，不会重复解冻
      */
-    private void sendAuctionEndMessage(Long sessionId, Long itemId, AuctionItem item, Long winnerUserId, BigDecimal finalPriceYuan) {
+    private void releaseDeposits(Long itemId, Set<Long> bidderIds, Long winnerUserId, String description) {
+        // 一次读取该拍品上所有用户的冻结占用
+        Map<Long, BigDecimal> frozenAmounts = userDepositTransactionService.getFrozenAmountsByItem(itemId);
+        List<DepositUnfreezeItem> unfreezeItems = new ArrayList<>();
+        for (Long userId : bidderIds) {
+            if (userId.equals(winnerUserId)) {
+                continue;
+            }
+            BigDecimal actualFrozenAmount = frozenAmounts.getOrDefault(userId, BigDecimal.ZERO);
+            if (actualFrozenAmount.compareTo(BigDecimal.ZERO) > 0) {
+                unfreezeItems.add(new DepositUnfreezeItem(userId, actualFrozenAmount, itemId));
+            } else {
+                log.warn("用户无冻结保证金可解冻: userId={}, itemId={}, reason={}", userId, itemId, description);
+            }
+        }
+        if (unfreezeItems.isEmpty()) {
+            return;
+        }
+
+        // 按用户锁分段分组，每组一个独立事务：同一时刻只占用一个分段，不会长时间阻塞其他用户的出价
+        Map<Integer, List<DepositUnfreezeItem>> stripeGroups = new TreeMap<>();
+        for (DepositUnfreezeItem unfreezeItem : unfreezeItems) {
+            stripeGroups.computeIfAbsent(UserLockService.stripeOf(unfreezeItem.getUserId()), k -> new ArrayList<>()).add(unfreezeItem);
+        }
+        List<DepositUnfreezeItem> failed = new ArrayList<>();
+        for (List<DepositUnfreezeItem> group : stripeGroups.values()) {
+            failed.addAll(releaseDepositGroup(itemId, group, description));
+        }
+        log.info("批量解冻保证金: itemId={}, users={}, groups={}, skipped={}, reason={}", itemId, unfreezeItems.size(), stripeGroups.size(), failed.size(), description);
+
+        // 未能解冻的保证金仍保留在占用中，需要人工处理
+        for (DepositUnfreezeItem item : failed) {
+            log.error("保证金解冻未完成，需人工处理: userId={}, itemId={}, amount={}, reason={}", item.getUserId(), itemId, item.getAmount(), description);
+        }
+    }
+
+    /**
+     * 解冻同一锁分段内的用户，返回未能解冻的条目
+     */
+    private List<DepositUnfreezeItem> releaseDepositGroup(Long itemId, List<DepositUnfreezeItem> group, String description) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("type", "AUCTION_END");
-            message.put("content", "拍卖结束");
-            message.put("timestamp", System.currentTimeMillis());
-            
-            Map<String, Object> data = new HashMap<>();
-            data.put("itemId", itemId);
-            data.put("itemName", item.getItemName());
-            data.put("winnerId", winnerUserId);
-            data.put("finalPrice", finalPriceYuan);
-            data.put("finalPriceYuan", finalPriceYuan);
-            
-            // 获取中拍者信息
-            if (winnerUserId != null) {
+            // 解冻在独立事务中执行，失败不会使结算事务回滚
+            return userDepositAccountService.batchUnfreezeAmount(group, description);
+        } catch (Exception e) {
+            // 整组回滚（如余额被并发修改）：逐个用户重试，隔离出有问题的账户
+            log.warn("批量解冻保证金失败，逐个用户重试: itemId={}, users={}, reason={}, err={}", itemId, group.size(), description, e.getMessage());
+            List<DepositUnfreezeItem> failed = new ArrayList<>();
+            for (DepositUnfreezeItem unfreezeItem : group) {
                 try {
-                    SysUser winner = sysUserService.getById(winnerUserId);
-                    if (winner != null) {
-                        String winnerName = (winner.getNickname() != null && !winner.getNickname().trim().isEmpty()) 
-                            ? winner.getNickname() 
-                            : winner.getUsername();
-                        data.put("winnerName", winnerName);
-                    }
-                } catch (Exception e) {
-                    log.warn("获取中拍者信息失败: winnerId={}, error={}", winnerUserId, e.getMessage());
+                    failed.addAll(userDepositAccountService.batchUnfreezeAmount(Collections.singletonList(unfreezeItem), description));
+                } catch (Exception single) {
+                    failed.add(unfreezeItem);
                 }
             }
-            
-            message.put("data", data);
-            
-            // 广播到拍卖会
-            webSocketHandler.broadcastToAuction(sessionId, message, null);
-            
-            log.info("拍卖结束消息已发送: sessionId={}, itemId={}, winnerId={}, finalPrice={}", 
-                sessionId, itemId, winnerUserId, finalPriceYuan);
-                
-        } catch (Exception e) {
-            log.error("发送拍卖结束消息失败: sessionId={}, itemId={}, error={}", sessionId, itemId, e.getMessage(), e);
+            return failed;
         }
     }
 }
-
-
@@ -2,6 +2,7 @@ package com.auction.service;
 
 import com.auction.entity.AuditLog;
 import com.auction.mapper.AuditLogMapper;
+import com.auction.util.KeysetCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,9 @@ public class AuditLogService {
     @Autowired
     private AuditLogMapper auditLogMapper;
 
+    @Autowired
+    private TableStatsService tableStatsService;
+
     /**
      * 记录审计日志
      */
@@ -91,6 +95,42 @@ public class AuditLogService {
         }
     }
 
+    /**
+     * 键集分页查询审计日志
+     *
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否返回近似总数
+     * @return data-日志列表，hasMore-是否还有下一页，nextCursor-下一页游标，total/totalExact-近似总数（仅 withTotal 时）
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> queryLogPage(Long userId, String operationType, String module,
+                                            Integer success, LocalDateTime startTime, LocalDateTime endTime,
+                                            String cursor, int size, boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, 200));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        try {
+            List<AuditLog> rows = auditLogMapper.selectPage(userId, operationType, module, success, startTime, endTime,
+                    position != null ? position.getTime() : null,
+                    position != null ? position.getId() : null,
+                    pageSize + 1);
+            Map<String, Object> page = KeysetCursor.page(rows, pageSize, AuditLog::getCreateTime, AuditLog::getId);
+            if (withTotal) {
+                boolean filtered = userId != null || (operationType != null && !operationType.isEmpty())
+                        || (module != null && !module.isEmpty()) || success != null
+                        || startTime != null || endTime != null;
+                tableStatsService.putApproximateTotal(page,
+                        auditLogMapper.countCapped(userId, operationType, module, success, startTime, endTime,
+                                TableStatsService.COUNT_CAP),
+                        filtered, "audit_log");
+            }
+            return page;
+        } catch (Exception e) {
+            log.error("分页查询审计日志失败: {}", e.getMessage(), e);
+            throw new RuntimeException("查询审计日志失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取用户最近操作日志
      */
@@ -2,6 +2,7 @@ package com.auction.service;
 
 import com.auction.entity.BidIncrementConfig;
 import com.auction.entity.BidIncrementRule;
+import com.auction.util.BidIncrementLadder;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -60,11 +61,21 @@ public interface BidIncrementService {
      */
     boolean validateBidAmount(BigDecimal currentPrice, BigDecimal bidAmount, Long configId);
 
+    /**
+     * 校验出价是否符合加价阶梯规则（金额单位：分，出价引擎内部使用）
+     */
+    boolean validateBidAmount(long currentFen, long bidFen, Long configId);
+
     /**
      * 根据价格区间获取适用的加价规则
      */
     BidIncrementRule getApplicableRule(BigDecimal amount, Long configId);
 
+    /**
+     * 获取编译后的加价阶梯（按配置ID缓存，配置修改或删除时失效）
+     */
+    BidIncrementLadder getLadder(Long configId);
+
     /**
      * 根据配置ID获取所有规则（按排序号排序）
      */
@@ -1,5 +1,6 @@
 package com.auction.service;
 
+import com.auction.util.ConfigHandle;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,6 +22,15 @@ public class CommonImageService {
     private final MinioService minioService;
     private final SysConfigService sysConfigService;
 
+    private ConfigHandle<Integer> maxItemImages;
+    private ConfigHandle<Integer> maxSessionImages;
+
+    @PostConstruct
+    public void initConfigHandles() {
+        maxItemImages = sysConfigService.getIntHandle("upload.max.item.images", 5);
+        maxSessionImages = sysConfigService.getIntHandle("upload.max.session.images", 1);
+    }
+
     public List<String> parseImagesJson(String imagesJson) {
         if (imagesJson == null || imagesJson.trim().isEmpty()) return new ArrayList<>();
         try {
@@ -62,11 +73,11 @@ public class CommonImageService {
     }
 
     public int getMaxItemImages() {
-        return sysConfigService.getIntConfigValue("upload.max.item.images", 5);
+        return maxItemImages.get();
     }
 
     public int getMaxSessionImages() {
-        return sysConfigService.getIntConfigValue("upload.max.session.images", 1);
+        return maxSessionImages.get();
     }
 
     public void validateMinCount(List<String> images, int minCount, String what) {
@@ -0,0 +1,276 @@
+package com.auction.service;
+
+import com.auction.entity.UserDepositAccount;
+import com.auction.util.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 保证金账户缓存服务
+ * - 本地有界缓存 + Redis缓存，按用户ID存放账户余额快照
+ * - 余额变更在事务提交后直写（本地和Redis同时更新），并通过Redis发布订阅通知其他节点淘汰本地副本
+ * - 直写发生在用户资金锁释放之前，同一用户的缓存更新顺序与数据库提交顺序一致
+ * - 出价链路上的只读余额检查直接命中本地缓存，真正的扣减仍由数据库条件更新保证
+ * - 淘汰时递增Redis中的账户版本号，未命中加载的结果只在版本号未变时写入Redis，
+ *   加载期间发生的淘汰不会被旧值覆盖回去；本地缓存同理以失效标记比较
+ */
+@Slf4j
+@Service
+public class DepositAccountCacheService implements MessageListener {
+
+    private static final String ACCOUNT_KEY_PREFIX = "deposit:account:";
+
+    /** 账户缓存版本号，每次淘汰递增 */
+    private static final String VERSION_KEY_PREFIX = "deposit:account:version:";
+
+    /** 跨节点失效通知频道，消息格式：节点ID:用户ID */
+    private static final String INVALIDATE_CHANNEL = "deposit:account:invalidate";
+
+    /** 本地缓存最大条目数 */
+    private static final int LOCAL_MAX_ENTRIES = 10000;
+
+    /** 本地缓存有效期（毫秒），失效通知丢失时的兜底 */
+    private static final long LOCAL_TTL_MILLIS = 60000;
+
+    /** Redis缓存有效期（分钟） */
+    private static final long REDIS_EXPIRE_MINUTES = 30;
+
+    /** 版本号未变且缓存为空时写入加载结果 */
+    private static final DefaultRedisScript<Long> WRITE_IF_VERSION_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end " +
+            "if redis.call('SET', KEYS[1], ARGV[2], 'NX', 'PX', ARGV[3]) then return 1 end return 0",
+            Long.class);
+
+    /** 递增版本号并删除缓存 */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) redis.call('PEXPIRE', KEYS[2], ARGV[1]) return redis.call('DEL', KEYS[1])",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 本节点标识，忽略自己发出的失效通知 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final LocalCache<Long, UserDepositAccount> localCache = new LocalCache<>(LOCAL_MAX_ENTRIES, LOCAL_TTL_MILLIS);
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 读取账户：本地缓存 -> Redis -> 数据库
+     *
+     * @param userId 用户ID
+     * @param loader 数据库加载逻辑
+     * @return 账户副本，不存在时返回null
+     */
+    public UserDepositAccount get(Long userId, Supplier<UserDepositAccount> loader) {
+        LocalCache.Entry<UserDepositAccount> entry = localCache.getEntry(userId);
+        UserDepositAccount cached = localCache.valueOf(entry);
+        if (cached != null) {
+            localHits.increment();
+            return copy(cached);
+        }
+
+        UserDepositAccount account = readRedis(userId);
+        if (account != null) {
+            redisHits.increment();
+        } else {
+            loads.increment();
+            // 先取版本号再读库：读库期间发生淘汰时版本号变化，旧值不会写入
+            String version = readVersion(userId);
+            account = loader.get();
+            if (account == null) {
+                return null;
+            }
+            if (version != null) {
+                writeRedisIfVersion(account, version);
+            }
+        }
+        // 读取期间本地条目被直写或失效时不写入
+        localCache.putIfUnchanged(userId, entry, account);
+        return copy(account);
+    }
+
+    /**
+     * 事务提交后直写最新账户快照；无事务时立即写入
+     *
+     * @param account 本事务内更新后重新读取的账户
+     */
+    public void writeThroughAfterCommit(UserDepositAccount account) {
+        if (account == null) {
+            return;
+        }
+        UserDepositAccount snapshot = copy(account);
+        afterCommit(() -> {
+            localCache.put(snapshot.getUserId(), snapshot);
+            writeRedis(snapshot);
+            publishInvalidate(snapshot.getUserId());
+        });
+    }
+
+    /**
+     * 事务提交后淘汰账户缓存（批量更新、状态变更等未重新读取账户的场景）
+     *
+     * @param userId 用户ID
+     */
+    public void evictAfterCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            localCache.invalidate(userId);
+            try {
+                stringRedisTemplate.execute(EVICT_SCRIPT, Arrays.asList(ACCOUNT_KEY_PREFIX + userId, VERSION_KEY_PREFIX + userId),
+                        String.valueOf(TimeUnit.MINUTES.toMillis(REDIS_EXPIRE_MINUTES)));
+            } catch (Exception e) {
+                log.warn("删除保证金账户缓存失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+            }
+            publishInvalidate(userId);
+        });
+    }
+
+    /**
+     * 其他节点的失效通知：只淘汰本地副本，下次读取从Redis获取
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator <= 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            localCache.invalidate(Long.valueOf(body.substring(separator + 1)));
+            invalidations.increment();
+        } catch (NumberFormatException e) {
+            log.warn("无效的保证金账户失效通知: {}", body);
+        }
+    }
+
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("localSize", localCache.size());
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private UserDepositAccount readRedis(Long userId) {
+        try {
+            Object value = redisTemplate.opsForValue().get(ACCOUNT_KEY_PREFIX + userId);
+            return value instanceof UserDepositAccount ? (UserDepositAccount) value : null;
+        } catch (Exception e) {
+            log.warn("读取保证金账户缓存失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(UserDepositAccount account) {
+        try {
+            redisTemplate.opsForValue().set(ACCOUNT_KEY_PREFIX + account.getUserId(), account,
+                    REDIS_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("写入保证金账户缓存失败: 用户ID={}, 错误: {}", account.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 读取账户缓存版本号，Redis不可用时返回null（此时不写Redis缓存）
+     */
+    private String readVersion(Long userId) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+            return version != null ? version : "0";
+        } catch (Exception e) {
+            log.warn("读取保证金账户缓存版本失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 版本号未变且缓存为空时写入（避免覆盖并发直写的更新值，也避免在淘汰之后写回旧值）
+     * 值按RedisTemplate的序列化格式写入，读取方式不变
+     */
+    @SuppressWarnings("unchecked")
+    private void writeRedisIfVersion(UserDepositAccount account, String version) {
+        try {
+            byte[] value = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(account);
+            stringRedisTemplate.execute(WRITE_IF_VERSION_SCRIPT,
+                    Arrays.asList(ACCOUNT_KEY_PREFIX + account.getUserId(), VERSION_KEY_PREFIX + account.getUserId()),
+                    version, new String(value, StandardCharsets.UTF_8),
+                    String.valueOf(TimeUnit.MINUTES.toMillis(REDIS_EXPIRE_MINUTES)));
+        } catch (Exception e) {
+            log.warn("写入保证金账户缓存失败: 用户ID={}, 错误: {}", account.getUserId(), e.getMessage());
+        }
+    }
+
+    private void publishInvalidate(Long userId) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + ":" + userId);
+        } catch (Exception e) {
+            log.warn("发布保证金账户失效通知失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    private static UserDepositAccount copy(UserDepositAccount source) {
+        UserDepositAccount target = new UserDepositAccount();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+}
@@ -0,0 +1,432 @@
+package com.auction.service;
+
+import com.auction.dto.BidHistoryEntry;
+import com.auction.entity.AuctionBid;
+import com.auction.entity.SysUser;
+import com.auction.mapper.AuctionBidMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 拍品最近出价环形缓冲
+ * - 每个正在被查看的拍品（按拍卖会+拍品）维护固定容量的无锁环形缓冲，保存最近的有效出价
+ * - 出价事务提交后追加到本节点缓冲，并通过Redis发布订阅复制到其他节点
+ * - 首次读取时从数据库加载最近一页作为种子，种子与实时追加分开存放，实时出价不会被种子挤出
+ * - 服务 JOIN_AUCTION 快照和出价记录接口的第一页，命中时不访问数据库
+ * - 只为已预热会场中的拍品创建缓冲，其他请求直接回退到数据库查询
+ * - 发布订阅最多投递一次，定时与数据库核对最大有效出价ID，不一致（丢消息或出价被作废）的缓冲丢弃后重新加载
+ * - 长时间无人读写或会场已不在直播缓存中的缓冲由定时任务清理
+ */
+@Slf4j
+@Service
+public class RecentBidService implements MessageListener {
+
+    /** 每个拍品保留的最近出价条数（与出价页面展示条数一致） */
+    public static final int CAPACITY = 50;
+
+    /** 出价复制频道，消息格式：节点ID|出价JSON */
+    private static final String APPEND_CHANNEL = "bid:recent:append";
+
+    /** 无人读写多久后清理缓冲（毫秒） */
+    private static final long IDLE_EVICT_MILLIS = 30 * 60 * 1000L;
+
+    /** 核对时每批查询的拍品数 */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private static final Comparator<BidHistoryEntry> NEWEST_FIRST = Comparator
+            .comparing(BidHistoryEntry::getBidTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(BidHistoryEntry::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    @Autowired
+    private AuctionBidArchiveService auctionBidArchiveService;
+
+    @Autowired
+    private SysUserService sysUserService;
+
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;
+
+    @Autowired
+    private AuctionBidMapper auctionBidMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 本节点标识，忽略自己发出的复制消息 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 拍卖会ID:拍品ID -> 环形缓冲 */
+    private final Map<String, BidRing> rings = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder replicated = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(APPEND_CHANNEL));
+    }
+
+    /**
+     * 出价成功（事务提交后）：追加到本节点缓冲并复制到其他节点
+     *
+     * @param bid 已保存的出价
+     */
+    public void onBidAccepted(AuctionBid bid) {
+        try {
+            SysUser user = sysUserService.getById(bid.getUserId());
+            String displayName = "未知用户";
+            if (user != null) {
+                displayName = user.getNickname() != null && !user.getNickname().trim().isEmpty()
+                        ? user.getNickname() : user.getUsername();
+            }
+            ReplicatedBid message = new ReplicatedBid();
+            message.setSessionId(bid.getSessionId());
+            message.setItemId(bid.getItemId());
+            message.setEntry(toEntry(bid, displayName));
+
+            append(message);
+            stringRedisTemplate.convertAndSend(APPEND_CHANNEL,
+                    nodeId + "|" + objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("追加最近出价失败: bidId={}, 错误: {}", bid.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取拍品最近的出价（按出价时间倒序）
+     *
+     * @param sessionId 拍卖会ID
+     * @param itemId 拍品ID
+     * @param limit 条数，超过容量时返回null
+     * @return 最近出价；缓冲正在由其他请求加载或无法提供时返回null，调用方应回退到数据库查询
+     */
+    public RecentBids getLatest(Long sessionId, Long itemId, int limit) {
+        if (limit > CAPACITY || sessionId == null || itemId == null) {
+            return null;
+        }
+        String key = key(sessionId, itemId);
+        BidRing ring = rings.get(key);
+        if (ring == null) {
+            if (!auctionLiveCacheService.isLiveItem(sessionId, itemId)) {
+                // 不在直播中的拍品不建缓冲，避免任意参数创建缓冲
+                fallbacks.increment();
+                return null;
+            }
+            BidRing created = new BidRing(sessionId, itemId);
+            ring = rings.putIfAbsent(key, created);
+            if (ring == null) {
+                ring = created;
+                if (!seed(key, ring, sessionId, itemId)) {
+                    fallbacks.increment();
+                    return null;
+                }
+            }
+        }
+        RecentBids recent = ring.latest(limit);
+        if (recent == null) {
+            fallbacks.increment();
+            return null;
+        }
+        hits.increment();
+        return recent;
+    }
+
+    /**
+     * 清理长时间无人读写的缓冲（由定时任务调用）
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        rings.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > IDLE_EVICT_MILLIS);
+    }
+
+    /**
+     * 与数据库核对（由定时任务调用）
+     * - 会场已不在直播缓存中的缓冲直接清理
+     * - 缓冲中的最大出价ID与数据库最大有效出价ID不一致时丢弃，下次读取重新加载
+     *
+     * @return 丢弃的缓冲数
+     */
+    public int reconcile() {
+        List<BidRing> seeded = new ArrayList<>();
+        for (BidRing ring : rings.values()) {
+            if (!auctionLiveCacheService.isLiveItem(ring.sessionId, ring.itemId)) {
+                rings.remove(key(ring.sessionId, ring.itemId), ring);
+            } else if (ring.seed != null) {
+                seeded.add(ring);
+            }
+        }
+
+        int dropped = 0;
+        for (int from = 0; from < seeded.size(); from += RECONCILE_BATCH_SIZE) {
+            List<BidRing> batch = seeded.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, seeded.size()));
+            List<Long> itemIds = new ArrayList<>(batch.size());
+            for (BidRing ring : batch) {
+                itemIds.add(ring.itemId);
+            }
+            Map<String, Long> maxIds = new HashMap<>();
+            for (AuctionBid max : auctionBidMapper.selectMaxValidBidIds(itemIds)) {
+                maxIds.put(key(max.getSessionId(), max.getItemId()), max.getId());
+            }
+            for (BidRing ring : batch) {
+                String key = key(ring.sessionId, ring.itemId);
+                long expected = maxIds.getOrDefault(key, 0L);
+                if (ring.maxBidId.get() != expected && rings.remove(key, ring)) {
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            reconciled.add(dropped);
+            log.info("最近出价缓冲与数据库不一致，已丢弃: {}个", dropped);
+        }
+        return dropped;
+    }
+
+    /**
+     * 其他节点复制过来的出价：只追加到本节点已存在的缓冲
+     * 本节点没有缓冲时忽略，之后首次读取会从数据库加载（出价已提交）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator <= 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            append(objectMapper.readValue(body.substring(separator + 1), ReplicatedBid.class));
+            replicated.increment();
+        } catch (Exception e) {
+            log.warn("无效的最近出价复制消息: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓冲统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("seeds", seeds.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("replicated", replicated.sum());
+        stats.put("reconciled", reconciled.sum());
+        stats.put("rings", rings.size());
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void append(ReplicatedBid message) {
+        BidRing ring = rings.get(key(message.getSessionId(), message.getItemId()));
+        if (ring != null) {
+            ring.append(message.getEntry());
+        }
+    }
+
+    /**
+     * 从数据库加载最近一页作为种子（只由创建缓冲的请求执行一次）
+     */
+    private boolean seed(String key, BidRing ring, Long sessionId, Long itemId) {
+        try {
+            List<AuctionBid> bids = auctionBidArchiveService.selectLatestItemBids(sessionId, itemId, CAPACITY);
+            Set<Long> userIds = new HashSet<>();
+            for (AuctionBid bid : bids) {
+                userIds.add(bid.getUserId());
+            }
+            Map<Long, String> names = sysUserService.getDisplayNames(userIds);
+            List<BidHistoryEntry> entries = new ArrayList<>(bids.size());
+            for (AuctionBid bid : bids) {
+                entries.add(toEntry(bid, names.getOrDefault(bid.getUserId(), "未知用户")));
+            }
+            ring.seed(Collections.unmodifiableList(entries), bids.size() < CAPACITY);
+            seeds.increment();
+            return true;
+        } catch (Exception e) {
+            rings.remove(key, ring);
+            log.warn("加载最近出价失败: sessionId={}, itemId={}, 错误: {}", sessionId, itemId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String key(Long sessionId, Long itemId) {
+        return sessionId + ":" + itemId;
+    }
+
+    private static BidHistoryEntry toEntry(AuctionBid bid, String displayName) {
+        BidHistoryEntry entry = new BidHistoryEntry();
+        entry.setId(bid.getId());
+        entry.setBidAmountYuan(bid.getBidAmountYuan());
+        // 与数据库中的秒级精度一致（其他节点转发的出价同样截断）
+        entry.setBidTime(bid.getBidTime() != null ? bid.getBidTime().truncatedTo(ChronoUnit.SECONDS) : null);
+        entry.setUsername(displayName);
+        entry.setSource(bid.getSource());
+        entry.setIsAuto(bid.getIsAuto());
+        return entry;
+    }
+
+    /**
+     * 读取结果
+     */
+    public static final class RecentBids {
+        private final List<BidHistoryEntry> entries;
+        private final boolean hasMore;
+
+        private RecentBids(List<BidHistoryEntry> entries, boolean hasMore) {
+            this.entries = entries;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * 最近出价（按出价时间倒序）
+         */
+        public List<BidHistoryEntry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * 是否还有更早的出价（需要按游标从数据库继续查询）
+         */
+        public boolean isHasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * 复制消息
+     */
+    @Data
+    public static class ReplicatedBid {
+        private Long sessionId;
+        private Long itemId;
+        private BidHistoryEntry entry;
+    }
+
+    /**
+     * 单个拍品的环形缓冲
+     * 追加时原子递增序号并写入对应槽位；读取时按序号倒序校验槽位序号，跳过尚未写完或已被覆盖的槽位
+     */
+    private static final class BidRing {
+        private final Long sessionId;
+        private final Long itemId;
+        private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(CAPACITY);
+        private final AtomicLong next = new AtomicLong();
+
+        /** 缓冲中（种子和实时追加）最大的出价ID，与数据库核对用 */
+        private final AtomicLong maxBidId = new AtomicLong();
+
+        /** 种子（数据库中较早的出价），加载完成前为null */
+        private volatile List<BidHistoryEntry> seed;
+
+        /** 种子是否已包含全部有效出价 */
+        private volatile boolean seedComplete;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private BidRing(Long sessionId, Long itemId) {
+            this.sessionId = sessionId;
+            this.itemId = itemId;
+        }
+
+        private void append(BidHistoryEntry entry) {
+            trackMaxId(entry);
+            long sequence = next.getAndIncrement();
+            slots.set((int) (sequence % CAPACITY), new Slot(sequence, entry));
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private void seed(List<BidHistoryEntry> entries, boolean complete) {
+            entries.forEach(this::trackMaxId);
+            this.seedComplete = complete;
+            this.seed = entries;
+        }
+
+        private void trackMaxId(BidHistoryEntry entry) {
+            if (entry.getId() != null) {
+                maxBidId.accumulateAndGet(entry.getId(), Math::max);
+            }
+        }
+
+        private RecentBids latest(int limit) {
+            List<BidHistoryEntry> seedEntries = seed;
+            if (seedEntries == null) {
+                return null;
+            }
+            lastAccess = System.currentTimeMillis();
+
+            long end = next.get();
+            long start = Math.max(0, end - CAPACITY);
+            List<BidHistoryEntry> merged = new ArrayList<>((int) (end - start) + seedEntries.size());
+            Set<Long> seen = new HashSet<>();
+            for (long sequence = end - 1; sequence >= start; sequence--) {
+                Slot slot = slots.get((int) (sequence % CAPACITY));
+                if (slot != null && slot.sequence == sequence && seen.add(slot.entry.getId())) {
+                    merged.add(slot.entry);
+                }
+            }
+            // 实时出价超过容量后较早的实时出价已被覆盖，种子不再连续，只用实时部分
+            boolean overwritten = end > CAPACITY;
+            if (!overwritten) {
+                for (BidHistoryEntry entry : seedEntries) {
+                    if (seen.add(entry.getId())) {
+                        merged.add(entry);
+                    }
+                }
+            }
+            merged.sort(NEWEST_FIRST);
+            boolean complete = !overwritten && seedComplete;
+            if (merged.size() < limit && !complete) {
+                // 缓冲中的条数不足以回答这次读取
+                return null;
+            }
+            // 缓冲之外还有更早的出价，或缓冲内超出本次条数
+            boolean hasMore = merged.size() > limit || !complete;
+            return new RecentBids(merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged, hasMore);
+        }
+    }
+
+    private static final class Slot {
+        private final long sequence;
+        private final BidHistoryEntry entry;
+
+        private Slot(long sequence, BidHistoryEntry entry) {
+            this.sequence = sequence;
+            this.entry = entry;
+        }
+    }
+}
@@ -5,6 +5,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -165,6 +169,49 @@ public class RedisService {
         }
     }
 
+    /**
+     * 增加拍卖实时在线连接数（WebSocket加入时调用）
+     * 
+     * @param auctionId 拍卖ID
+     * @return 当前在线连接数
+     */
+    public Long incrementAuctionOnlineCount(Long auctionId) {
+        try {
+            String key = "auction:online:" + auctionId;
+            Long count = redisTemplate.opsForValue().increment(key);
+            
+            // 设置过期时间为24小时，节点宕机未减少的计数最终随过期清除
+            redisTemplate.expire(key, 24, TimeUnit.HOURS);
+            return count;
+        } catch (Exception e) {
+            log.error("增加拍卖在线连接数失败: 拍卖ID={}, 错误: {}", auctionId, e.getMessage(), e);
+            return 0L;
+        }
+    }
+
+    /**
+     * 减少拍卖实时在线连接数（WebSocket离开或断开时调用）
+     * 
+     * @param auctionId 拍卖ID
+     * @return 当前在线连接数
+     */
+    public Long decrementAuctionOnlineCount(Long auctionId) {
+        try {
+            String key = "auction:online:" + auctionId;
+            Long count = redisTemplate.opsForValue().decrement(key);
+            
+            // 确保不会小于0
+            if (count != null && count < 0) {
+                redisTemplate.opsForValue().set(key, 0);
+                count = 0L;
+            }
+            return count;
+        } catch (Exception e) {
+            log.error("减少拍卖在线连接数失败: 拍卖ID={}, 错误: {}", auctionId, e.getMessage(), e);
+            return 0L;
+        }
+    }
+
     /**
      * 获取拍卖围观人数
      * 
@@ -182,6 +229,38 @@ public class RedisService {
         }
     }
 
+    /**
+     * 批量获取拍卖围观人数（一次MGET）
+     * 
+     * @param auctionIds 拍卖ID列表
+     * @return 拍卖ID -> 围观人数，Redis中没有计数的ID不包含在结果中
+     */
+    public Map<Long, Long> getAuctionViewCounts(List<Long> auctionIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (auctionIds == null || auctionIds.isEmpty()) {
+            return counts;
+        }
+        try {
+            List<String> keys = new ArrayList<>(auctionIds.size());
+            for (Long auctionId : auctionIds) {
+                keys.add("auction:view:" + auctionId);
+            }
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return counts;
+            }
+            for (int i = 0; i < auctionIds.size() && i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value != null) {
+                    counts.put(auctionIds.get(i), Long.valueOf(value.toString()));
+                }
+            }
+        } catch (Exception e) {
+            log.error("批量获取拍卖围观人数失败: 拍卖数={}, 错误: {}", auctionIds.size(), e.getMessage(), e);
+        }
+        return counts;
+    }
+
     /**
      * 增加用户出价次数
      * 
@@ -0,0 +1,288 @@
+package com.auction.service;
+
+import com.auction.dto.SessionDetailView;
+import com.auction.entity.AuctionItem;
+import com.auction.entity.AuctionOrder;
+import com.auction.entity.AuctionResult;
+import com.auction.entity.AuctionSession;
+import com.auction.mapper.AuctionOrderMapper;
+import com.auction.mapper.AuctionResultMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户端拍卖会详情装配服务
+ * - 拍品、拍卖结果、订单、中拍者展示名各一次批量查询，查询次数与拍品数量无关
+ * - 结果和订单按拍品ID建索引后单次遍历拍品生成详情
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class SessionDetailService {
+
+    @Autowired
+    private AuctionSessionService auctionSessionService;
+
+    @Autowired
+    private AuctionResultMapper auctionResultMapper;
+
+    @Autowired
+    private AuctionOrderMapper auctionOrderMapper;
+
+    @Autowired
+    private SysUserService sysUserService;
+
+    /**
+     * 装配拍卖会详情
+     *
+     * @param session 已校验可见的拍卖会
+     * @return 拍卖会详情
+     */
+    public SessionDetailView buildDetail(AuctionSession session) {
+        Long sessionId = session.getId();
+        SessionDetailView detail = new SessionDetailView();
+        detail.setId(sessionId);
+        detail.setSessionName(session.getSessionName());
+        detail.setDescription(session.getDescription());
+        detail.setStartTime(session.getStartTime());
+        detail.setEndTime(session.getEndTime());
+        detail.setStatus(session.getStatus());
+        detail.setCoverImage(session.getCoverImage());
+        detail.setDepositRatio(session.getDepositRatio());
+        detail.setCommissionRatio(session.getCommissionRatio());
+        detail.setTotalItems(session.getTotalItems());
+        detail.setSoldItems(session.getSoldItems());
+        detail.setViewCount(session.getViewCount());
+
+        List<AuctionItem> items = auctionSessionService.getSessionItems(sessionId);
+        boolean anyEnded = false;
+        for (AuctionItem item : items) {
+            if (isEnded(item)) {
+                anyEnded = true;
+                break;
+            }
+        }
+
+        // 只有存在已结束拍品时才需要结果、订单和中拍者
+        Map<Long, AuctionResult> resultByItem = Collections.emptyMap();
+        Map<Long, AuctionOrder> latestOrderByItem = Collections.emptyMap();
+        Map<Long, String> winnerNames = Collections.emptyMap();
+        if (anyEnded) {
+            resultByItem = loadResults(sessionId);
+            latestOrderByItem = loadLatestOrders(sessionId);
+            winnerNames = loadWinnerNames(resultByItem);
+        }
+
+        List<SessionDetailView.Item> itemViews = new ArrayList<>(items.size());
+        for (AuctionItem item : items) {
+            SessionDetailView.Item view = toItemView(item);
+            if (isEnded(item)) {
+                AuctionResult result = resultByItem.get(item.getId());
+                if (result != null) {
+                    fillSettled(view, result, winnerNames.get(result.getWinnerUserId()),
+                            latestOrderByItem.get(item.getId()));
+                } else {
+                    // 没有拍卖结果记录，但拍品状态显示已结束
+                    fillEndedWithoutResult(view, item);
+                }
+            } else {
+                fillNotEnded(view);
+            }
+            itemViews.add(view);
+        }
+        detail.setItems(itemViews);
+        return detail;
+    }
+
+    /**
+     * 判断详情是否已定型：拍卖会已结束且所有拍品都已结束（成交或流拍）
+     * 定型后的详情只随订单状态变化，可以缓存快照
+     *
+     * @param session 拍卖会（状态已按时间纠正）
+     * @param detail 装配好的详情
+     */
+    public boolean isSettled(AuctionSession session, SessionDetailView detail) {
+        if (session.getStatus() == null || session.getStatus() != 3) {
+            return false;
+        }
+        for (SessionDetailView.Item item : detail.getItems()) {
+            if (item.getAuctionResult() == null || !Boolean.TRUE.equals(item.getAuctionResult().getIsEnded())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<Long, AuctionResult> loadResults(Long sessionId) {
+        Map<Long, AuctionResult> resultByItem = new HashMap<>();
+        try {
+            for (AuctionResult result : auctionResultMapper.selectBySessionId(sessionId)) {
+                resultByItem.put(result.getItemId(), result);
+            }
+        } catch (Exception e) {
+            log.warn("查询拍卖会成交信息失败: sessionId={}, error={}", sessionId, e.getMessage());
+        }
+        return resultByItem;
+    }
+
+    /**
+     * 每个拍品取最新的一条订单（优先按updateTime，其次按createTime，最后按id）
+     */
+    private Map<Long, AuctionOrder> loadLatestOrders(Long sessionId) {
+        Map<Long, AuctionOrder> latestByItem = new HashMap<>();
+        try {
+            for (AuctionOrder order : auctionOrderMapper.selectBySessionId(sessionId)) {
+                AuctionOrder current = latestByItem.get(order.getItemId());
+                if (current == null || compareRecency(order, current) > 0) {
+                    latestByItem.put(order.getItemId(), order);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("查询拍卖会订单失败: sessionId={}, error={}", sessionId, e.getMessage());
+        }
+        return latestByItem;
+    }
+
+    private Map<Long, String> loadWinnerNames(Map<Long, AuctionResult> resultByItem) {
+        Set<Long> winnerIds = new HashSet<>();
+        for (AuctionResult result : resultByItem.values()) {
+            if (result.getWinnerUserId() != null && isSold(result)) {
+                winnerIds.add(result.getWinnerUserId());
+            }
+        }
+        try {
+            return sysUserService.getDisplayNames(winnerIds);
+        } catch (Exception e) {
+            log.warn("获取中拍者信息失败: winnerIds={}, error={}", winnerIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static SessionDetailView.Item toItemView(AuctionItem item) {
+        SessionDetailView.Item view = new SessionDetailView.Item();
+        view.setId(item.getId());
+        view.setItemName(item.getItemName());
+        view.setDescription(item.getDescription());
+        view.setItemCode(item.getItemCode());
+        view.setEstimatedPrice(item.getEstimatedPrice());
+        view.setDimensions(item.getDimensions());
+        view.setMaterial(item.getMaterial());
+        view.setStartingPrice(item.getStartingPrice());
+        view.setCurrentPrice(item.getCurrentPrice());
+        view.setImages(item.getImages());
+        view.setStatus(item.getStatus());
+        return view;
+    }
+
+    private static void fillSettled(SessionDetailView.Item view, AuctionResult result,
+                                    String winnerName, AuctionOrder latestOrder) {
+        boolean sold = isSold(result);
+        String name = sold && result.getWinnerUserId() != null ? winnerName : null;
+
+        SessionDetailView.ItemResult auctionResult = new SessionDetailView.ItemResult();
+        auctionResult.setIsEnded(true);
+        auctionResult.setHasWinner(sold);
+        auctionResult.setFinalPrice(result.getFinalPrice());
+        auctionResult.setWinnerId(result.getWinnerUserId());
+        auctionResult.setWinnerName(name);
+        auctionResult.setResultStatus(result.getResultStatus());
+        view.setAuctionResult(auctionResult);
+
+        // 履约 outcome：基于订单状态衍生最终展示
+        Integer orderStatus = latestOrder != null ? latestOrder.getStatus() : null;
+        String orderStatusText = orderStatusText(orderStatus);
+        SessionDetailView.ItemOutcome outcome = new SessionDetailView.ItemOutcome();
+        outcome.setIsEnded(true);
+        outcome.setHasWinner(sold);
+        outcome.setFinalPrice(result.getFinalPrice());
+        outcome.setWinnerId(result.getWinnerUserId());
+        outcome.setWinnerName(name);
+        outcome.setOrderStatus(orderStatus);
+        outcome.setOrderStatusText(orderStatusText);
+        // 汇总文案：若无中拍者直接流拍，否则用订单状态文本
+        outcome.setFinalOutcomeText(sold ? orderStatusText : "流拍");
+        view.setOutcome(outcome);
+    }
+
+    private static void fillEndedWithoutResult(SessionDetailView.Item view, AuctionItem item) {
+        SessionDetailView.ItemResult auctionResult = new SessionDetailView.ItemResult();
+        auctionResult.setIsEnded(true);
+        auctionResult.setHasWinner(false);
+        auctionResult.setFinalPrice(item.getCurrentPrice());
+        auctionResult.setResultStatus(item.getStatus() == 5 ? 1 : 0); // 5-已成交 6-流拍
+        view.setAuctionResult(auctionResult);
+
+        SessionDetailView.ItemOutcome outcome = new SessionDetailView.ItemOutcome();
+        outcome.setIsEnded(true);
+        outcome.setHasWinner(false);
+        outcome.setFinalPrice(item.getCurrentPrice());
+        outcome.setFinalOutcomeText("流拍");
+        view.setOutcome(outcome);
+    }
+
+    private static void fillNotEnded(SessionDetailView.Item view) {
+        SessionDetailView.ItemResult auctionResult = new SessionDetailView.ItemResult();
+        auctionResult.setIsEnded(false);
+        auctionResult.setHasWinner(false);
+        auctionResult.setFinalPrice(BigDecimal.ZERO);
+        auctionResult.setResultStatus(0);
+        view.setAuctionResult(auctionResult);
+
+        SessionDetailView.ItemOutcome outcome = new SessionDetailView.ItemOutcome();
+        outcome.setIsEnded(false);
+        outcome.setHasWinner(false);
+        outcome.setFinalPrice(BigDecimal.ZERO);
+        outcome.setFinalOutcomeText("未结束");
+        view.setOutcome(outcome);
+    }
+
+    private static String orderStatusText(Integer orderStatus) {
+        if (orderStatus == null) {
+            return "成交-待下单";
+        }
+        switch (orderStatus) {
+            case 1: return "成交-未支付";
+            case 2: return "成交-待发货";
+            case 3: return "成交-运输中";
+            case 4: return "成交-已收货";
+            case 5: return "成交-已完成";
+            case 6: return "成交-取消/违约";
+            default: return "成交-处理中";
+        }
+    }
+
+    private static int compareRecency(AuctionOrder a, AuctionOrder b) {
+        if (a.getUpdateTime() != null && b.getUpdateTime() != null) {
+            return a.getUpdateTime().compareTo(b.getUpdateTime());
+        } else if (a.getCreateTime() != null && b.getCreateTime() != null) {
+            return a.getCreateTime().compareTo(b.getCreateTime());
+        }
+        return Long.compare(a.getId() == null ? 0L : a.getId(), b.getId() == null ? 0L : b.getId());
+    }
+
+    /**
+     * 拍品已结束：5-已成交，6-流拍
+     */
+    private static boolean isEnded(AuctionItem item) {
+        return item.getStatus() != null && (item.getStatus() == 5 || item.getStatus() == 6);
+    }
+
+    private static boolean isSold(AuctionResult result) {
+        return Integer.valueOf(1).equals(result.getResultStatus());
+    }
+}
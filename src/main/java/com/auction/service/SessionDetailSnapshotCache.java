@@ -0,0 +1,227 @@
+package com.auction.service;
+
+import com.auction.util.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已结束拍卖会详情快照缓存
+ * - 已结束且全部拍品已结算的拍卖会，详情只随订单状态变化，缓存序列化后的JSON字节和ETag
+ * - 每个拍卖会在Redis维护版本号，订单状态变化、拍卖会修改时递增版本；快照按版本存放，旧版本自然过期
+ * - 读取时先取版本号，本地快照版本一致即命中，不一致再读Redis快照
+ * - 生成快照前记录版本号，写入时版本已变化则放弃写入，避免并发失效后写回旧数据
+ */
+@Slf4j
+@Service
+public class SessionDetailSnapshotCache {
+
+    private static final String VERSION_KEY_PREFIX = "session:detail:version:";
+    private static final String SNAPSHOT_KEY_PREFIX = "session:detail:snapshot:";
+
+    /** 本地缓存最大条目数 */
+    private static final int LOCAL_MAX_ENTRIES = 1000;
+
+    /** Redis快照有效期（分钟），中拍者昵称等非订单变化的兜底 */
+    private static final long SNAPSHOT_EXPIRE_MINUTES = 60;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /** 拍卖会ID -> 快照（读取时仍按版本号校验，有效期与Redis快照一致） */
+    private final LocalCache<Long, Snapshot> local =
+            new LocalCache<>(LOCAL_MAX_ENTRIES, TimeUnit.MINUTES.toMillis(SNAPSHOT_EXPIRE_MINUTES));
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 读取当前版本的快照
+     *
+     * @param sessionId 拍卖会ID
+     * @return 快照，不存在或Redis不可用时返回null
+     */
+    public Snapshot get(Long sessionId) {
+        long version = currentVersion(sessionId);
+        if (version < 0) {
+            return null;
+        }
+        Snapshot cached = local.get(sessionId);
+        if (cached != null && cached.version == version) {
+            localHits.increment();
+            return cached;
+        }
+        try {
+            String json = stringRedisTemplate.opsForValue().get(snapshotKey(sessionId, version));
+            if (json != null) {
+                Snapshot snapshot = new Snapshot(version, json.getBytes(StandardCharsets.UTF_8));
+                putLocal(sessionId, snapshot);
+                redisHits.increment();
+                return snapshot;
+            }
+        } catch (Exception e) {
+            log.warn("读取拍卖会详情快照失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 获取拍卖会详情的当前版本号（生成快照前调用）
+     *
+     * @param sessionId 拍卖会ID
+     * @return 版本号，从未失效过为0，Redis不可用时返回-1
+     */
+    public long currentVersion(Long sessionId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + sessionId);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("读取拍卖会详情版本失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+            return -1L;
+        }
+    }
+
+    /**
+     * 保存快照
+     *
+     * @param sessionId 拍卖会ID
+     * @param version 生成快照前读取的版本号
+     * @param json 序列化后的响应JSON
+     * @return 快照；版本已变化或无法缓存时返回null
+     */
+    public Snapshot put(Long sessionId, long version, byte[] json) {
+        if (version < 0 || currentVersion(sessionId) != version) {
+            return null;
+        }
+        Snapshot snapshot = new Snapshot(version, json);
+        try {
+            stringRedisTemplate.opsForValue().set(snapshotKey(sessionId, version),
+                    new String(json, StandardCharsets.UTF_8), SNAPSHOT_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("写入拍卖会详情快照失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+            return null;
+        }
+        putLocal(sessionId, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 事务提交后使拍卖会详情快照失效（递增版本号）
+     *
+     * @param sessionId 拍卖会ID
+     */
+    public void invalidateAfterCommit(Long sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        afterCommit(() -> invalidate(sessionId));
+    }
+
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("localSize", local.size());
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void invalidate(Long sessionId) {
+        local.invalidate(sessionId);
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + sessionId);
+            invalidations.increment();
+        } catch (Exception e) {
+            log.warn("递增拍卖会详情版本失败: sessionId={}, 错误: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void putLocal(Long sessionId, Snapshot snapshot) {
+        // 不用旧版本覆盖新版本：条目在读取后被其他线程替换时放弃写入
+        LocalCache.Entry<Snapshot> entry = local.getEntry(sessionId);
+        Snapshot existing = local.valueOf(entry);
+        if (existing == null || existing.version <= snapshot.version) {
+            local.putIfUnchanged(sessionId, entry, snapshot);
+        }
+    }
+
+    private static String snapshotKey(Long sessionId, long version) {
+        return SNAPSHOT_KEY_PREFIX + sessionId + ":" + version;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 详情快照：JSON字节与对应的ETag（不可变）
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final byte[] json;
+        private final String etag;
+
+        private Snapshot(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+            this.etag = "\"" + version + "-" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * 判断客户端缓存是否仍然有效
+         *
+         * @param ifNoneMatch 请求头 If-None-Match
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals(etag) || "*".equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
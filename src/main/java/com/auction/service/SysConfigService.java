@@ -1,9 +1,11 @@
 package com.auction.service;
 
 import com.auction.entity.SysConfig;
+import com.auction.util.ConfigHandle;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 系统配置服务接口
@@ -133,4 +135,38 @@ public interface SysConfigService {
      * 获取所有配置的Map形式
      */
     Map<String, String> getAllConfigsAsMap();
+
+    /**
+     * 与集群最新配置版本比对，不一致时重新加载（发布订阅通知丢失时的兜底）
+     */
+    void syncConfigVersion();
+
+    /**
+     * 获取本节点当前配置快照版本号
+     */
+    long getConfigVersion();
+
+    /**
+     * 获取配置句柄（启动时获取一次，配置变更后自动刷新）
+     *
+     * @param configKey 配置键
+     * @param defaultValue 未配置或无法解析时的默认值
+     * @param parser 原始字符串解析逻辑
+     */
+    <T> ConfigHandle<T> getHandle(String configKey, T defaultValue, Function<String, T> parser);
+
+    /**
+     * 获取整数配置句柄
+     */
+    ConfigHandle<Integer> getIntHandle(String configKey, Integer defaultValue);
+
+    /**
+     * 获取长整数配置句柄
+     */
+    ConfigHandle<Long> getLongHandle(String configKey, Long defaultValue);
+
+    /**
+     * 获取布尔配置句柄（true或1为真）
+     */
+    ConfigHandle<Boolean> getBooleanHandle(String configKey, Boolean defaultValue);
 }
@@ -0,0 +1,298 @@
+package com.auction.service;
+
+import com.auction.entity.SysUser;
+import com.auction.util.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 用户缓存服务
+ * - 两级缓存：本地有界缓存 + Redis，按用户ID存放用户信息（含类型、角色），用户名到ID另建索引
+ * - 缓存中的用户不含密码（Redis序列化本来就忽略密码，本地副本同样去掉），登录认证须直接查库
+ * - 用户信息修改、禁用、删除后由用户服务在事务提交后淘汰，并通过Redis发布订阅通知其他节点
+ * - 淘汰后延迟再淘汰一次：淘汰前已从数据库读到旧值的加载方随后写回的旧缓存会被第二次淘汰清除
+ * - 只缓存存在的用户；新注册用户第一次读取时加载
+ */
+@Slf4j
+@Service
+public class SysUserCacheService implements MessageListener {
+
+    private static final String USER_KEY_PREFIX = "user:cache:id:";
+    private static final String USERNAME_KEY_PREFIX = "user:cache:name:";
+
+    /** 跨节点失效通知频道，消息格式：节点ID:用户ID */
+    private static final String INVALIDATE_CHANNEL = "user:cache:invalidate";
+
+    /** 本地缓存最大条目数 */
+    private static final int LOCAL_MAX_ENTRIES = 10000;
+
+    /** 本地缓存有效期（毫秒），失效通知丢失时的兜底 */
+    private static final long LOCAL_TTL_MILLIS = 60000;
+
+    /** Redis缓存有效期（分钟） */
+    private static final long REDIS_EXPIRE_MINUTES = 30;
+
+    /** 第二次淘汰的延迟（毫秒），大于一次数据库加载加写缓存的耗时 */
+    private static final long DELAYED_EVICT_MILLIS = 1000;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 延迟淘汰执行线程 */
+    private final ScheduledExecutorService delayedEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-cache-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 本节点标识，忽略自己发出的失效通知 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 用户ID -> 用户（不含密码） */
+    private final LocalCache<Long, SysUser> localById = new LocalCache<>(LOCAL_MAX_ENTRIES, LOCAL_TTL_MILLIS);
+
+    /** 用户名 -> 用户ID，命中后还要校验用户的用户名一致 */
+    private final LocalCache<String, Long> localIdByName = new LocalCache<>(LOCAL_MAX_ENTRIES, LOCAL_TTL_MILLIS);
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayedEvictor.shutdownNow();
+    }
+
+    /**
+     * 按ID读取用户：本地缓存 -> Redis -> 数据库
+     * 返回的用户不含密码
+     *
+     * @param userId 用户ID
+     * @param loader 数据库加载逻辑
+     * @return 用户副本，不存在时返回null
+     */
+    public SysUser getById(Long userId, Supplier<SysUser> loader) {
+        if (userId == null) {
+            return null;
+        }
+        SysUser local = getLocal(userId);
+        if (local != null) {
+            localHits.increment();
+            return copy(local);
+        }
+
+        SysUser user = readRedis(USER_KEY_PREFIX + userId);
+        if (user != null) {
+            redisHits.increment();
+            putLocalIfAbsent(user);
+            return copy(user);
+        }
+        return load(loader);
+    }
+
+    /**
+     * 按用户名读取用户：本地索引 -> Redis索引 -> 数据库
+     * 返回的用户不含密码
+     *
+     * @param username 用户名
+     * @param loader 数据库加载逻辑
+     * @return 用户副本，不存在时返回null
+     */
+    public SysUser getByUsername(String username, Supplier<SysUser> loader) {
+        if (username == null) {
+            return null;
+        }
+        Long userId = localIdByName.get(username);
+        if (userId != null) {
+            SysUser local = getLocal(userId);
+            if (local != null && username.equals(local.getUsername())) {
+                localHits.increment();
+                return copy(local);
+            }
+        }
+
+        try {
+            Object cachedId = redisTemplate.opsForValue().get(USERNAME_KEY_PREFIX + username);
+            if (cachedId instanceof Number) {
+                SysUser user = readRedis(USER_KEY_PREFIX + ((Number) cachedId).longValue());
+                if (user != null && username.equals(user.getUsername())) {
+                    redisHits.increment();
+                    putLocalIfAbsent(user);
+                    return copy(user);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取用户名缓存失败: username={}, 错误: {}", username, e.getMessage());
+        }
+        return load(loader);
+    }
+
+    /**
+     * 淘汰用户缓存（本节点和Redis），并通知其他节点淘汰本地副本
+     * 由用户服务在事务提交后调用
+     *
+     * @param userId 用户ID
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictNow(userId);
+        try {
+            delayedEvictor.schedule(() -> evictNow(userId), DELAYED_EVICT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("安排延迟淘汰用户缓存失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    private void evictNow(Long userId) {
+        SysUser removed = removeLocal(userId);
+        try {
+            SysUser cached = readRedis(USER_KEY_PREFIX + userId);
+            String username = cached != null ? cached.getUsername() : removed != null ? removed.getUsername() : null;
+            if (username != null) {
+                redisTemplate.delete(Arrays.asList(USER_KEY_PREFIX + userId, USERNAME_KEY_PREFIX + username));
+            } else {
+                redisTemplate.delete(USER_KEY_PREFIX + userId);
+            }
+        } catch (Exception e) {
+            log.warn("删除用户缓存失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+        }
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + ":" + userId);
+        } catch (Exception e) {
+            log.warn("发布用户缓存失效通知失败: 用户ID={}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 其他节点的失效通知：只淘汰本地副本
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator <= 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            removeLocal(Long.valueOf(body.substring(separator + 1)));
+            invalidations.increment();
+        } catch (NumberFormatException e) {
+            log.warn("无效的用户缓存失效通知: {}", body);
+        }
+    }
+
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long loaded = loads.sum();
+        long total = local + redis + loaded;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", local);
+        stats.put("redisHits", redis);
+        stats.put("loads", loaded);
+        stats.put("hitRatio", total > 0 ? (double) (local + redis) / total : 0.0);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("localSize", localById.size());
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private SysUser load(Supplier<SysUser> loader) {
+        loads.increment();
+        SysUser loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        SysUser user = copy(loaded);
+        // 只在缓存为空时写入，避免覆盖并发淘汰之后的新值；淘汰前读到的旧值由延迟淘汰清除
+        try {
+            redisTemplate.opsForValue().setIfAbsent(USER_KEY_PREFIX + user.getId(), user,
+                    REDIS_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            redisTemplate.opsForValue().setIfAbsent(USERNAME_KEY_PREFIX + user.getUsername(), user.getId(),
+                    REDIS_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("写入用户缓存失败: 用户ID={}, 错误: {}", user.getId(), e.getMessage());
+        }
+        putLocalIfAbsent(user);
+        return copy(user);
+    }
+
+    private SysUser readRedis(String key) {
+        try {
+            Object value = redisTemplate.opsForValue().get(key);
+            return value instanceof SysUser ? (SysUser) value : null;
+        } catch (Exception e) {
+            log.warn("读取用户缓存失败: key={}, 错误: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private SysUser getLocal(Long userId) {
+        return localById.get(userId);
+    }
+
+    private void putLocalIfAbsent(SysUser user) {
+        LocalCache.Entry<SysUser> existing = localById.getEntry(user.getId());
+        if (localById.valueOf(existing) == null && localById.putIfUnchanged(user.getId(), existing, copy(user))) {
+            localIdByName.put(user.getUsername(), user.getId());
+        }
+    }
+
+    private SysUser removeLocal(Long userId) {
+        SysUser removed = localById.get(userId);
+        localById.invalidate(userId);
+        if (removed != null) {
+            localIdByName.invalidate(removed.getUsername());
+        }
+        return removed;
+    }
+
+    /**
+     * 返回副本，去掉密码
+     */
+    private static SysUser copy(SysUser source) {
+        SysUser target = new SysUser();
+        BeanUtils.copyProperties(source, target);
+        target.setPassword(null);
+        return target;
+    }
+}
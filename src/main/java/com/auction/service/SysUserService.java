@@ -3,7 +3,9 @@ package com.auction.service;
 import com.auction.entity.SysUser;
 import com.github.pagehelper.PageInfo;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户服务接口
@@ -30,6 +32,23 @@ public interface SysUserService {
      */
     SysUser getByUsername(String username);
 
+    /**
+     * 根据用户名查询用户（含密码，直接查库，不经过用户缓存）
+     * 仅用于登录认证
+     * 
+     * @param username 用户名
+     * @return 用户信息
+     */
+    SysUser getByUsernameWithPassword(String username);
+
+    /**
+     * 批量查询用户展示名（昵称为空时使用用户名），一次查询
+     * 
+     * @param userIds 用户ID集合
+     * @return 用户ID -> 展示名，不存在或已删除的用户不包含在结果中
+     */
+    Map<Long, String> getDisplayNames(Collection<Long> userIds);
+
     /**
      * 查询所有用户
      * 
@@ -0,0 +1,58 @@
+package com.auction.service;
+
+import com.auction.mapper.TableStatsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * 管理端列表近似总数
+ * - 键集分页不需要总数，只有调用方要求时才计算
+ * - 先按条件计数，最多数到 COUNT_CAP 条，不足上限时即为准确总数
+ * - 超过上限时：无筛选条件用表统计信息估算，有筛选条件返回上限值，均标记为非准确
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+public class TableStatsService {
+
+    /** 准确计数的上限 */
+    public static final int COUNT_CAP = 10000;
+
+    @Autowired
+    private TableStatsMapper tableStatsMapper;
+
+    /**
+     * 在分页结果中放入近似总数
+     *
+     * @param page 分页结果，写入 total 和 totalExact
+     * @param cappedCount 最多数到 COUNT_CAP 条的计数
+     * @param filtered 是否带筛选条件
+     * @param tableName 表名，无筛选且超过上限时用于估算
+     */
+    public void putApproximateTotal(Map<String, Object> page, int cappedCount, boolean filtered, String tableName) {
+        if (cappedCount < COUNT_CAP) {
+            page.put("total", cappedCount);
+            page.put("totalExact", true);
+            return;
+        }
+        long total = cappedCount;
+        if (!filtered) {
+            try {
+                Long estimated = tableStatsMapper.selectEstimatedRows(tableName);
+                if (estimated != null && estimated > total) {
+                    total = estimated;
+                }
+            } catch (Exception e) {
+                log.warn("查询表估算行数失败: table={}, 错误: {}", tableName, e.getMessage());
+            }
+        }
+        page.put("total", total);
+        page.put("totalExact", false);
+    }
+}
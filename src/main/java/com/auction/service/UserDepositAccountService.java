@@ -1,18 +1,26 @@
 package com.auction.service;
 
+import com.auction.dto.DepositUnfreezeItem;
 import com.auction.entity.UserDepositAccount;
 import com.auction.entity.UserDepositTransaction;
+import com.auction.mapper.DepositHoldMapper;
 import com.auction.mapper.UserDepositAccountMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * 用户保证金账户服务类
@@ -32,6 +40,15 @@ public class UserDepositAccountService {
     @Autowired
     private UserDepositTransactionService userDepositTransactionService;
 
+    @Autowired
+    private DepositHoldMapper depositHoldMapper;
+
+    @Autowired
+    private UserLockService userLockService;
+
+    @Autowired
+    private DepositAccountCacheService depositAccountCacheService;
+
     /**
      * 创建用户保证金账户
      */
@@ -131,26 +148,21 @@ public class UserDepositAccountService {
                 throw new RuntimeException("冻结金额必须大于0");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(userId);
-
-            // 检查可用余额是否足够
-            if (account.getAvailableAmount().compareTo(amount) < 0) {
-                throw new RuntimeException("可用保证金不足");
-            }
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
 
-            // 计算新余额
-            BigDecimal newAvailableAmount = account.getAvailableAmount().subtract(amount);
-            BigDecimal newFrozenAmount = account.getFrozenAmount().add(amount);
+            // 增量更新：可用转冻结，余额校验在同一条UPDATE中完成
+            UserDepositAccount before = getAccountByUserId(userId);
+            int updated = userDepositAccountMapper.freeze(userId, amount);
+            UserDepositAccount account = afterGuardedUpdate(userId, before, updated, "可用保证金不足", a -> {
+                a.setAvailableAmount(a.getAvailableAmount().subtract(amount));
+                a.setFrozenAmount(a.getFrozenAmount().add(amount));
+            });
 
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                account.getTotalAmount(),
-                newAvailableAmount,
-                newFrozenAmount,
-                account.getRefundedAmount()
-            );
+            // 同事务累加占用
+            if (relatedType != null && relatedId != null) {
+                depositHoldMapper.increase(userId, relatedType, relatedId, amount);
+            }
 
             // 记录交易流水
             userDepositTransactionService.createTransaction(
@@ -158,8 +170,8 @@ public class UserDepositAccountService {
                 userId,
                 3, // 冻结
                 amount,
+                account.getAvailableAmount().add(amount),
                 account.getAvailableAmount(),
-                newAvailableAmount,
                 relatedId,
                 relatedType,
                 description != null ? description : "保证金冻结"
@@ -184,26 +196,17 @@ public class UserDepositAccountService {
                 throw new RuntimeException("解冻金额必须大于0");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(userId);
-
-            // 检查冻结余额是否足够
-            if (account.getFrozenAmount().compareTo(amount) < 0) {
-                throw new RuntimeException("冻结保证金不足");
-            }
-
-            // 计算新余额
-            BigDecimal newAvailableAmount = account.getAvailableAmount().add(amount);
-            BigDecimal newFrozenAmount = account.getFrozenAmount().subtract(amount);
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
 
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                account.getTotalAmount(),
-                newAvailableAmount,
-                newFrozenAmount,
-                account.getRefundedAmount()
-            );
+            // 增量更新：冻结转可用，冻结余额校验在同一条UPDATE中完成
+            UserDepositAccount before = getAccountByUserId(userId);
+            int updated = userDepositAccountMapper.unfreeze(userId, amount);
+            UserDepositAccount account = afterGuardedUpdate(userId, before, updated, "冻结保证金不足", a -> {
+                a.setFrozenAmount(a.getFrozenAmount().subtract(amount));
+                a.setAvailableAmount(a.getAvailableAmount().add(amount));
+            });
+            releaseHold(userId, relatedType, relatedId, amount);
 
             // 记录交易流水
             userDepositTransactionService.createTransaction(
@@ -211,8 +214,8 @@ public class UserDepositAccountService {
                 userId,
                 4, // 解冻
                 amount,
+                account.getAvailableAmount().subtract(amount),
                 account.getAvailableAmount(),
-                newAvailableAmount,
                 relatedId,
                 relatedType,
                 description != null ? description : "保证金解冻"
@@ -227,6 +230,108 @@ public class UserDepositAccountService {
         }
     }
 
+    /**
+     * 批量解冻保证金（拍品结算后释放未中标用户的保证金）
+     * 一次查询加载所有账户，一条UPDATE完成余额变更，一条多值INSERT写入流水
+     * - 在独立事务中执行：失败只回滚本批，不会把调用方（结算）事务标记为只回滚，用户锁在本批提交后即释放
+     * - 金额无效、账户不存在或冻结余额不足的条目跳过并返回，其余条目照常解冻
+     * 
+     * @param items 解冻条目列表（用户ID、金额、拍品ID）
+     * @param description 流水描述
+     * @return 跳过的条目，全部解冻时为空
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<DepositUnfreezeItem> batchUnfreezeAmount(List<DepositUnfreezeItem> items, String description) {
+        List<DepositUnfreezeItem> skipped = new ArrayList<>();
+        if (items == null || items.isEmpty()) {
+            return skipped;
+        }
+        try {
+            // 汇总每个用户的解冻总额，同一用户可能出现多次
+            Map<Long, BigDecimal> userTotals = new LinkedHashMap<>();
+            List<DepositUnfreezeItem> valid = new ArrayList<>(items.size());
+            for (DepositUnfreezeItem item : items) {
+                if (item.getUserId() == null || item.getAmount() == null || item.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                    log.error("解冻金额无效，跳过: 用户ID={}, 金额={}, 拍品ID={}", item.getUserId(), item.getAmount(), item.getItemId());
+                    skipped.add(item);
+                    continue;
+                }
+                valid.add(item);
+                userTotals.merge(item.getUserId(), item.getAmount(), BigDecimal::add);
+            }
+
+            // 按分段序号顺序一次锁定所有用户，避免与其他批量操作交叉等待
+            userLockService.lockAllForTransaction(userTotals.keySet());
+
+            Map<Long, UserDepositAccount> accounts = new HashMap<>();
+            if (!userTotals.isEmpty()) {
+                for (UserDepositAccount account : userDepositAccountMapper.selectByUserIds(new ArrayList<>(userTotals.keySet()))) {
+                    accounts.put(account.getUserId(), account);
+                }
+            }
+
+            // 账户不存在或冻结余额不足的用户整体跳过，不影响其他用户
+            Map<Long, BigDecimal> accountAmounts = new LinkedHashMap<>();
+            List<DepositUnfreezeItem> accepted = new ArrayList<>(valid.size());
+            for (DepositUnfreezeItem item : valid) {
+                UserDepositAccount account = accounts.get(item.getUserId());
+                BigDecimal total = userTotals.get(item.getUserId());
+                if (account == null || account.getFrozenAmount().compareTo(total) < 0) {
+                    log.error("解冻保证金跳过: 用户ID={}, 金额={}, 拍品ID={}, 原因={}", item.getUserId(), item.getAmount(),
+                            item.getItemId(), account == null ? "账户不存在" : "冻结保证金不足");
+                    skipped.add(item);
+                    continue;
+                }
+                accepted.add(item);
+                accountAmounts.put(account.getId(), total);
+            }
+            if (accepted.isEmpty()) {
+                return skipped;
+            }
+
+            // 更新账户余额（冻结余额在更新时再次校验，防止期间被并发修改）
+            int updated = userDepositAccountMapper.batchUnfreeze(accountAmounts);
+            if (updated != accountAmounts.size()) {
+                // 无法区分是哪个账户被并发修改，整批回滚，由调用方逐个用户重试
+                throw new RuntimeException("批量解冻余额更新不完整: 预期=" + accountAmounts.size() + ", 实际=" + updated);
+            }
+            depositHoldMapper.batchDecreaseItemHolds(accepted);
+            for (Long userId : userTotals.keySet()) {
+                depositAccountCacheService.evictAfterCommit(userId);
+            }
+
+            // 记录交易流水，同一用户的多条流水按顺序累计余额
+            Map<Long, BigDecimal> runningAvailable = new HashMap<>();
+            List<UserDepositTransaction> transactions = new ArrayList<>(accepted.size());
+            for (DepositUnfreezeItem item : accepted) {
+                UserDepositAccount account = accounts.get(item.getUserId());
+                BigDecimal balanceBefore = runningAvailable.getOrDefault(item.getUserId(), account.getAvailableAmount());
+                BigDecimal balanceAfter = balanceBefore.add(item.getAmount());
+                runningAvailable.put(item.getUserId(), balanceAfter);
+
+                UserDepositTransaction transaction = new UserDepositTransaction();
+                transaction.setAccountId(account.getId());
+                transaction.setUserId(item.getUserId());
+                transaction.setTransactionType(4); // 解冻
+                transaction.setAmount(item.getAmount());
+                transaction.setBalanceBefore(balanceBefore);
+                transaction.setBalanceAfter(balanceAfter);
+                transaction.setRelatedId(item.getItemId());
+                transaction.setRelatedType("item");
+                transaction.setDescription(description != null ? description : "保证金解冻");
+                transactions.add(transaction);
+            }
+            userDepositTransactionService.batchCreateTransactions(transactions);
+
+            log.info("批量解冻保证金成功: 用户数={}, 流水数={}, 跳过={}", accountAmounts.size(), transactions.size(), skipped.size());
+            return skipped;
+
+        } catch (Exception e) {
+            log.error("批量解冻保证金失败: 条数={}, 错误: {}", items.size(), e.getMessage(), e);
+            throw new RuntimeException("批量解冻保证金失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 从可用余额中扣除金额（用于支付尾款等）
      */
@@ -237,26 +342,13 @@ public class UserDepositAccountService {
                 throw new RuntimeException("扣除金额必须大于0");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(userId);
-
-            // 检查可用余额是否足够
-            if (account.getAvailableAmount().compareTo(amount) < 0) {
-                throw new RuntimeException("可用余额不足");
-            }
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
 
-            // 计算新余额
-            BigDecimal newTotalAmount = account.getTotalAmount().subtract(amount);
-            BigDecimal newAvailableAmount = account.getAvailableAmount().subtract(amount);
-
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                newTotalAmount,
-                newAvailableAmount,
-                account.getFrozenAmount(),
-                account.getRefundedAmount()
-            );
+            // 增量更新：从可用余额扣除，余额校验在同一条UPDATE中完成
+            UserDepositAccount before = getAccountByUserId(userId);
+            int updated = userDepositAccountMapper.deductAvailable(userId, amount);
+            UserDepositAccount account = afterGuardedUpdate(userId, before, updated, "可用余额不足", deductAvailable(amount));
 
             // 记录交易流水（类型7-支付）
             userDepositTransactionService.createTransaction(
@@ -264,8 +356,8 @@ public class UserDepositAccountService {
                 userId,
                 7, // 支付
                 amount,
+                account.getAvailableAmount().add(amount),
                 account.getAvailableAmount(),
-                newAvailableAmount,
                 relatedId,
                 relatedType,
                 description != null ? description : "余额支付"
@@ -290,26 +382,17 @@ public class UserDepositAccountService {
                 throw new RuntimeException("扣除金额必须大于0");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(userId);
-
-            // 检查冻结余额是否足够
-            if (account.getFrozenAmount().compareTo(amount) < 0) {
-                throw new RuntimeException("冻结保证金不足");
-            }
-
-            // 计算新余额
-            BigDecimal newTotalAmount = account.getTotalAmount().subtract(amount);
-            BigDecimal newFrozenAmount = account.getFrozenAmount().subtract(amount);
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
 
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                newTotalAmount,
-                account.getAvailableAmount(),
-                newFrozenAmount,
-                account.getRefundedAmount()
-            );
+            // 增量更新：从冻结金额扣除，冻结余额校验在同一条UPDATE中完成
+            UserDepositAccount before = getAccountByUserId(userId);
+            int updated = userDepositAccountMapper.deductFrozen(userId, amount);
+            UserDepositAccount account = afterGuardedUpdate(userId, before, updated, "冻结保证金不足", a -> {
+                a.setTotalAmount(a.getTotalAmount().subtract(amount));
+                a.setFrozenAmount(a.getFrozenAmount().subtract(amount));
+            });
+            releaseHold(userId, relatedType, relatedId, amount);
 
             // 记录交易流水（类型5-扣除）
             userDepositTransactionService.createTransaction(
@@ -317,8 +400,8 @@ public class UserDepositAccountService {
                 userId,
                 5, // 扣除
                 amount,
+                account.getFrozenAmount().add(amount),
                 account.getFrozenAmount(),
-                newFrozenAmount,
                 relatedId,
                 relatedType,
                 description != null ? description : "保证金扣除"
@@ -343,6 +426,9 @@ public class UserDepositAccountService {
                 throw new RuntimeException("提现金额必须大于0");
             }
 
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
+
             // 获取账户
             UserDepositAccount account = getOrCreateAccount(userId);
 
@@ -392,21 +478,17 @@ public class UserDepositAccountService {
                 throw new RuntimeException("该交易不是充值申请");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(transaction.getUserId());
-
-            // 计算新余额
-            BigDecimal newTotalAmount = account.getTotalAmount().add(transaction.getAmount());
-            BigDecimal newAvailableAmount = account.getAvailableAmount().add(transaction.getAmount());
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(transaction.getUserId());
 
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                newTotalAmount,
-                newAvailableAmount,
-                account.getFrozenAmount(),
-                account.getRefundedAmount()
-            );
+            // 增量更新：充值金额计入总额和可用余额
+            UserDepositAccount before = getOrCreateAccount(transaction.getUserId());
+            BigDecimal creditAmount = transaction.getAmount();
+            int updated = userDepositAccountMapper.credit(transaction.getUserId(), creditAmount);
+            BigDecimal newAvailableAmount = afterGuardedUpdate(transaction.getUserId(), before, updated, "保证金账户不存在", a -> {
+                a.setTotalAmount(a.getTotalAmount().add(creditAmount));
+                a.setAvailableAmount(a.getAvailableAmount().add(creditAmount));
+            }).getAvailableAmount();
 
             // 更新交易状态为成功
             userDepositTransactionService.updateTransactionStatus(
@@ -446,26 +528,14 @@ public class UserDepositAccountService {
                 throw new RuntimeException("该交易不是提现申请");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(transaction.getUserId());
-
-            // 再次检查余额是否足够（防止期间余额变化）
-            if (account.getAvailableAmount().compareTo(transaction.getAmount()) < 0) {
-                throw new RuntimeException("用户可用余额不足");
-            }
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(transaction.getUserId());
 
-            // 计算新余额
-            BigDecimal newTotalAmount = account.getTotalAmount().subtract(transaction.getAmount());
-            BigDecimal newAvailableAmount = account.getAvailableAmount().subtract(transaction.getAmount());
-
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                newTotalAmount,
-                newAvailableAmount,
-                account.getFrozenAmount(),
-                account.getRefundedAmount()
-            );
+            // 增量更新：余额校验在同一条UPDATE中完成（防止期间余额变化）
+            UserDepositAccount before = getAccountByUserId(transaction.getUserId());
+            int updated = userDepositAccountMapper.deductAvailable(transaction.getUserId(), transaction.getAmount());
+            BigDecimal newAvailableAmount = afterGuardedUpdate(transaction.getUserId(), before, updated, "用户可用余额不足",
+                    deductAvailable(transaction.getAmount())).getAvailableAmount();
 
             // 更新交易状态为成功
             userDepositTransactionService.updateTransactionStatus(
@@ -530,20 +600,14 @@ public class UserDepositAccountService {
                 throw new RuntimeException("退还金额必须大于0");
             }
 
-            // 获取账户
-            UserDepositAccount account = getOrCreateAccount(userId);
-
-            // 计算新余额
-            BigDecimal newRefundedAmount = account.getRefundedAmount().add(amount);
+            // 锁定用户资金操作，事务结束后释放
+            userLockService.lockForTransaction(userId);
 
-            // 更新账户余额
-            userDepositAccountMapper.updateAmount(
-                account.getId(),
-                account.getTotalAmount(),
-                account.getAvailableAmount(),
-                account.getFrozenAmount(),
-                newRefundedAmount
-            );
+            // 增量更新：累加已退还金额
+            UserDepositAccount before = getOrCreateAccount(userId);
+            int updated = userDepositAccountMapper.addRefunded(userId, amount);
+            UserDepositAccount account = afterGuardedUpdate(userId, before, updated, "保证金账户不存在",
+                    a -> a.setRefundedAmount(a.getRefundedAmount().add(amount)));
 
             // 记录交易流水
             userDepositTransactionService.createTransaction(
@@ -551,8 +615,8 @@ public class UserDepositAccountService {
                 userId,
                 6, // 退还
                 amount,
+                account.getRefundedAmount().subtract(amount),
                 account.getRefundedAmount(),
-                newRefundedAmount,
                 relatedId,
                 relatedType,
                 description != null ? description : "保证金退还"
@@ -567,6 +631,64 @@ public class UserDepositAccountService {
         }
     }
 
+    /**
+     * 减少保证金占用（与余额变更同事务调用）
+     * 冻结按拍品记录，订单抵扣/违约扣除按订单记账时，由调用方传入拍品释放对应占用
+     */
+    public void releaseHold(Long userId, String relatedType, Long relatedId, BigDecimal amount) {
+        if (relatedType != null && relatedId != null && amount != null) {
+            depositHoldMapper.decrease(userId, relatedType, relatedId, amount);
+        }
+    }
+
+    /**
+     * 增量更新后得到变更后的账户（调用方须已持有用户资金锁，用于记录流水）
+     * - 余额校验和变更已由增量条件UPDATE完成，未更新任何行说明余额不足或账户不存在
+     * - 变更后的余额由更新前的账户加上本次增量推算，不再回查：用户锁串行了该用户的余额变更，
+     *   上一次变更提交后、释放锁之前已直写缓存，缓存中的账户即本次更新前的余额
+     * - 更新前账户缺失，或推算出负余额（缓存被未加用户锁的操作改旧）时，普通读取本事务更新后的行
+     *
+     * @param before 更新前从缓存读取的账户
+     * @param updated 增量UPDATE的更新行数
+     * @param failureMessage 未更新任何行时的错误信息
+     * @param delta 在账户副本上应用本次增量
+     */
+    private UserDepositAccount afterGuardedUpdate(Long userId, UserDepositAccount before, int updated,
+                                                  String failureMessage, Consumer<UserDepositAccount> delta) {
+        if (updated == 0) {
+            throw new RuntimeException(failureMessage);
+        }
+        UserDepositAccount account = null;
+        if (before != null) {
+            account = new UserDepositAccount();
+            BeanUtils.copyProperties(before, account);
+            delta.accept(account);
+            if (isNegative(account.getAvailableAmount()) || isNegative(account.getFrozenAmount())) {
+                account = null;
+            }
+        }
+        if (account == null) {
+            account = userDepositAccountMapper.selectByUserId(userId);
+        }
+        // 提交后直写账户缓存
+        depositAccountCacheService.writeThroughAfterCommit(account);
+        return account;
+    }
+
+    private static boolean isNegative(BigDecimal value) {
+        return value == null || value.signum() < 0;
+    }
+
+    /**
+     * 从可用余额扣除（总额同时减少）
+     */
+    private static Consumer<UserDepositAccount> deductAvailable(BigDecimal amount) {
+        return a -> {
+            a.setTotalAmount(a.getTotalAmount().subtract(amount));
+            a.setAvailableAmount(a.getAvailableAmount().subtract(amount));
+        };
+    }
+
     /**
      * 检查用户保证金余额是否足够
      * 
@@ -597,7 +719,7 @@ public class UserDepositAccountService {
      */
     public UserDepositAccount getAccountByUserId(Long userId) {
         try {
-            return userDepositAccountMapper.selectByUserId(userId);
+            return depositAccountCacheService.get(userId, () -> userDepositAccountMapper.selectByUserId(userId));
         } catch (Exception e) {
             log.error("查询用户保证金账户失败: 用户ID={}, 错误: {}", userId, e.getMessage(), e);
             return null;
@@ -607,6 +729,7 @@ public class UserDepositAccountService {
     /**
      * 查询保证金账户列表
      */
+    @Transactional(readOnly = true)
     public List<UserDepositAccount> getAccountList(UserDepositAccount account) {
         try {
             return userDepositAccountMapper.selectList(account);
@@ -639,6 +762,7 @@ public class UserDepositAccountService {
             int result = userDepositAccountMapper.updateStatus(accountId, 2);
             
             if (result > 0) {
+                depositAccountCacheService.evictAfterCommit(account.getUserId());
                 log.info("保证金账户已冻结: 账户ID={}, 用户ID={}, 原因={}", 
                     accountId, account.getUserId(), reason);
                 return true;
@@ -675,6 +799,7 @@ public class UserDepositAccountService {
             int result = userDepositAccountMapper.updateStatus(accountId, 1);
             
             if (result > 0) {
+                depositAccountCacheService.evictAfterCommit(account.getUserId());
                 log.info("保证金账户已解冻: 账户ID={}, 用户ID={}, 原因={}", 
                     accountId, account.getUserId(), reason);
                 return true;
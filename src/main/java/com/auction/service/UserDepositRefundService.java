@@ -179,6 +179,7 @@ public class UserDepositRefundService {
     /**
      * 查询退款申请列表
      */
+    @Transactional(readOnly = true)
     public List<UserDepositRefund> getRefundList(UserDepositRefund refund) {
         try {
             return userDepositRefundMapper.selectList(refund);
@@ -1,7 +1,10 @@
 package com.auction.service;
 
+import com.auction.entity.DepositHold;
 import com.auction.entity.UserDepositTransaction;
+import com.auction.mapper.DepositHoldMapper;
 import com.auction.mapper.UserDepositTransactionMapper;
+import com.auction.util.KeysetCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -10,7 +13,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -28,6 +33,12 @@ public class UserDepositTransactionService {
     @Autowired
     private UserDepositTransactionMapper userDepositTransactionMapper;
 
+    @Autowired
+    private DepositHoldMapper depositHoldMapper;
+
+    @Autowired
+    private TableStatsService tableStatsService;
+
     /**
      * 创建交易流水
      */
@@ -76,9 +87,41 @@ public class UserDepositTransactionService {
         }
     }
 
+    /**
+     * 批量创建交易流水（单条多值INSERT）
+     * 调用方需填充账户、金额、余额及关联信息，流水号、状态和时间戳在此统一生成
+     */
+    @Transactional
+    public int batchCreateTransactions(List<UserDepositTransaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return 0;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (UserDepositTransaction transaction : transactions) {
+                transaction.setTransactionNo(generateTransactionNo());
+                Integer transactionType = transaction.getTransactionType();
+                // 充值(1)和提现(2)需要审核，其他类型直接成功
+                transaction.setStatus(transactionType == 1 || transactionType == 2 ? 0 : 1);
+                transaction.setCreateTime(now);
+                transaction.setUpdateTime(now);
+                transaction.setDeleted(0);
+            }
+
+            int rows = userDepositTransactionMapper.batchInsert(transactions);
+            log.info("批量交易流水创建成功: 条数={}", rows);
+            return rows;
+
+        } catch (Exception e) {
+            log.error("批量交易流水创建失败: 条数={}, 错误: {}", transactions.size(), e.getMessage(), e);
+            throw new RuntimeException("批量交易流水创建失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 查询交易流水列表
      */
+    @Transactional(readOnly = true)
     public List<UserDepositTransaction> getTransactionList(UserDepositTransaction transaction) {
         try {
             return userDepositTransactionMapper.selectList(transaction);
@@ -88,6 +131,42 @@ public class UserDepositTransactionService {
         }
     }
 
+    /**
+     * 键集分页查询交易流水（管理端）
+     *
+     * @param query 查询条件，非空字段作为条件
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否返回近似总数
+     * @return data-流水列表，hasMore-是否还有下一页，nextCursor-下一页游标，total/totalExact-近似总数（仅 withTotal 时）
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTransactionPage(UserDepositTransaction query, String cursor, int size, boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, 200));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        try {
+            List<UserDepositTransaction> rows = userDepositTransactionMapper.selectPage(query,
+                    position != null ? position.getTime() : null,
+                    position != null ? position.getId() : null,
+                    pageSize + 1);
+            Map<String, Object> page = KeysetCursor.page(rows, pageSize,
+                    UserDepositTransaction::getCreateTime, UserDepositTransaction::getId);
+            if (withTotal) {
+                boolean filtered = query.getAccountId() != null || query.getUserId() != null
+                        || query.getTransactionType() != null || query.getRelatedId() != null
+                        || (query.getRelatedType() != null && !query.getRelatedType().isEmpty())
+                        || query.getStatus() != null;
+                tableStatsService.putApproximateTotal(page,
+                        userDepositTransactionMapper.countCapped(query, TableStatsService.COUNT_CAP),
+                        filtered, "user_deposit_transaction");
+            }
+            return page;
+        } catch (Exception e) {
+            log.error("分页查询交易流水失败: {}", e.getMessage(), e);
+            throw new RuntimeException("查询交易流水失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 根据用户ID查询交易流水
      */
@@ -201,20 +280,10 @@ public class UserDepositTransactionService {
      */
     public BigDecimal getFrozenAmountByUserAndItem(Long userId, Long itemId) {
         try {
-            UserDepositTransaction query = new UserDepositTransaction();
-            query.setUserId(userId);
-            query.setRelatedId(itemId);
-            query.setRelatedType("item");
-            query.setTransactionType(3); // 冻结类型
-            query.setStatus(1); // 成功状态
-            
-            List<UserDepositTransaction> transactions = userDepositTransactionMapper.selectList(query);
-            
-            BigDecimal totalFrozen = BigDecimal.ZERO;
-            for (UserDepositTransaction transaction : transactions) {
-                if (transaction.getAmount() != null) {
-                    totalFrozen = totalFrozen.add(transaction.getAmount());
-                }
+            // 从保证金占用表按主键读取（已扣除解冻部分）
+            BigDecimal totalFrozen = depositHoldMapper.selectAmount(userId, "item", itemId);
+            if (totalFrozen == null) {
+                totalFrozen = BigDecimal.ZERO;
             }
             
             log.info("查询用户拍品冻结保证金: userId={}, itemId={}, totalFrozen={}", userId, itemId, totalFrozen);
@@ -226,6 +295,22 @@ public class UserDepositTransactionService {
         }
     }
 
+    /**
+     * 查询拍品上所有用户的冻结保证金（用户ID -> 冻结金额，只含大于0的）
+     */
+    public Map<Long, BigDecimal> getFrozenAmountsByItem(Long itemId) {
+        Map<Long, BigDecimal> frozen = new HashMap<>();
+        try {
+            List<DepositHold> holds = depositHoldMapper.selectByRelated("item", itemId);
+            for (DepositHold hold : holds) {
+                frozen.put(hold.getUserId(), hold.getAmount());
+            }
+        } catch (Exception e) {
+            log.error("查询拍品冻结保证金失败: itemId={}, error={}", itemId, e.getMessage(), e);
+        }
+        return frozen;
+    }
+
     /**
      * 生成交易流水号
      */
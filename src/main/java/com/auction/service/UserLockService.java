@@ -0,0 +1,373 @@
+package com.auction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 用户资金操作锁服务
+ * - 本节点内使用分段锁（按用户ID取模），同一用户的资金操作串行，不同用户互不影响
+ * - 跨节点使用Redis锁（SET NX PX + 校验令牌释放）
+ * - 无竞争时各只尝试一次即获得锁；锁保持到事务结束，保证下一个操作读到已提交的数据
+ * - 同一线程可重入（出价事务内再调用冻结保证金）
+ * - 批量锁定多个用户时按分段序号顺序获取本地锁，Redis锁由一个脚本一次全部获得
+ */
+@Slf4j
+@Service
+public class UserLockService {
+
+    private static final String LOCK_KEY_PREFIX = "lock:user:money:";
+
+    /** 分段数（2的幂） */
+    private static final int STRIPES = 64;
+
+    /** 等待锁的最长时间（毫秒） */
+    private static final long WAIT_TIMEOUT_MILLIS = 3000;
+
+    /** Redis锁过期时间（毫秒），防止持有节点宕机后永久占用 */
+    private static final long REDIS_LOCK_TTL_MILLIS = 10000;
+
+    /** 仅当令牌匹配时删除，避免误删其他节点的锁 */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    /** 多个键全部空闲时一次全部加锁，否则一个都不加 */
+    private static final DefaultRedisScript<Long> ACQUIRE_ALL_SCRIPT = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do if redis.call('EXISTS', key) == 1 then return 0 end end " +
+            "for i, key in ipairs(KEYS) do redis.call('SET', key, ARGV[1], 'PX', ARGV[2]) end return 1",
+            Long.class);
+
+    /** 逐个删除令牌匹配的键 */
+    private static final DefaultRedisScript<Long> RELEASE_ALL_SCRIPT = new DefaultRedisScript<>(
+            "local n = 0 for i, key in ipairs(KEYS) do " +
+            "if redis.call('GET', key) == ARGV[1] then n = n + redis.call('DEL', key) end end return n",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /** 当前线程持有的用户锁：用户ID -> 持有的锁 */
+    private final ThreadLocal<Map<Long, HeldLock>> heldLocks = ThreadLocal.withInitial(HashMap::new);
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder fastPath = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder redisFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public UserLockService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 在当前事务中锁定用户资金操作，锁在事务结束（提交或回滚）后释放
+     * 同一线程重复锁定同一用户时直接返回
+     *
+     * @param userId 用户ID
+     */
+    public void lockForTransaction(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("用户资金锁必须在事务中使用");
+        }
+
+        Map<Long, HeldLock> held = heldLocks.get();
+        if (held.containsKey(userId)) {
+            return;
+        }
+
+        HeldLock lock = acquire(userId);
+        held.put(userId, lock);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(userId, lock);
+            }
+        });
+    }
+
+    /**
+     * 在当前事务中一次锁定多个用户，锁在事务结束后一起释放
+     * 本地锁按分段序号顺序获取，所有加锁方都按同一顺序等待，不会交叉死锁；
+     * Redis锁一次脚本调用全部获得，不再逐个用户往返
+     *
+     * @param userIds 用户ID集合（已持有的用户跳过）
+     */
+    public void lockAllForTransaction(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("用户资金锁必须在事务中使用");
+        }
+
+        Map<Long, HeldLock> held = heldLocks.get();
+        List<Long> pending = userIds.stream()
+                .filter(Objects::nonNull)
+                .filter(userId -> !held.containsKey(userId))
+                .distinct()
+                .sorted(Comparator.comparingInt(UserLockService::stripeOf).thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() == 1) {
+            lockForTransaction(pending.get(0));
+            return;
+        }
+
+        List<HeldLock> locks = acquireAll(pending);
+        for (int i = 0; i < pending.size(); i++) {
+            held.put(pending.get(i), locks.get(i));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                releaseAll(pending, locks);
+            }
+        });
+    }
+
+    /**
+     * 用户所在的本地锁分段序号（批量操作可按分段分组，每组只占用一个分段）
+     */
+    public static int stripeOf(Long userId) {
+        return Long.hashCode(userId) & (STRIPES - 1);
+    }
+
+    /**
+     * 获取锁等待统计
+     */
+    public Map<String, Object> getStatistics() {
+        long total = acquisitions.sum();
+        long waitNanos = totalWaitNanos.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acquisitions", total);
+        stats.put("fastPath", fastPath.sum());
+        stats.put("contended", contended.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("redisFailures", redisFailures.sum());
+        stats.put("avgWaitMillis", total > 0 ? waitNanos / total / 1_000_000.0 : 0.0);
+        stats.put("maxWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private HeldLock acquire(Long userId) {
+        ReentrantLock local = stripes[stripeOf(userId)];
+        String key = LOCK_KEY_PREFIX + userId;
+        String token = UUID.randomUUID().toString();
+        long start = System.nanoTime();
+
+        // 快速路径：本地锁和Redis锁都一次获得
+        if (local.tryLock()) {
+            if (tryRedisLock(key, token)) {
+                acquisitions.increment();
+                fastPath.increment();
+                return new HeldLock(local, key, token);
+            }
+        } else {
+            lockLocal(local);
+        }
+
+        // 慢速路径：已持有本地锁，等待其他节点释放Redis锁
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(WAIT_TIMEOUT_MILLIS);
+        long backoffMillis = 1;
+        try {
+            while (!tryRedisLock(key, token)) {
+                if (System.nanoTime() >= deadline) {
+                    timeouts.increment();
+                    throw new RuntimeException("账户操作繁忙，请稍后重试");
+                }
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, 20);
+            }
+        } catch (InterruptedException e) {
+            local.unlock();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待账户锁被中断");
+        } catch (RuntimeException e) {
+            local.unlock();
+            throw e;
+        }
+        recordWait(System.nanoTime() - start);
+        return new HeldLock(local, key, token);
+    }
+
+    /**
+     * 批量获取锁（用户ID已按分段序号排序）
+     * 同一分段的多个用户重入同一把本地锁，释放时逐个解锁
+     */
+    private List<HeldLock> acquireAll(List<Long> userIds) {
+        String token = UUID.randomUUID().toString();
+        List<String> keys = new ArrayList<>(userIds.size());
+        List<ReentrantLock> locked = new ArrayList<>(userIds.size());
+        long start = System.nanoTime();
+        boolean waited = false;
+        try {
+            for (Long userId : userIds) {
+                ReentrantLock local = stripes[stripeOf(userId)];
+                if (!local.tryLock()) {
+                    waited = true;
+                    lockLocal(local);
+                }
+                locked.add(local);
+                keys.add(LOCK_KEY_PREFIX + userId);
+            }
+
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(WAIT_TIMEOUT_MILLIS);
+            long backoffMillis = 1;
+            while (!tryRedisLocks(keys, token)) {
+                waited = true;
+                if (System.nanoTime() >= deadline) {
+                    timeouts.increment();
+                    throw new RuntimeException("账户操作繁忙，请稍后重试");
+                }
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, 20);
+            }
+        } catch (InterruptedException e) {
+            unlockAll(locked);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待账户锁被中断");
+        } catch (RuntimeException e) {
+            unlockAll(locked);
+            throw e;
+        }
+
+        if (waited) {
+            recordWait(System.nanoTime() - start);
+            acquisitions.add(userIds.size() - 1L);
+        } else {
+            acquisitions.add(userIds.size());
+            fastPath.increment();
+        }
+        List<HeldLock> locks = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            locks.add(new HeldLock(locked.get(i), keys.get(i), token));
+        }
+        return locks;
+    }
+
+    /**
+     * 本节点有竞争时等待分段锁
+     */
+    private void lockLocal(ReentrantLock local) {
+        try {
+            if (!local.tryLock(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new RuntimeException("账户操作繁忙，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待账户锁被中断");
+        }
+    }
+
+    private boolean tryRedisLock(String key, String token) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, token, REDIS_LOCK_TTL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            // Redis不可用时退化为本节点锁，余额正确性由数据库条件更新保证
+            redisFailures.increment();
+            log.warn("获取Redis用户锁失败，仅使用本地锁: key={}, 错误: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean tryRedisLocks(List<String> keys, String token) {
+        try {
+            Long acquired = stringRedisTemplate.execute(ACQUIRE_ALL_SCRIPT, keys, token, String.valueOf(REDIS_LOCK_TTL_MILLIS));
+            return acquired != null && acquired == 1L;
+        } catch (Exception e) {
+            redisFailures.increment();
+            log.warn("批量获取Redis用户锁失败，仅使用本地锁: keys={}, 错误: {}", keys.size(), e.getMessage());
+            return true;
+        }
+    }
+
+    private void releaseAll(List<Long> userIds, List<HeldLock> locks) {
+        Map<Long, HeldLock> held = heldLocks.get();
+        userIds.forEach(held::remove);
+        List<String> keys = new ArrayList<>(locks.size());
+        for (HeldLock lock : locks) {
+            keys.add(lock.key);
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_ALL_SCRIPT, keys, locks.get(0).token);
+        } catch (Exception e) {
+            log.warn("批量释放Redis用户锁失败，等待过期: keys={}, 错误: {}", keys.size(), e.getMessage());
+        } finally {
+            for (HeldLock lock : locks) {
+                lock.local.unlock();
+            }
+        }
+    }
+
+    private static void unlockAll(List<ReentrantLock> locked) {
+        for (ReentrantLock local : locked) {
+            local.unlock();
+        }
+    }
+
+    private void release(Long userId, HeldLock lock) {
+        heldLocks.get().remove(userId);
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lock.key), lock.token);
+        } catch (Exception e) {
+            log.warn("释放Redis用户锁失败，等待过期: key={}, 错误: {}", lock.key, e.getMessage());
+        } finally {
+            lock.local.unlock();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquisitions.increment();
+        contended.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static final class HeldLock {
+        private final ReentrantLock local;
+        private final String key;
+        private final String token;
+
+        private HeldLock(ReentrantLock local, String key, String token) {
+            this.local = local;
+            this.key = key;
+            this.token = token;
+        }
+    }
+}
@@ -68,13 +68,16 @@ public class UserNotificationService {
             notification.setRelatedType("order");
             notification.setLinkUrl("/user/orders/" + orderId);
             notification.setIsRead(0);
+            // 同一订单只发一次中标通知（发件箱重新投递时不重复）
+            notification.setDedupeKey(orderId != null ? "win:order:" + orderId : null);
             
-            int result = notificationMapper.insert(notification);
+            int result = notificationMapper.insertIfAbsent(notification);
             if (result > 0) {
                 log.info("中标通知创建成功: userId={}, orderId={}, needRecharge={}", userId, orderId, needRecharge);
-                return true;
+            } else {
+                log.info("中标通知已存在，跳过: userId={}, orderId={}", userId, orderId);
             }
-            return false;
+            return true;
         } catch (Exception e) {
             log.error("创建中标通知失败: userId={}, orderId={}, error={}", userId, orderId, e.getMessage(), e);
             return false;
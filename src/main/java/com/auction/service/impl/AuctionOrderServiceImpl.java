@@ -3,8 +3,12 @@ package com.auction.service.impl;
 import com.auction.entity.AuctionOrder;
 import com.auction.mapper.AuctionOrderMapper;
 import com.auction.service.AuctionOrderService;
+import com.auction.service.SessionDetailSnapshotCache;
 import com.auction.service.UserDepositAccountService;
 import com.auction.service.SysConfigService;
+import com.auction.service.TableStatsService;
+import com.auction.util.ConfigHandle;
+import com.auction.util.KeysetCursor;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -41,6 +46,20 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
     @Autowired
     private SysConfigService sysConfigService;
 
+    @Autowired
+    private SessionDetailSnapshotCache sessionDetailSnapshotCache;
+
+    @Autowired
+    private TableStatsService tableStatsService;
+
+    /** 订单支付超时（分钟） */
+    private ConfigHandle<Integer> payTimeoutMinutes;
+
+    @PostConstruct
+    public void initConfigHandles() {
+        payTimeoutMinutes = sysConfigService.getIntHandle("order.pay.timeout_minutes", 30);
+    }
+
     @Override
     public Long createOrder(AuctionOrder order) {
         log.debug("创建订单: {}", order.getOrderNo());
@@ -65,7 +84,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
                 order.setDeleted(0); // 未删除
             }
             
-            int result = orderMapper.insert(order);
+            int result = insertOrderRow(order);
             if (result > 0) {
                 log.info("订单创建成功: {}", order.getOrderNo());
                 return order.getId();
@@ -94,6 +113,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageInfo<AuctionOrder> getUserOrders(Long userId, Integer pageNum, Integer pageSize) {
         log.debug("获取用户订单列表: 用户ID={}, 页码={}, 大小={}", userId, pageNum, pageSize);
         PageHelper.startPage(pageNum, pageSize);
@@ -106,6 +126,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageInfo<AuctionOrder> getAllOrders(Integer pageNum, Integer pageSize) {
         log.debug("获取所有订单列表: 页码={}, 大小={}", pageNum, pageSize);
         PageHelper.startPage(pageNum, pageSize);
@@ -168,6 +189,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
                     log.error("扣除保证金失败: orderId={}, amount={}", orderId, depositAmount);
                     throw new RuntimeException("扣除保证金失败，事务将回滚");
                 }
+                depositAccountService.releaseHold(buyerId, "item", order.getItemId(), depositAmount);
                 log.info("保证金抵扣成功: userId={}, amount={}", buyerId, depositAmount);
             }
             
@@ -176,7 +198,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setPaymentTime(LocalDateTime.now());
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单支付成功: orderId={}, 尾款={}, 物流费={}, 保证金={}", 
                     orderId, balanceAmount, shippingFee, depositAmount);
@@ -195,7 +217,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
     public boolean updateOrder(AuctionOrder order) {
         try {
             order.setUpdateTime(LocalDateTime.now());
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             return result > 0;
         } catch (Exception e) {
             log.error("更新订单失败: orderId={}, error={}", order.getId(), e.getMessage(), e);
@@ -223,7 +245,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setShipTime(LocalDateTime.now());
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单发货成功: {}", orderId);
                 return true;
@@ -288,7 +310,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             
             // 注意：拒绝原因已通过审计日志记录，无需在订单表中重复存储
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("拒绝发货成功，已退款: orderId={}, buyerId={}, totalRefund={}", 
                     orderId, buyerId, totalRefund);
@@ -323,7 +345,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setReceiveTime(LocalDateTime.now());
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单确认收货成功: {}", orderId);
                 return true;
@@ -356,7 +378,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setStatus(6); // 已取消
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单取消成功: {}", orderId);
                 return true;
@@ -377,7 +399,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
      */
     public void processOverdueUnpaidOrders() {
         try {
-            Integer timeoutMinutes = sysConfigService.getIntConfigValue("order.pay.timeout_minutes", 30);
+            Integer timeoutMinutes = payTimeoutMinutes.get();
             LocalDateTime deadline = LocalDateTime.now().minusMinutes(timeoutMinutes);
 
             // 获取待支付订单（状态=0）
@@ -398,6 +420,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
                             order.getDepositAmount(), order.getOrderNo());
                         boolean deducted = depositAccountService.deductAmount(buyerId, order.getDepositAmount(), order.getId(), "order", desc);
                         if (deducted) {
+                            depositAccountService.releaseHold(buyerId, "item", order.getItemId(), order.getDepositAmount());
                             log.info("超时未支付尾款，冻结保证金已转为违约金: orderId={}, buyerId={}, 违约金={}元", 
                                 order.getId(), buyerId, order.getDepositAmount());
                         } else {
@@ -410,7 +433,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
                     // 取消订单
                     order.setStatus(6); // 已取消
                     order.setUpdateTime(LocalDateTime.now());
-                    orderMapper.update(order);
+                    updateOrderRow(order);
                     log.info("订单超时已取消，冻结金额已转为违约金: orderId={}", order.getId());
                 } catch (Exception ex) {
                     log.error("处理超时订单失败: orderId={}, err={}", order.getId(), ex.getMessage(), ex);
@@ -439,7 +462,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setStatus(6); // 已取消
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单退款成功: {}", orderId);
                 return true;
@@ -512,7 +535,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setStatus(5); // 已完成
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单完成成功: {}", orderId);
                 return true;
@@ -527,6 +550,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AuctionOrder> getOrderList(AuctionOrder order) {
         log.debug("查询订单列表");
         
@@ -538,6 +562,31 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getOrderPage(AuctionOrder query, String cursor, int size, boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, 200));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        try {
+            List<AuctionOrder> rows = orderMapper.selectPage(query,
+                    position != null ? position.getTime() : null,
+                    position != null ? position.getId() : null,
+                    pageSize + 1);
+            Map<String, Object> page = KeysetCursor.page(rows, pageSize, AuctionOrder::getCreateTime, AuctionOrder::getId);
+            if (withTotal) {
+                boolean filtered = (query.getOrderNo() != null && !query.getOrderNo().isEmpty())
+                        || query.getSessionId() != null || query.getItemId() != null
+                        || query.getBuyerId() != null || query.getSellerId() != null || query.getStatus() != null;
+                tableStatsService.putApproximateTotal(page,
+                        orderMapper.countCapped(query, TableStatsService.COUNT_CAP), filtered, "auction_order");
+            }
+            return page;
+        } catch (Exception e) {
+            log.error("分页查询订单列表时发生错误: {}", e.getMessage());
+            throw new RuntimeException("查询订单列表失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean updateOrderStatus(Long orderId, Integer status) {
         log.debug("更新订单状态: {}, 状态: {}", orderId, status);
@@ -552,7 +601,7 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             order.setStatus(status);
             order.setUpdateTime(LocalDateTime.now());
             
-            int result = orderMapper.update(order);
+            int result = updateOrderRow(order);
             if (result > 0) {
                 log.info("订单状态更新成功: {}, 状态: {}", orderId, status);
                 return true;
@@ -565,4 +614,33 @@ public class AuctionOrderServiceImpl implements AuctionOrderService {
             throw new RuntimeException("更新订单状态失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 写入订单，成功后使所属拍卖会的详情快照失效
+     */
+    private int insertOrderRow(AuctionOrder order) {
+        int rows = orderMapper.insert(order);
+        if (rows > 0) {
+            sessionDetailSnapshotCache.invalidateAfterCommit(order.getSessionId());
+        }
+        return rows;
+    }
+
+    /**
+     * 更新订单，成功后使所属拍卖会的详情快照失效（详情中的履约结果取自最新订单状态）
+     */
+    private int updateOrderRow(AuctionOrder order) {
+        int rows = orderMapper.update(order);
+        if (rows > 0) {
+            Long sessionId = order.getSessionId();
+            if (sessionId == null && order.getId() != null) {
+                AuctionOrder stored = orderMapper.selectById(order.getId());
+                sessionId = stored != null ? stored.getSessionId() : null;
+            }
+            sessionDetailSnapshotCache.invalidateAfterCommit(sessionId);
+        }
+        return rows;
+    }
+}
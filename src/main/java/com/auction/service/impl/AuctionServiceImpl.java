@@ -67,6 +67,12 @@ public class AuctionServiceImpl implements AuctionService {
     @Autowired
     private AuctionSessionService auctionSessionService;
 
+    @Autowired
+    private AuctionSessionStatsService auctionSessionStatsService;
+
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;
+
     @Override
     public boolean createAuctionItem(AuctionItem item) {
         log.debug("创建拍卖商品: {}", item.getItemName());
@@ -340,6 +346,7 @@ public class AuctionServiceImpl implements AuctionService {
                 session.setUpdateTime(LocalDateTime.now());
                 int result = auctionSessionMapper.updateById(session);
                 if (result > 0) {
+                    auctionSessionStatsService.onStatusChanged(sessionId, 2);
                     log.info("拍卖会开始成功: {}", sessionId);
                     return true;
                 }
@@ -374,6 +381,8 @@ public class AuctionServiceImpl implements AuctionService {
                 session.setUpdateTime(LocalDateTime.now());
                 int result = auctionSessionMapper.updateById(session);
                 if (result > 0) {
+                    auctionSessionStatsService.onStatusChanged(sessionId, 3);
+                    auctionLiveCacheService.evict(sessionId);
                     log.info("拍卖会结束成功: {}", sessionId);
                     return true;
                 }
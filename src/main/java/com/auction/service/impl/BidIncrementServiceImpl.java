@@ -7,14 +7,27 @@ import com.auction.mapper.AuctionSessionMapper;
 import com.auction.mapper.BidIncrementConfigMapper;
 import com.auction.mapper.BidIncrementRuleMapper;
 import com.auction.service.BidIncrementService;
+import com.auction.util.BidIncrementLadder;
+import com.auction.util.LocalCache;
+import com.auction.util.MoneyUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 加价阶梯服务实现类
@@ -25,7 +38,16 @@ import java.util.List;
  */
 @Slf4j
 @Service
-public class BidIncrementServiceImpl implements BidIncrementService {
+public class BidIncrementServiceImpl implements BidIncrementService, MessageListener {
+
+    /** 加价阶梯变更通知频道，消息内容为配置ID */
+    private static final String LADDER_INVALIDATE_CHANNEL = "bid:increment:invalidate";
+
+    /** 本地阶梯最大条目数 */
+    private static final int LADDER_MAX_ENTRIES = 1000;
+
+    /** 本地阶梯有效期（兜底：漏收失效通知时最长一小时后重新编译） */
+    private static final long LADDER_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
 
     @Autowired
     private BidIncrementConfigMapper configMapper;
@@ -36,6 +58,24 @@ public class BidIncrementServiceImpl implements BidIncrementService {
     @Autowired
     private AuctionSessionMapper auctionSessionMapper;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 编译后的加价阶梯：配置ID -> 阶梯
+     * 拍卖会开始后配置不可修改，阶梯只在配置修改或删除时失效；
+     * 失效写入失效标记，失效前开始的编译结果不会再写回
+     */
+    private final LocalCache<Long, BidIncrementLadder> ladders = new LocalCache<>(LADDER_MAX_ENTRIES, LADDER_TTL_MILLIS);
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(LADDER_INVALIDATE_CHANNEL));
+    }
+
     @Override
     @Transactional
     public Long createConfig(BidIncrementConfig config, List<BidIncrementRule> rules) {
@@ -87,6 +127,7 @@ public class BidIncrementServiceImpl implements BidIncrementService {
 
             // 删除原有规则
             ruleMapper.deleteByConfigId(config.getId());
+            evictLadderAfterCommit(config.getId());
 
             // 插入新规则
             if (rules != null && !rules.isEmpty()) {
@@ -119,6 +160,7 @@ public class BidIncrementServiceImpl implements BidIncrementService {
 
             // 删除规则
             ruleMapper.deleteByConfigId(configId);
+            evictLadderAfterCommit(configId);
 
             // 删除配置
             BidIncrementConfig config = new BidIncrementConfig();
@@ -191,9 +233,10 @@ public class BidIncrementServiceImpl implements BidIncrementService {
     @Override
     public BigDecimal getNextMinimumBid(BigDecimal currentPrice, Long configId) {
         try {
-            BidIncrementRule rule = getApplicableRule(currentPrice, configId);
-            if (rule != null) {
-                return currentPrice.add(rule.getIncrementAmount());
+            long currentFen = MoneyUtils.toFen(currentPrice);
+            long increment = getLadder(configId).incrementFor(currentFen);
+            if (increment >= 0) {
+                return MoneyUtils.toYuan(currentFen + increment);
             }
 
             // 如果没有找到适用的规则，返回当前价格+1（兜底逻辑）
@@ -208,39 +251,36 @@ public class BidIncrementServiceImpl implements BidIncrementService {
 
     @Override
     public boolean validateBidAmount(BigDecimal currentPrice, BigDecimal bidAmount, Long configId) {
+        if (configId == null) {
+            // 如果没有配置加价阶梯，默认校验通过
+            log.debug("无加价阶梯配置，默认校验通过: currentPrice={}, bidAmount={}", currentPrice, bidAmount);
+            return true;
+        }
+        long bidFen;
         try {
-            if (configId == null) {
-                // 如果没有配置加价阶梯，默认校验通过
-                log.debug("无加价阶梯配置，默认校验通过: currentPrice={}, bidAmount={}", currentPrice, bidAmount);
-                return true;
-            }
+            bidFen = MoneyUtils.toFen(bidAmount);
+        } catch (RuntimeException e) {
+            // 不足一分的出价不可能是加价幅度的整数倍
+            return false;
+        }
+        return validateBidAmount(MoneyUtils.toFen(currentPrice), bidFen, configId);
+    }
 
-            BidIncrementRule rule = getApplicableRule(currentPrice, configId);
-            if (rule == null) {
-                // 如果没有找到适用的规则，默认校验通过
-                log.warn("未找到适用的加价规则，默认校验通过: currentPrice={}, bidAmount={}", currentPrice, bidAmount);
+    @Override
+    public boolean validateBidAmount(long currentFen, long bidFen, Long configId) {
+        try {
+            if (configId == null) {
                 return true;
             }
 
-            // 出价必须高于当前价格
-            if (bidAmount.compareTo(currentPrice) <= 0) {
-                return false;
-            }
-            
-            // 出价必须是当前价格 + 加价金额的整数倍
-            BigDecimal incrementAmount = rule.getIncrementAmount();
-            BigDecimal priceDifference = bidAmount.subtract(currentPrice);
-            BigDecimal remainder = priceDifference.remainder(incrementAmount);
-            boolean isValid = remainder.compareTo(BigDecimal.ZERO) == 0;
-
-            log.debug("加价阶梯校验: currentPrice={}, bidAmount={}, incrementAmount={}, priceDifference={}, isValid={}",
-                     currentPrice, bidAmount, incrementAmount, priceDifference, isValid);
-
+            boolean isValid = getLadder(configId).isValidBid(currentFen, bidFen);
+            log.debug("加价阶梯校验: currentFen={}, bidFen={}, configId={}, isValid={}",
+                     currentFen, bidFen, configId, isValid);
             return isValid;
 
         } catch (Exception e) {
-            log.error("校验出价金额失败: currentPrice={}, bidAmount={}, configId={}",
-                     currentPrice, bidAmount, configId, e);
+            log.error("校验出价金额失败: currentFen={}, bidFen={}, configId={}",
+                     currentFen, bidFen, configId, e);
             // 出错时默认校验通过，避免影响正常业务
             return true;
         }
@@ -249,13 +289,41 @@ public class BidIncrementServiceImpl implements BidIncrementService {
     @Override
     public BidIncrementRule getApplicableRule(BigDecimal amount, Long configId) {
         try {
-            return ruleMapper.selectByAmountAndConfigId(amount, configId);
+            if (amount == null || configId == null) {
+                return null;
+            }
+            return getLadder(configId).ruleFor(MoneyUtils.toFen(amount));
         } catch (Exception e) {
             log.error("获取适用的加价规则失败: amount={}, configId={}", amount, configId, e);
             return null;
         }
     }
 
+    @Override
+    public BidIncrementLadder getLadder(Long configId) {
+        LocalCache.Entry<BidIncrementLadder> entry = ladders.getEntry(configId);
+        BidIncrementLadder ladder = ladders.valueOf(entry);
+        if (ladder == null) {
+            ladder = BidIncrementLadder.compile(ruleMapper.selectListByConfigId(configId));
+            // 编译期间配置被修改或删除时条目已变为失效标记，不写入旧阶梯（本次调用仍使用编译结果）
+            ladders.putIfUnchanged(configId, entry, ladder);
+        }
+        return ladder;
+    }
+
+    /**
+     * 其他节点修改了加价阶梯配置
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            ladders.invalidate(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无效的加价阶梯失效通知: {}", body);
+        }
+    }
+
     @Override
     public List<BidIncrementRule> getRulesByConfigId(Long configId) {
         try {
@@ -301,6 +369,24 @@ public class BidIncrementServiceImpl implements BidIncrementService {
         }
     }
 
+    /**
+     * 事务提交后淘汰本节点阶梯并通知其他节点
+     */
+    private void evictLadderAfterCommit(Long configId) {
+        ladders.invalidate(configId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ladders.invalidate(configId);
+                try {
+                    stringRedisTemplate.convertAndSend(LADDER_INVALIDATE_CHANNEL, String.valueOf(configId));
+                } catch (Exception e) {
+                    log.warn("发布加价阶梯失效通知失败: configId={}, 错误: {}", configId, e.getMessage());
+                }
+            }
+        });
+    }
+
     /**
      * 检查拍卖会是否已开始（进行中状态）
      *
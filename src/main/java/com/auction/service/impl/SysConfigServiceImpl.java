@@ -3,21 +3,32 @@ package com.auction.service.impl;
 import com.auction.entity.SysConfig;
 import com.auction.mapper.SysConfigMapper;
 import com.auction.service.SysConfigService;
+import com.auction.util.ConfigHandle;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * 系统配置服务实现类
+ * 配置以不可变快照形式缓存在内存中，类型值在加载时预解析
+ * 变更后版本号自增并通过Redis发布订阅通知所有节点整体替换快照
  * 
  * @author auction-system
  * @version 1.0.0
@@ -25,45 +36,47 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 @Service
-public class SysConfigServiceImpl implements SysConfigService {
+public class SysConfigServiceImpl implements SysConfigService, MessageListener {
+
+    /** 配置版本号（每次变更自增），用于各节点判断本地快照是否过期 */
+    private static final String CONFIG_VERSION_KEY = "sys:config:version";
+
+    /** 配置变更通知频道，消息格式：节点ID:版本号 */
+    private static final String CONFIG_CHANGED_CHANNEL = "sys:config:changed";
     
     @Autowired
     private SysConfigMapper sysConfigMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 本节点标识，忽略自己发出的变更通知 */
+    private final String nodeId = UUID.randomUUID().toString();
     
-    // 配置缓存
-    private final Map<String, String> configCache = new ConcurrentHashMap<>();
+    /** 当前配置快照（不可变，变更时整体替换） */
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+
+    /** 已发放的配置句柄，快照替换后逐个刷新 */
+    private final List<ConfigHandle<?>> handles = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CONFIG_CHANGED_CHANNEL));
+        loadSnapshot(readRemoteVersion());
+    }
     
     @Override
-    @Cacheable(value = "config", key = "#configKey")
     public String getConfigValue(String configKey) {
         return getConfigValue(configKey, null);
     }
     
     @Override
     public String getConfigValue(String configKey, String defaultValue) {
-        if (!StringUtils.hasText(configKey)) {
-            return defaultValue;
-        }
-        
-        // 先从缓存获取
-        String cachedValue = configCache.get(configKey);
-        if (cachedValue != null) {
-            return cachedValue;
-        }
-        
-        // 从数据库获取
-        try {
-            SysConfig config = sysConfigMapper.selectByKey(configKey);
-            if (config != null) {
-                String value = config.getConfigValue();
-                configCache.put(configKey, value);
-                return value;
-            }
-        } catch (Exception e) {
-            log.error("获取配置失败: configKey={}, error={}", configKey, e.getMessage(), e);
-        }
-        
-        return defaultValue;
+        ConfigValue value = lookup(configKey);
+        return value != null && value.raw != null ? value.raw : defaultValue;
     }
     
     @Override
@@ -73,15 +86,15 @@ public class SysConfigServiceImpl implements SysConfigService {
     
     @Override
     public Integer getIntConfigValue(String configKey, Integer defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                log.warn("配置值不是有效的整数: configKey={}, value={}", configKey, value);
-            }
+        ConfigValue value = lookup(configKey);
+        if (value == null || !value.hasText) {
+            return defaultValue;
         }
-        return defaultValue;
+        if (value.intValue == null) {
+            log.warn("配置值不是有效的整数: configKey={}, value={}", configKey, value.raw);
+            return defaultValue;
+        }
+        return value.intValue;
     }
     
     @Override
@@ -91,15 +104,15 @@ public class SysConfigServiceImpl implements SysConfigService {
     
     @Override
     public Long getLongConfigValue(String configKey, Long defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            try {
-                return Long.parseLong(value);
-            } catch (NumberFormatException e) {
-                log.warn("配置值不是有效的长整数: configKey={}, value={}", configKey, value);
-            }
+        ConfigValue value = lookup(configKey);
+        if (value == null || !value.hasText) {
+            return defaultValue;
+        }
+        if (value.longValue == null) {
+            log.warn("配置值不是有效的长整数: configKey={}, value={}", configKey, value.raw);
+            return defaultValue;
         }
-        return defaultValue;
+        return value.longValue;
     }
     
     @Override
@@ -109,11 +122,11 @@ public class SysConfigServiceImpl implements SysConfigService {
     
     @Override
     public Boolean getBooleanConfigValue(String configKey, Boolean defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            return "true".equalsIgnoreCase(value) || "1".equals(value);
+        ConfigValue value = lookup(configKey);
+        if (value == null || !value.hasText) {
+            return defaultValue;
         }
-        return defaultValue;
+        return value.booleanValue;
     }
     
     @Override
@@ -123,37 +136,23 @@ public class SysConfigServiceImpl implements SysConfigService {
     
     @Override
     public Double getDoubleConfigValue(String configKey, Double defaultValue) {
-        String value = getConfigValue(configKey);
-        if (StringUtils.hasText(value)) {
-            try {
-                return Double.parseDouble(value);
-            } catch (NumberFormatException e) {
-                log.warn("配置值不是有效的浮点数: configKey={}, value={}", configKey, value);
-            }
+        ConfigValue value = lookup(configKey);
+        if (value == null || !value.hasText) {
+            return defaultValue;
         }
-        return defaultValue;
+        if (value.doubleValue == null) {
+            log.warn("配置值不是有效的浮点数: configKey={}, value={}", configKey, value.raw);
+            return defaultValue;
+        }
+        return value.doubleValue;
     }
     
     @Override
-    @CacheEvict(value = "config", key = "#configKey")
     public boolean setConfigValue(String configKey, String configValue) {
-        if (!StringUtils.hasText(configKey)) {
-            return false;
-        }
-        
-        try {
-            // 更新数据库
-            int result = sysConfigMapper.updateValueByKey(configKey, configValue);
-            if (result > 0) {
-                // 更新缓存
-                configCache.put(configKey, configValue);
-                log.info("配置更新成功: configKey={}, configValue={}", configKey, configValue);
-                return true;
-            }
-        } catch (Exception e) {
-            log.error("设置配置失败: configKey={}, configValue={}, error={}", configKey, configValue, e.getMessage(), e);
+        if (updateValue(configKey, configValue)) {
+            publishChange();
+            return true;
         }
-        
         return false;
     }
     
@@ -232,8 +231,7 @@ public class SysConfigServiceImpl implements SysConfigService {
             
             int result = sysConfigMapper.insert(config);
             if (result > 0) {
-                // 更新缓存
-                configCache.put(config.getConfigKey(), config.getConfigValue());
+                publishChange();
                 log.info("配置创建成功: configKey={}", config.getConfigKey());
                 return true;
             }
@@ -255,8 +253,7 @@ public class SysConfigServiceImpl implements SysConfigService {
             
             int result = sysConfigMapper.update(config);
             if (result > 0) {
-                // 更新缓存
-                configCache.put(config.getConfigKey(), config.getConfigValue());
+                publishChange();
                 log.info("配置更新成功: configKey={}", config.getConfigKey());
                 return true;
             }
@@ -278,10 +275,7 @@ public class SysConfigServiceImpl implements SysConfigService {
             
             int result = sysConfigMapper.updateById(config);
             if (result > 0) {
-                // 更新缓存
-                if (StringUtils.hasText(config.getConfigKey())) {
-                    configCache.put(config.getConfigKey(), config.getConfigValue());
-                }
+                publishChange();
                 log.info("配置更新成功: id={}", config.getId());
                 return true;
             }
@@ -301,6 +295,7 @@ public class SysConfigServiceImpl implements SysConfigService {
         try {
             int result = sysConfigMapper.deleteById(id);
             if (result > 0) {
+                publishChange();
                 log.info("配置删除成功: id={}", id);
                 return true;
             }
@@ -320,8 +315,7 @@ public class SysConfigServiceImpl implements SysConfigService {
         try {
             int result = sysConfigMapper.deleteByKey(configKey);
             if (result > 0) {
-                // 清除缓存
-                configCache.remove(configKey);
+                publishChange();
                 log.info("配置删除成功: configKey={}", configKey);
                 return true;
             }
@@ -340,8 +334,10 @@ public class SysConfigServiceImpl implements SysConfigService {
         
         try {
             for (Map.Entry<String, String> entry : configs.entrySet()) {
-                setConfigValue(entry.getKey(), entry.getValue());
+                updateValue(entry.getKey(), entry.getValue());
             }
+            // 整批只发布一次变更
+            publishChange();
             log.info("批量更新配置成功: count={}", configs.size());
             return true;
         } catch (Exception e) {
@@ -352,28 +348,232 @@ public class SysConfigServiceImpl implements SysConfigService {
     
     @Override
     public void reloadConfigCache() {
+        // 手动重新加载同样通知所有节点
+        publishChange();
+    }
+    
+    @Override
+    public Map<String, String> getAllConfigsAsMap() {
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, ConfigValue> entry : currentSnapshot().values.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().raw);
+        }
+        return result;
+    }
+
+    @Override
+    public void syncConfigVersion() {
+        long remoteVersion = readRemoteVersion();
+        if (remoteVersion >= 0 && remoteVersion != snapshot.version) {
+            log.info("配置版本不一致，重新加载: 本地={}, 最新={}", snapshot.version, remoteVersion);
+            loadSnapshot(remoteVersion);
+        }
+    }
+
+    @Override
+    public long getConfigVersion() {
+        return snapshot.version;
+    }
+
+    @Override
+    public <T> ConfigHandle<T> getHandle(String configKey, T defaultValue, Function<String, T> parser) {
+        ConfigHandle<T> handle = new ConfigHandle<>(configKey, defaultValue, parser);
+        handles.add(handle);
+        ConfigValue value = lookup(configKey);
+        handle.refresh(value != null ? value.raw : null);
+        return handle;
+    }
+
+    @Override
+    public ConfigHandle<Integer> getIntHandle(String configKey, Integer defaultValue) {
+        return getHandle(configKey, defaultValue, Integer::valueOf);
+    }
+
+    @Override
+    public ConfigHandle<Long> getLongHandle(String configKey, Long defaultValue) {
+        return getHandle(configKey, defaultValue, Long::valueOf);
+    }
+
+    @Override
+    public ConfigHandle<Boolean> getBooleanHandle(String configKey, Boolean defaultValue) {
+        return getHandle(configKey, defaultValue, raw -> "true".equalsIgnoreCase(raw) || "1".equals(raw));
+    }
+
+    /**
+     * 其他节点发布的配置变更：版本号比本地新时重新加载
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator <= 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            long version = Long.parseLong(body.substring(separator + 1));
+            if (version > snapshot.version) {
+                loadSnapshot(version);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("无效的配置变更通知: {}", body);
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private ConfigValue lookup(String configKey) {
+        if (!StringUtils.hasText(configKey)) {
+            return null;
+        }
+        return currentSnapshot().values.get(configKey);
+    }
+
+    /**
+     * 启动时数据库不可用会得到未加载的空快照，此时在读取时补加载
+     */
+    private ConfigSnapshot currentSnapshot() {
+        ConfigSnapshot current = snapshot;
+        if (!current.loaded) {
+            loadSnapshot(readRemoteVersion());
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * 只更新数据库，不发布变更
+     */
+    private boolean updateValue(String configKey, String configValue) {
+        if (!StringUtils.hasText(configKey)) {
+            return false;
+        }
+        
+        try {
+            // 更新数据库
+            int result = sysConfigMapper.updateValueByKey(configKey, configValue);
+            if (result > 0) {
+                log.info("配置更新成功: configKey={}, configValue={}", configKey, configValue);
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("设置配置失败: configKey={}, configValue={}, error={}", configKey, configValue, e.getMessage(), e);
+        }
+        
+        return false;
+    }
+
+    /**
+     * 配置变更后：版本号自增，本节点立即重新加载，再通知其他节点
+     */
+    private void publishChange() {
+        long version;
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(CONFIG_VERSION_KEY);
+            version = next != null ? next : snapshot.version;
+        } catch (Exception e) {
+            log.warn("更新配置版本号失败，仅重新加载本节点: 错误: {}", e.getMessage());
+            loadSnapshot(snapshot.version);
+            return;
+        }
+        loadSnapshot(version);
+        try {
+            stringRedisTemplate.convertAndSend(CONFIG_CHANGED_CHANNEL, nodeId + ":" + version);
+        } catch (Exception e) {
+            log.warn("发布配置变更通知失败: version={}, 错误: {}", version, e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库加载全部配置并替换快照；同时加载时保留版本号较新的结果
+     */
+    private synchronized void loadSnapshot(long version) {
         try {
-            configCache.clear();
             List<SysConfig> configs = sysConfigMapper.selectAll();
+            Map<String, ConfigValue> values = new HashMap<>(configs.size() * 2);
             for (SysConfig config : configs) {
-                configCache.put(config.getConfigKey(), config.getConfigValue());
+                values.put(config.getConfigKey(), new ConfigValue(config.getConfigValue()));
             }
-            log.info("配置缓存重新加载成功: count={}", configs.size());
+            long newVersion = Math.max(version, snapshot.version);
+            snapshot = new ConfigSnapshot(newVersion, Collections.unmodifiableMap(values), true);
+            for (ConfigHandle<?> handle : handles) {
+                ConfigValue value = values.get(handle.getKey());
+                handle.refresh(value != null ? value.raw : null);
+            }
+            log.info("配置快照加载成功: version={}, count={}", newVersion, configs.size());
         } catch (Exception e) {
-            log.error("重新加载配置缓存失败: error={}", e.getMessage(), e);
+            log.error("加载配置快照失败: error={}", e.getMessage(), e);
         }
     }
-    
-    @Override
-    public Map<String, String> getAllConfigsAsMap() {
+
+    private long readRemoteVersion() {
         try {
-            if (configCache.isEmpty()) {
-                reloadConfigCache();
-            }
-            return new HashMap<>(configCache);
+            String value = stringRedisTemplate.opsForValue().get(CONFIG_VERSION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
         } catch (Exception e) {
-            log.error("获取所有配置Map失败: error={}", e.getMessage(), e);
-            return new HashMap<>();
+            log.warn("读取配置版本号失败: 错误: {}", e.getMessage());
+            return -1L;
+        }
+    }
+
+    /**
+     * 配置快照：版本号 + 不可变的配置表
+     */
+    private static final class ConfigSnapshot {
+        private static final ConfigSnapshot EMPTY = new ConfigSnapshot(-1L, Collections.emptyMap(), false);
+
+        private final long version;
+        private final Map<String, ConfigValue> values;
+        private final boolean loaded;
+
+        private ConfigSnapshot(long version, Map<String, ConfigValue> values, boolean loaded) {
+            this.version = version;
+            this.values = values;
+            this.loaded = loaded;
+        }
+    }
+
+    /**
+     * 配置值：原始字符串及加载时预解析的各类型值（无法解析时为null）
+     */
+    private static final class ConfigValue {
+        private final String raw;
+        private final boolean hasText;
+        private final Integer intValue;
+        private final Long longValue;
+        private final Double doubleValue;
+        private final Boolean booleanValue;
+
+        private ConfigValue(String raw) {
+            this.raw = raw;
+            this.hasText = StringUtils.hasText(raw);
+            this.intValue = hasText ? parseInt(raw) : null;
+            this.longValue = hasText ? parseLong(raw) : null;
+            this.doubleValue = hasText ? parseDouble(raw) : null;
+            this.booleanValue = hasText && ("true".equalsIgnoreCase(raw) || "1".equals(raw));
+        }
+
+        private static Integer parseInt(String raw) {
+            try {
+                return Integer.parseInt(raw);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Long parseLong(String raw) {
+            try {
+                return Long.parseLong(raw);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Double parseDouble(String raw) {
+            try {
+                return Double.parseDouble(raw);
+            } catch (NumberFormatException e) {
+                return null;
+            }
         }
     }
     
@@ -2,6 +2,8 @@ package com.auction.service.impl;
 
 import com.auction.entity.SysUser;
 import com.auction.mapper.SysUserMapper;
+import com.auction.security.JwtAuthenticationCache;
+import com.auction.service.SysUserCacheService;
 import com.auction.service.SysUserService;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
@@ -10,9 +12,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户服务实现类
@@ -32,18 +41,43 @@ public class SysUserServiceImpl implements SysUserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
+    @Autowired
+    private SysUserCacheService sysUserCacheService;
+
     @Override
     public SysUser getById(Long id) {
         log.debug("根据ID查询用户: {}", id);
-        return sysUserMapper.selectById(id);
+        return sysUserCacheService.getById(id, () -> sysUserMapper.selectById(id));
     }
 
     @Override
     public SysUser getByUsername(String username) {
         log.debug("根据用户名查询用户: {}", username);
+        return sysUserCacheService.getByUsername(username, () -> sysUserMapper.selectByUsername(username));
+    }
+
+    @Override
+    public SysUser getByUsernameWithPassword(String username) {
+        log.debug("根据用户名查询用户凭据: {}", username);
         return sysUserMapper.selectByUsername(username);
     }
 
+    @Override
+    public Map<Long, String> getDisplayNames(Collection<Long> userIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return names;
+        }
+        for (SysUser user : sysUserMapper.selectDisplayNamesByIds(new ArrayList<>(new HashSet<>(userIds)))) {
+            String nickname = user.getNickname();
+            names.put(user.getId(), nickname != null && !nickname.trim().isEmpty() ? nickname : user.getUsername());
+        }
+        return names;
+    }
+
     @Override
     public List<SysUser> getAll() {
         log.debug("查询所有用户");
@@ -108,6 +142,8 @@ public class SysUserServiceImpl implements SysUserService {
             user.setUpdateTime(LocalDateTime.now());
             int result = sysUserMapper.updateById(user);
             if (result > 0) {
+                // 状态、类型等可能变化，用户缓存和已缓存的认证结果失效
+                invalidateAfterCommit(user.getId());
                 log.info("用户更新成功: {}", user.getId());
                 return true;
             } else {
@@ -126,6 +162,7 @@ public class SysUserServiceImpl implements SysUserService {
         try {
             int result = sysUserMapper.deleteById(id);
             if (result > 0) {
+                invalidateAfterCommit(id);
                 log.info("用户删除成功: {}", id);
                 return true;
             } else {
@@ -172,6 +209,7 @@ public class SysUserServiceImpl implements SysUserService {
             
             int result = sysUserMapper.updateById(user);
             if (result > 0) {
+                invalidateAfterCommit(userId);
                 log.info("用户密码更新成功: {}", userId);
                 return true;
             } else {
@@ -196,6 +234,8 @@ public class SysUserServiceImpl implements SysUserService {
             
             int result = sysUserMapper.updateById(user);
             if (result > 0) {
+                // 只影响展示信息，认证结果无需失效
+                afterCommit(() -> sysUserCacheService.evict(userId));
                 log.info("用户最后登录时间更新成功: {}", userId);
                 return true;
             } else {
@@ -222,4 +262,30 @@ public class SysUserServiceImpl implements SysUserService {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 事务提交后失效用户缓存和认证缓存
+     */
+    private void invalidateAfterCommit(Long userId) {
+        afterCommit(() -> {
+            sysUserCacheService.evict(userId);
+            jwtAuthenticationCache.invalidateUser(userId);
+        });
+    }
+
+    /**
+     * 在当前事务提交后执行（无事务时立即执行）
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
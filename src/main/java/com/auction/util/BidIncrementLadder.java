@@ -0,0 +1,178 @@
+package com.auction.util;
+
+import com.auction.entity.BidIncrementRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 编译后的加价阶梯（不可变）
+ * 把一个配置下的规则展开为按金额升序、互不重叠的区间，金额统一用分（long）表示
+ * 规则区间重叠时按规则列表顺序（sort_order, id）取第一条，与原SQL查询语义一致
+ * 查找适用规则为一次二分查找，不分配对象
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class BidIncrementLadder {
+
+    /** 空阶梯：任何金额都没有适用规则 */
+    public static final BidIncrementLadder EMPTY = new BidIncrementLadder(
+            new long[0], new long[0], new long[0], new BidIncrementRule[0]);
+
+    /** 区间起点（含），单位：分 */
+    private final long[] starts;
+
+    /** 区间终点（不含），无上限为 Long.MAX_VALUE */
+    private final long[] ends;
+
+    /** 区间加价幅度，单位：分 */
+    private final long[] increments;
+
+    /** 区间对应的原始规则 */
+    private final BidIncrementRule[] rules;
+
+    private BidIncrementLadder(long[] starts, long[] ends, long[] increments, BidIncrementRule[] rules) {
+        this.starts = starts;
+        this.ends = ends;
+        this.increments = increments;
+        this.rules = rules;
+    }
+
+    /**
+     * 编译规则列表
+     *
+     * @param orderedRules 按 sort_order, id 排序的规则
+     * @return 编译后的阶梯
+     */
+    public static BidIncrementLadder compile(List<BidIncrementRule> orderedRules) {
+        if (orderedRules == null || orderedRules.isEmpty()) {
+            return EMPTY;
+        }
+
+        // 所有规则边界把金额轴切成若干基本区间，每个基本区间内适用的规则相同
+        TreeSet<Long> boundaries = new TreeSet<>();
+        for (BidIncrementRule rule : orderedRules) {
+            boundaries.add(minOf(rule));
+            boundaries.add(maxOf(rule));
+        }
+        Long[] points = boundaries.toArray(new Long[0]);
+
+        List<long[]> segments = new ArrayList<>();
+        List<BidIncrementRule> segmentRules = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            long start = points[i];
+            long end = i + 1 < points.length ? points[i + 1] : Long.MAX_VALUE;
+            if (start == Long.MAX_VALUE) {
+                break;
+            }
+            BidIncrementRule winner = null;
+            for (BidIncrementRule rule : orderedRules) {
+                if (minOf(rule) <= start && maxOf(rule) >= end) {
+                    winner = rule;
+                    break;
+                }
+            }
+            if (winner == null) {
+                continue;
+            }
+            // 与前一个区间相邻且规则相同时合并
+            int last = segments.size() - 1;
+            if (last >= 0 && segmentRules.get(last) == winner && segments.get(last)[1] == start) {
+                segments.get(last)[1] = end;
+            } else {
+                segments.add(new long[]{start, end});
+                segmentRules.add(winner);
+            }
+        }
+
+        int size = segments.size();
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        long[] increments = new long[size];
+        BidIncrementRule[] rules = new BidIncrementRule[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = segments.get(i)[0];
+            ends[i] = segments.get(i)[1];
+            rules[i] = segmentRules.get(i);
+            increments[i] = rules[i].getIncrementAmount() != null ? MoneyUtils.toFen(rules[i].getIncrementAmount()) : 0L;
+        }
+        return new BidIncrementLadder(starts, ends, increments, rules);
+    }
+
+    /**
+     * 查找金额适用的规则
+     *
+     * @param amountFen 金额（分）
+     * @return 适用的规则，没有时返回null
+     */
+    public BidIncrementRule ruleFor(long amountFen) {
+        int index = indexOf(amountFen);
+        return index >= 0 ? rules[index] : null;
+    }
+
+    /**
+     * 查找金额适用的加价幅度
+     *
+     * @param amountFen 金额（分）
+     * @return 加价幅度（分），没有适用规则时返回 -1
+     */
+    public long incrementFor(long amountFen) {
+        int index = indexOf(amountFen);
+        return index >= 0 ? increments[index] : -1L;
+    }
+
+    /**
+     * 校验出价：必须高于当前价，且差额为当前价适用加价幅度的整数倍
+     * 没有适用规则或加价幅度未配置时不限制
+     *
+     * @param currentFen 当前价（分）
+     * @param bidFen 出价（分）
+     * @return 是否符合阶梯
+     */
+    public boolean isValidBid(long currentFen, long bidFen) {
+        long increment = incrementFor(currentFen);
+        if (increment < 0) {
+            return true;
+        }
+        if (bidFen <= currentFen) {
+            return false;
+        }
+        return increment == 0 || (bidFen - currentFen) % increment == 0;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 二分查找起点不大于金额的最后一个区间，再校验终点
+     */
+    private int indexOf(long amountFen) {
+        int low = 0;
+        int high = starts.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= amountFen) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found >= 0 && amountFen < ends[found] ? found : -1;
+    }
+
+    private static long minOf(BidIncrementRule rule) {
+        return rule.getMinAmount() != null ? MoneyUtils.toFen(rule.getMinAmount()) : Long.MIN_VALUE;
+    }
+
+    private static long maxOf(BidIncrementRule rule) {
+        return rule.getMaxAmount() != null ? MoneyUtils.toFen(rule.getMaxAmount()) : Long.MAX_VALUE;
+    }
+}
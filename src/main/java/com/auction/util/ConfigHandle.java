@@ -0,0 +1,64 @@
+package com.auction.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.util.function.Function;
+
+/**
+ * 系统配置句柄
+ * 在启动时按配置键获取一次，解析后的值保存在volatile字段中，配置变更时由配置服务刷新
+ * 热点路径读取配置只需一次字段读取，不再按字符串键查找和解析
+ *
+ * @param <T> 配置值类型
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Slf4j
+public final class ConfigHandle<T> {
+
+    private final String key;
+
+    private final T defaultValue;
+
+    private final Function<String, T> parser;
+
+    private volatile T value;
+
+    public ConfigHandle(String key, T defaultValue, Function<String, T> parser) {
+        this.key = key;
+        this.defaultValue = defaultValue;
+        this.parser = parser;
+        this.value = defaultValue;
+    }
+
+    /**
+     * 获取当前配置值（未配置或无法解析时为默认值）
+     */
+    public T get() {
+        return value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 使用最新的配置原始值刷新（由配置服务在快照替换后调用）
+     *
+     * @param raw 配置原始值，不存在时为null
+     */
+    public void refresh(String raw) {
+        if (!StringUtils.hasText(raw)) {
+            value = defaultValue;
+            return;
+        }
+        try {
+            value = parser.apply(raw.trim());
+        } catch (RuntimeException e) {
+            log.warn("配置值无法解析，使用默认值: configKey={}, value={}, default={}", key, raw, defaultValue);
+            value = defaultValue;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.auction.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 键集分页游标
+ * 由排序时间和ID组成，对外编码为不透明的 URL 安全字符串，客户端只需原样回传
+ * 查询条件：time &lt; cursor.time OR (time = cursor.time AND id &lt; cursor.id)，排序：time DESC, id DESC
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class KeysetCursor {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final LocalDateTime time;
+
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param time 排序时间
+     * @param id 记录ID
+     * @return 不透明游标字符串
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        if (time == null || id == null) {
+            return null;
+        }
+        long epochMilli = time.atZone(ZONE).toInstant().toEpochMilli();
+        String raw = epochMilli + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 组装键集分页结果
+     *
+     * @param rows 按 pageSize + 1 条查询的结果，多出的一条只用于判断是否还有下一页
+     * @param pageSize 每页条数
+     * @param timeOf 取排序时间
+     * @param idOf 取记录ID
+     * @return data-当前页，hasMore-是否还有下一页，nextCursor-下一页游标（仅 hasMore 时）
+     */
+    public static <T> Map<String, Object> page(List<T> rows, int pageSize,
+                                               Function<T, LocalDateTime> timeOf, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> data = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        Map<String, Object> result = new HashMap<>();
+        result.put("data", data);
+        result.put("hasMore", hasMore);
+        if (hasMore) {
+            T last = data.get(data.size() - 1);
+            result.put("nextCursor", encode(timeOf.apply(last), idOf.apply(last)));
+        }
+        return result;
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 客户端回传的游标，为空表示第一页
+     * @return 游标，为空时返回null
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long epochMilli = Long.parseLong(raw.substring(0, separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new KeysetCursor(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZONE), id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无效的分页游标: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.auction.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * 有界本地缓存（并发读写无全局锁）
+ * - 基于 ConcurrentHashMap，条目带写入时间，超过有效期视为未命中
+ * - 超出容量时由一个线程批量清理：先清过期条目，仍超出时按写入时间淘汰最旧的条目到容量的90%
+ * - 失效不直接删除条目，而是写入失效标记：读取方在加载前取得的条目与写入时不一致时放弃写入，
+ *   避免并发加载的旧值在失效之后重新写回
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LocalCache<K, V> {
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    /**
+     * @param maxEntries 最大条目数（含失效标记）
+     * @param ttlMillis 条目有效期（毫秒）
+     */
+    public LocalCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 读取有效值，不存在、已过期或已失效时返回null
+     */
+    public V get(K key) {
+        return valueOf(entries.get(key));
+    }
+
+    /**
+     * 读取当前条目（可能为null、已过期或失效标记），作为 putIfUnchanged 的比较基准
+     */
+    public Entry<V> getEntry(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 取条目中的有效值，条目为null、已过期或为失效标记时返回null
+     */
+    public V valueOf(Entry<V> entry) {
+        return entry != null && entry.value != null && !isExpired(entry) ? entry.value : null;
+    }
+
+    /**
+     * 写入最新值（直写场景，覆盖已有条目）
+     */
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value));
+        trimIfNeeded();
+    }
+
+    /**
+     * 条目仍是读取时的 expected 时写入加载结果（加载期间条目被直写或失效时放弃）
+     *
+     * @param expected 加载前通过 getEntry 取得的条目
+     * @return 是否写入
+     */
+    public boolean putIfUnchanged(K key, Entry<V> expected, V value) {
+        Entry<V> next = new Entry<>(value);
+        boolean written;
+        if (expected == null) {
+            written = entries.putIfAbsent(key, next) == null;
+        } else {
+            written = entries.replace(key, expected, next);
+        }
+        if (written) {
+            trimIfNeeded();
+        }
+        return written;
+    }
+
+    /**
+     * 失效：写入失效标记，使加载中的旧值无法写回
+     */
+    public void invalidate(K key) {
+        entries.put(key, new Entry<>(null));
+        trimIfNeeded();
+    }
+
+    /**
+     * 删除值满足条件的条目（遍历全部条目，用于按非键属性批量失效）
+     */
+    public void removeIf(Predicate<V> filter) {
+        entries.values().removeIf(entry -> entry.value != null && filter.test(entry.value));
+    }
+
+    /**
+     * 当前条目数（含过期条目和失效标记）
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private boolean isExpired(Entry<V> entry) {
+        return System.currentTimeMillis() - entry.createdAt > ttlMillis;
+    }
+
+    private void trimIfNeeded() {
+        if (entries.size() <= maxEntries || !trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.entrySet().removeIf(e -> isExpired(e.getValue()));
+            int excess = entries.size() - maxEntries * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<K, Entry<V>>> oldest = new ArrayList<>(entries.entrySet());
+            oldest.sort(Comparator.comparingLong(e -> e.getValue().createdAt));
+            for (int i = 0; i < excess && i < oldest.size(); i++) {
+                Map.Entry<K, Entry<V>> e = oldest.get(i);
+                entries.remove(e.getKey(), e.getValue());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * 缓存条目，value为null表示失效标记
+     */
+    public static final class Entry<V> {
+        private final V value;
+        private final long createdAt;
+
+        private Entry(V value) {
+            this.value = value;
+            this.createdAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.auction.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额换算工具
+ * 出价引擎内部统一使用 long 分（fen）计算，只在接口和持久化边界与 BigDecimal 元互转
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class MoneyUtils {
+
+    /** 每元的分数 */
+    public static final long FEN_PER_YUAN = 100L;
+
+    /** 比例的精度：万分之一 */
+    private static final long RATIO_SCALE = 10000L;
+
+    private static final BigDecimal DEFAULT_DEPOSIT_RATIO = new BigDecimal("0.10");
+
+    private MoneyUtils() {
+    }
+
+    /**
+     * 元转分，超过两位小数时抛出异常
+     *
+     * @param yuan 金额（元）
+     * @return 金额（分）
+     */
+    public static long toFen(BigDecimal yuan) {
+        if (yuan == null) {
+            return 0L;
+        }
+        try {
+            return yuan.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("金额最多保留两位小数: " + yuan.toPlainString());
+        }
+    }
+
+    /**
+     * 分转元（两位小数）
+     */
+    public static BigDecimal toYuan(long fen) {
+        return BigDecimal.valueOf(fen, 2);
+    }
+
+    /**
+     * 分转整数元（保证金按整元冻结，金额不带小数）
+     */
+    public static BigDecimal toWholeYuan(long fen) {
+        return BigDecimal.valueOf(fen / FEN_PER_YUAN);
+    }
+
+    /**
+     * 保证金比例转为万分比，未配置时按10%
+     */
+    public static long toRatioBasisPoints(BigDecimal ratio) {
+        BigDecimal value = ratio != null ? ratio : DEFAULT_DEPOSIT_RATIO;
+        return value.movePointRight(4).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    /**
+     * 计算出价所需保证金：出价 × 比例，向上取整到元
+     *
+     * @param bidFen 出价（分）
+     * @param ratioBasisPoints 保证金比例（万分比）
+     * @return 所需保证金（分，整元）
+     */
+    public static long requiredDepositFen(long bidFen, long ratioBasisPoints) {
+        if (bidFen <= 0 || ratioBasisPoints <= 0) {
+            return 0L;
+        }
+        long numerator = Math.multiplyExact(bidFen, ratioBasisPoints);
+        long denominator = RATIO_SCALE * FEN_PER_YUAN;
+        long wholeYuan = (numerator + denominator - 1) / denominator;
+        return wholeYuan * FEN_PER_YUAN;
+    }
+}
@@ -41,6 +41,21 @@ public class SecurityUtils {
         return getCurrentUser().getId();
     }
 
+    /**
+     * 获取当前登录用户ID，未登录时返回null
+     * 不抛出异常，适合在数据源路由等高频路径中调用
+     *
+     * @return 当前登录用户的ID，未登录返回null
+     */
+    public static Long getCurrentUserIdOrNull() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetailsService.CustomUserPrincipal) {
+            SysUser user = ((CustomUserDetailsService.CustomUserPrincipal) authentication.getPrincipal()).getUser();
+            return user != null ? user.getId() : null;
+        }
+        return null;
+    }
+
     /**
      * 获取当前登录用户名
      * 
@@ -0,0 +1,114 @@
+package com.auction.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 请求合并加载器（single flight）
+ * 同一个键的并发加载只执行一次，其他线程等待并共享同一次加载的结果
+ * 加载结束后立即移除，不做结果缓存；缓存命中由调用方通过 recordHit 记录
+ * 结果是可变对象时通过复制函数给每个调用方（包括加载者）返回独立副本，共享的原值不被任何调用方修改
+ *
+ * @param <K> 键类型
+ * @param <V> 结果类型
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+
+    private final UnaryOperator<V> copier;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * 所有调用方共享同一个结果对象（结果不可变时使用）
+     */
+    public SingleFlight(String name) {
+        this(name, UnaryOperator.identity());
+    }
+
+    /**
+     * @param copier 结果复制函数，每个调用方得到 copier 返回的副本（结果为null时不调用）
+     */
+    public SingleFlight(String name, UnaryOperator<V> copier) {
+        this.name = name;
+        this.copier = copier;
+    }
+
+    /**
+     * 加载数据，已有相同键的加载在进行中时等待其结果
+     *
+     * @param key 键
+     * @param loader 实际加载逻辑（只在本线程成为加载者时执行）
+     * @return 加载结果
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            collapsed.increment();
+            try {
+                return copy(existing.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        misses.increment();
+        V value;
+        try {
+            value = loader.get();
+            mine.complete(value);
+        } catch (Throwable e) {
+            // 任何异常（包括Error）都要结束等待中的线程，否则它们会永久阻塞
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return copy(value);
+    }
+
+    private V copy(V value) {
+        return value != null ? copier.apply(value) : null;
+    }
+
+    /**
+     * 记录一次缓存命中（未进入加载）
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * 获取计数：hits-缓存命中，misses-实际加载次数，collapsed-被合并的并发请求数
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("collapsed", collapsed.sum());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+}
@@ -2,7 +2,10 @@ package com.auction.websocket;
 
 import com.auction.entity.AuctionBid;
 import com.auction.service.AuctionBidService;
+import com.auction.service.RecentBidService;
 import com.auction.service.SysUserService;
+import com.auction.service.AuctionSessionStatsService;
+import com.auction.service.AuctionLiveCacheService;
 import com.auction.entity.SysUser;
 import com.auction.service.RedisService;
 import com.auction.service.BidIncrementService;
@@ -108,6 +111,12 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
     @Autowired
     private SysUserService sysUserService;  // 用户服务
 
+    @Autowired
+    private AuctionSessionStatsService auctionSessionStatsService;  // 拍卖会统计投影
+
+    @Autowired
+    private AuctionLiveCacheService auctionLiveCacheService;  // 拍卖会直播缓存
+
     @Autowired
     private JwtTokenProvider tokenProvider;  // JWT Token提供者
 
@@ -199,7 +208,9 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
             switch (type) {
                 case "JOIN_AUCTION":
                     // 仅使用后端在握手阶段解析到的用户身份
-                    handleJoinAuction(session, auctionId, null);
+                    Long joinItemId = messageData.get("itemId") != null ?
+                        Long.valueOf(messageData.get("itemId").toString()) : null;
+                    handleJoinAuction(session, auctionId, null, joinItemId);
                     break;
                 case "LEAVE_AUCTION":
                     handleLeaveAuction(session, auctionId, userId);
@@ -244,8 +255,9 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
      * @param session WebSocket连接
      * @param auctionId 拍卖ID
      * @param userId 用户ID
+     * @param itemId 当前查看的拍品ID（可选），提供时在加入成功消息中附带最近出价
      */
-    private void handleJoinAuction(WebSocketSession session, Long auctionId, Long userId) {
+    private void handleJoinAuction(WebSocketSession session, Long auctionId, Long userId, Long itemId) {
         if (auctionId == null) {
             sendMessage(session, createMessage("ERROR", "拍卖ID不能为空", null));
             return;
@@ -256,8 +268,8 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
             uid, auctionId);
         
         // 添加到拍卖会话
-        auctionSessions.computeIfAbsent(auctionId, k -> new ConcurrentHashMap<>())
-                .put(session.getId(), session);
+        boolean newlyJoined = auctionSessions.computeIfAbsent(auctionId, k -> new ConcurrentHashMap<>())
+                .put(session.getId(), session) == null;
         
         // 如果提供了用户ID，添加到用户会话
         if (uid != null) {
@@ -267,11 +279,24 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
 
         // 增加围观人数
         Long viewCount = redisService.incrementAuctionViewCount(auctionId);
+        // 同一连接重复加入不重复计入在线数
+        Long onlineCount = newlyJoined ? redisService.incrementAuctionOnlineCount(auctionId) : null;
+        auctionSessionStatsService.onViewerJoined(auctionId, onlineCount);
         
         // 发送加入成功消息
         Map<String, Object> joinData = new java.util.HashMap<>();
         joinData.put("auctionId", auctionId);
         joinData.put("viewCount", viewCount);
+        if (itemId != null) {
+            // 最近出价快照：优先来自内存缓冲
+            try {
+                joinData.put("itemId", itemId);
+                joinData.put("recentBids", auctionBidService
+                        .getItemBidHistory(auctionId, itemId, null, RecentBidService.CAPACITY).get("data"));
+            } catch (Exception e) {
+                log.warn("获取最近出价失败: auctionId={}, itemId={}, error={}", auctionId, itemId, e.getMessage());
+            }
+        }
         sendMessage(session, createMessage("JOINED_AUCTION", "成功加入拍卖", joinData));
 
         // 推送加价规则
@@ -303,7 +328,9 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
         // 从拍卖会话中移除
         Map<String, WebSocketSession> sessions = auctionSessions.get(auctionId);
         if (sessions != null) {
-            sessions.remove(session.getId());
+            if (sessions.remove(session.getId()) != null) {
+                redisService.decrementAuctionOnlineCount(auctionId);
+            }
             if (sessions.isEmpty()) {
                 auctionSessions.remove(auctionId);
             }
@@ -375,6 +402,7 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
             
             // 保存出价到数据库
             Long bidId = auctionBidService.placeBid(bid);
+            auctionSessionStatsService.onBidAccepted(auctionId, userId);
             
             // 增加出价次数计数
             Long userBidCount = redisService.incrementUserBidCount(userId, auctionId);
@@ -595,7 +623,11 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
      */
     private void removeSession(WebSocketSession session) {
         // 从所有拍卖会话中移除
-        auctionSessions.values().forEach(sessions -> sessions.remove(session.getId()));
+        auctionSessions.forEach((auctionId, sessions) -> {
+            if (sessions.remove(session.getId()) != null) {
+                redisService.decrementAuctionOnlineCount(auctionId);
+            }
+        });
         
         // 从用户会话中移除
         userSessions.entrySet().removeIf(entry -> entry.getValue().equals(session));
@@ -632,8 +664,11 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
      */
     private void pushBidIncrementRules(WebSocketSession session, Long auctionId) {
         try {
-            // 获取拍卖会加价规则配置
-            BidIncrementConfig config = bidIncrementService.getConfigBySessionId(auctionId);
+            // 获取拍卖会加价规则配置（已预热的拍卖会直接取直播缓存）
+            com.auction.entity.AuctionSession live = auctionLiveCacheService.getSession(auctionId);
+            BidIncrementConfig config = live != null && live.getBidIncrementConfig() != null
+                ? live.getBidIncrementConfig()
+                : bidIncrementService.getConfigBySessionId(auctionId);
             if (config != null && config.getRules() != null && !config.getRules().isEmpty()) {
                 Map<String, Object> rulesData = new java.util.HashMap<>();
                 rulesData.put("auctionId", auctionId);
@@ -658,10 +693,15 @@ public class AuctionWebSocketHandler implements WebSocketHandler {
      */
     private void pushNextMinimumBid(Long auctionId, Long itemId, java.math.BigDecimal currentPrice) {
         try {
-            // 获取拍卖会加价规则配置
-            BidIncrementConfig config = bidIncrementService.getConfigBySessionId(auctionId);
-            if (config != null) {
-                java.math.BigDecimal nextBid = bidIncrementService.getNextMinimumBid(currentPrice, config.getId());
+            // 获取拍卖会加价规则配置ID（已预热的拍卖会直接取直播缓存）
+            com.auction.entity.AuctionSession live = auctionLiveCacheService.getSession(auctionId);
+            Long configId = live != null ? live.getBidIncrementConfigId() : null;
+            if (configId == null) {
+                BidIncrementConfig config = bidIncrementService.getConfigBySessionId(auctionId);
+                configId = config != null ? config.getId() : null;
+            }
+            if (configId != null) {
+                java.math.BigDecimal nextBid = bidIncrementService.getNextMinimumBid(currentPrice, configId);
 
                 Map<String, Object> nextBidData = new java.util.HashMap<>();
                 nextBidData.put("auctionId", auctionId);
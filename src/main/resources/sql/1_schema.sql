@@ -171,9 +171,13 @@ CREATE TABLE `auction_session` (
   `start_time` datetime NOT NULL COMMENT '开始时间',
   `end_time` datetime NOT NULL COMMENT '结束时间',
   `creator_id` bigint(20) NOT NULL COMMENT '创建人ID',
-  `total_items` int(11) DEFAULT '0' COMMENT '拍品总数',
+  `total_items` int(11) DEFAULT '0' COMMENT '拍品总数（关联变更时按auction_session_item回写）',
   `sold_items` int(11) DEFAULT '0' COMMENT '已成交拍品数',
   `view_count` int(11) DEFAULT '0' COMMENT '围观人数',
+  `bid_count` int(11) DEFAULT '0' COMMENT '出价次数（统计投影定期回写）',
+  `bidder_count` int(11) DEFAULT '0' COMMENT '出价人数（统计投影定期回写）',
+  `gmv_amount` decimal(14,2) DEFAULT '0.00' COMMENT '成交总额（统计投影定期回写）',
+  `peak_viewers` int(11) DEFAULT '0' COMMENT '峰值在线人数（统计投影定期回写）',
   `deposit_ratio` decimal(3,2) DEFAULT '0.10' COMMENT '保证金比例',
   `commission_ratio` decimal(3,2) DEFAULT '0.05' COMMENT '佣金比例',
   `is_authentic` tinyint(1) DEFAULT '0' COMMENT '是否保真：0-否，1-是',
@@ -196,6 +200,7 @@ CREATE TABLE `auction_session` (
   KEY `idx_status` (`status`),
   KEY `idx_start_time` (`start_time`),
   KEY `idx_end_time` (`end_time`),
+  KEY `idx_visible_deleted_id` (`is_visible`,`deleted`,`id`) COMMENT '用户端拍卖会卡片键集分页',
   CONSTRAINT `fk_auction_session_bid_increment_config` FOREIGN KEY (`bid_increment_config_id`) REFERENCES `bid_increment_config` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='拍卖会表';
 
@@ -255,9 +260,22 @@ CREATE TABLE `user_deposit_transaction` (
   KEY `idx_user_id` (`user_id`),
   KEY `idx_transaction_type` (`transaction_type`),
   KEY `idx_status` (`status`),
-  KEY `idx_reviewer` (`reviewer_id`)
+  KEY `idx_reviewer` (`reviewer_id`),
+  KEY `idx_create_time` (`create_time`) COMMENT '管理端键集分页（隐含主键，按 create_time, id 排序）'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='保证金交易流水表';
 
+-- 保证金占用表（按用户+关联对象汇总当前冻结金额，随冻结/解冻/扣除同事务维护）
+CREATE TABLE `deposit_hold` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `related_type` varchar(50) NOT NULL COMMENT '关联类型：item等',
+  `related_id` bigint(20) NOT NULL COMMENT '关联ID（拍品ID等）',
+  `amount` decimal(10,2) NOT NULL DEFAULT '0.00' COMMENT '当前冻结金额',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `related_type`, `related_id`),
+  KEY `idx_related` (`related_type`, `related_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='保证金占用表';
+
 -- 保证金退款申请表
 CREATE TABLE `user_deposit_refund` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '退款申请ID',
@@ -301,13 +319,37 @@ CREATE TABLE `auction_bid` (
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '删除标志：0-未删除，1-已删除',
   PRIMARY KEY (`id`),
-  KEY `idx_session_id` (`session_id`),
-  KEY `idx_item_id` (`item_id`),
   KEY `idx_user_id` (`user_id`),
   KEY `idx_bid_time` (`bid_time`),
-  KEY `idx_status` (`status`)
+  KEY `idx_item_status_time` (`item_id`,`status`,`deleted`,`bid_time`) COMMENT '拍品有效出价列表/键集分页',
+  KEY `idx_item_status_amount` (`item_id`,`status`,`deleted`,`bid_amount_yuan` DESC) COMMENT '拍品最高出价',
+  KEY `idx_item_session_user_amount` (`item_id`,`session_id`,`user_id`,`status`,`deleted`,`bid_amount_yuan`) COMMENT '用户最高出价（覆盖索引）',
+  KEY `idx_session_deleted_time` (`session_id`,`deleted`,`bid_time`) COMMENT '拍卖会出价列表/计数'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='拍卖出价表';
 
+-- 出价归档表（已结束超过保留期的拍卖会出价，从 auction_bid 整场迁入）
+CREATE TABLE `auction_bid_archive` (
+  `id` bigint(20) NOT NULL COMMENT '出价ID（沿用原出价ID）',
+  `session_id` bigint(20) NOT NULL COMMENT '拍卖会ID',
+  `item_id` bigint(20) NOT NULL COMMENT '拍品ID',
+  `user_id` bigint(20) NOT NULL COMMENT '出价用户ID',
+  `bid_amount_yuan` decimal(10,0) NOT NULL COMMENT '出价金额（元，整数）',
+  `bid_time` datetime NOT NULL COMMENT '出价时间',
+  `source` tinyint(1) NOT NULL DEFAULT '1' COMMENT '出价来源：1-手动出价，2-自动出价',
+  `is_auto` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否自动出价：0-否，1-是',
+  `status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '出价状态：0-有效，1-无效，2-被超越',
+  `client_ip` varchar(50) DEFAULT NULL COMMENT '客户端IP',
+  `user_agent` varchar(500) DEFAULT NULL COMMENT '用户代理',
+  `create_time` datetime NOT NULL COMMENT '创建时间',
+  `update_time` datetime NOT NULL COMMENT '更新时间',
+  `deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '删除标志：0-未删除，1-已删除',
+  `archive_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_session_id` (`session_id`),
+  KEY `idx_user_id` (`user_id`),
+  KEY `idx_item_status_time` (`item_id`,`status`,`deleted`,`bid_time`) COMMENT '拍品有效出价列表/键集分页'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT='拍卖出价归档表';
+
 -- 订单表
 CREATE TABLE `auction_order` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '订单ID',
@@ -339,7 +381,8 @@ CREATE TABLE `auction_order` (
   KEY `idx_buyer_id` (`buyer_id`),
   KEY `idx_seller_id` (`seller_id`),
   KEY `idx_status` (`status`),
-  KEY `idx_logistics_company_id` (`logistics_company_id`)
+  KEY `idx_logistics_company_id` (`logistics_company_id`),
+  KEY `idx_create_time` (`create_time`) COMMENT '管理端键集分页（隐含主键，按 create_time, id 排序）'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表';
 
 -- 物流信息表
@@ -459,7 +502,9 @@ CREATE TABLE IF NOT EXISTS `user_notification` (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '删除标志：0-未删除，1-已删除',
+  `dedupe_key` varchar(100) DEFAULT NULL COMMENT '去重键（同一事件重复投递时只保留一条通知）',
   PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_dedupe_key` (`dedupe_key`),
   KEY `idx_user_id` (`user_id`),
   KEY `idx_notification_type` (`notification_type`),
   KEY `idx_is_read` (`is_read`),
@@ -467,6 +512,23 @@ CREATE TABLE IF NOT EXISTS `user_notification` (
   KEY `idx_user_read` (`user_id`, `is_read`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户通知表';
 
+-- 结算事件发件箱表（与结算结果同事务写入，由调度任务异步投递）
+CREATE TABLE IF NOT EXISTS `auction_outbox_event` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+  `event_type` varchar(50) NOT NULL COMMENT '事件类型：WIN_NOTIFICATION-中标通知，AUCTION_END-拍卖结束推送',
+  `aggregate_id` bigint(20) DEFAULT NULL COMMENT '聚合ID（拍品ID）',
+  `payload` text NOT NULL COMMENT '事件内容（JSON）',
+  `status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '状态：0-待投递，1-已投递，2-投递失败，3-投递中',
+  `retry_count` int(11) NOT NULL DEFAULT '0' COMMENT '重试次数',
+  `error_msg` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `claimed_at` datetime DEFAULT NULL COMMENT '认领时间（投递中超时未完成的事件回到待投递）',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_id` (`status`, `id`),
+  KEY `idx_status_claimed` (`status`, `claimed_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='结算事件发件箱表';
+
 -- 审计日志表
 CREATE TABLE IF NOT EXISTS `audit_log` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '日志ID',
@@ -51,7 +51,9 @@ INSERT INTO `sys_config` (`config_key`, `config_value`, `config_type`, `descript
 ('auction.logistics.auto_ship_days', '3', 'NUMBER', '自动发货天数', 1, 1),
 ('auction.session.auto_start_minutes', '10', 'NUMBER', '拍卖会自动开始提前分钟数', 1, 1),
 ('auction.session.auto_end_minutes', '5', 'NUMBER', '拍卖会自动结束延后分钟数', 1, 1),
+('auction.session.warmup_minutes', '5', 'NUMBER', '拍卖会开始前预热直播缓存的分钟数', 1, 1),
 ('auction.bidding.timeout_seconds', '30', 'NUMBER', '出价超时时间（秒）', 1, 1),
+('auction.bid.archive_retention_days', '90', 'NUMBER', '已结束拍卖会出价记录归档保留天数', 1, 1),
 ('auction.notification.enabled', 'true', 'BOOLEAN', '是否启用通知', 1, 1),
 ('auction.auto_bid.enabled', 'true', 'BOOLEAN', '是否启用自动出价', 1, 1),
 ('auction.item.audit_enabled', 'true', 'BOOLEAN', '是否启用拍品审核', 1, 1),
@@ -46,4 +46,9 @@ JOIN auction_item i ON 1=1
 WHERE s.session_name = '春季艺术精品拍卖会'
   AND i.item_name IN ('清代青花瓷瓶', '明代黄花梨圈椅', '和田玉挂件');
 
+-- 同步拍卖会拍品总数（拍卖会卡片列表直接读取该列）
+UPDATE auction_session s
+SET s.total_items = (SELECT COUNT(*) FROM auction_session_item si WHERE si.session_id = s.id)
+WHERE s.session_name = '春季艺术精品拍卖会';
+
 
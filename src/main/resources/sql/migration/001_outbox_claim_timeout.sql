@@ -0,0 +1,36 @@
+-- 已有数据库升级：结算事件发件箱认领超时 + 中标通知去重
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+USE auction_db;
+
+-- 结算事件发件箱表（在发件箱上线前建库的数据库）
+CREATE TABLE IF NOT EXISTS `auction_outbox_event` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+  `event_type` varchar(50) NOT NULL COMMENT '事件类型：WIN_NOTIFICATION-中标通知，AUCTION_END-拍卖结束推送',
+  `aggregate_id` bigint(20) DEFAULT NULL COMMENT '聚合ID（拍品ID）',
+  `payload` text NOT NULL COMMENT '事件内容（JSON）',
+  `status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '状态：0-待投递，1-已投递，2-投递失败，3-投递中',
+  `retry_count` int(11) NOT NULL DEFAULT '0' COMMENT '重试次数',
+  `error_msg` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_id` (`status`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='结算事件发件箱表';
+
+-- 认领时间
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_outbox_event' AND COLUMN_NAME = 'claimed_at') = 0,
+    'ALTER TABLE `auction_outbox_event` ADD COLUMN `claimed_at` datetime DEFAULT NULL COMMENT ''认领时间（投递中超时未完成的事件回到待投递）'' AFTER `error_msg`, ADD KEY `idx_status_claimed` (`status`, `claimed_at`)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 通知去重键
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'user_notification' AND COLUMN_NAME = 'dedupe_key') = 0,
+    'ALTER TABLE `user_notification` ADD COLUMN `dedupe_key` varchar(100) DEFAULT NULL COMMENT ''去重键（同一事件重复投递时只保留一条通知）'', ADD UNIQUE KEY `uk_dedupe_key` (`dedupe_key`)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
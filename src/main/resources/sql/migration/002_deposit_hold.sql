@@ -0,0 +1,40 @@
+-- 已有数据库升级：保证金占用表 + 按历史流水回填当前占用
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+-- 请在停止出价（无拍卖进行中）时执行，回填期间新产生的冻结流水不会被计入
+USE auction_db;
+
+-- 保证金占用表
+CREATE TABLE IF NOT EXISTS `deposit_hold` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `related_type` varchar(50) NOT NULL COMMENT '关联类型：item等',
+  `related_id` bigint(20) NOT NULL COMMENT '关联ID（拍品ID等）',
+  `amount` decimal(10,2) NOT NULL DEFAULT '0.00' COMMENT '当前冻结金额',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `related_type`, `related_id`),
+  KEY `idx_related` (`related_type`, `related_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='保证金占用表';
+
+-- 回填：占用 = 冻结 - 解冻 - 订单扣除（流水金额由应用按元写入，与占用金额单位相同，无需换算）
+-- 订单扣除按订单记账，通过订单关联回拍品；已存在的占用行保持不变（重复执行不会覆盖上线后维护的数据）
+INSERT IGNORE INTO `deposit_hold` (`user_id`, `related_type`, `related_id`, `amount`, `create_time`, `update_time`)
+SELECT h.user_id, h.related_type, h.related_id, h.amount, NOW(), NOW()
+FROM (
+    SELECT f.user_id, f.related_type, f.related_id,
+           GREATEST(SUM(f.amount), 0) AS amount
+    FROM (
+        SELECT t.user_id, t.related_type, t.related_id,
+               CASE t.transaction_type WHEN 3 THEN t.amount ELSE -t.amount END AS amount
+        FROM user_deposit_transaction t
+        WHERE t.transaction_type IN (3, 4) AND t.status = 1 AND t.deleted = 0
+          AND t.related_type IS NOT NULL AND t.related_id IS NOT NULL
+        UNION ALL
+        SELECT t.user_id, 'item', o.item_id, -t.amount
+        FROM user_deposit_transaction t
+        JOIN auction_order o ON o.id = t.related_id
+        WHERE t.transaction_type = 5 AND t.status = 1 AND t.deleted = 0
+          AND t.related_type = 'order'
+    ) f
+    GROUP BY f.user_id, f.related_type, f.related_id
+) h
+WHERE h.amount > 0;
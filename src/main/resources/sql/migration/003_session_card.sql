@@ -0,0 +1,16 @@
+-- 已有数据库升级：拍卖会卡片列表（拍品总数回填 + 键集分页索引）
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+USE auction_db;
+
+-- 拍品总数按关联表回填（此前修改拍卖会拍品时未同步该列）
+UPDATE `auction_session` s
+SET s.`total_items` = (SELECT COUNT(*) FROM `auction_session_item` si WHERE si.`session_id` = s.`id`);
+
+-- 用户端拍卖会卡片键集分页索引
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_session' AND INDEX_NAME = 'idx_visible_deleted_id') = 0,
+    'ALTER TABLE `auction_session` ADD KEY `idx_visible_deleted_id` (`is_visible`,`deleted`,`id`) COMMENT ''用户端拍卖会卡片键集分页''',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
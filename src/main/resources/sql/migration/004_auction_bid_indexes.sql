@@ -0,0 +1,63 @@
+-- 已有数据库升级：出价表索引调整（按出价热点查询建立复合索引，删除被覆盖的单列索引）
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+-- 先建新索引再删旧索引，查询在整个过程中都有可用索引；建索引为在线DDL，不阻塞出价写入
+-- 执行后运行 004_auction_bid_indexes_explain.sql 核对执行计划
+USE auction_db;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_item_status_time') = 0,
+    'ALTER TABLE `auction_bid` ADD KEY `idx_item_status_time` (`item_id`,`status`,`deleted`,`bid_time`) COMMENT ''拍品有效出价列表/键集分页'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_item_status_amount') = 0,
+    'ALTER TABLE `auction_bid` ADD KEY `idx_item_status_amount` (`item_id`,`status`,`deleted`,`bid_amount_yuan` DESC) COMMENT ''拍品最高出价'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_item_session_user_amount') = 0,
+    'ALTER TABLE `auction_bid` ADD KEY `idx_item_session_user_amount` (`item_id`,`session_id`,`user_id`,`status`,`deleted`,`bid_amount_yuan`) COMMENT ''用户最高出价（覆盖索引）'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_session_deleted_time') = 0,
+    'ALTER TABLE `auction_bid` ADD KEY `idx_session_deleted_time` (`session_id`,`deleted`,`bid_time`) COMMENT ''拍卖会出价列表/计数'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 以下单列索引已被上面的复合索引前缀覆盖
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_item_id') > 0,
+    'ALTER TABLE `auction_bid` DROP KEY `idx_item_id`, ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_session_id') > 0,
+    'ALTER TABLE `auction_bid` DROP KEY `idx_session_id`, ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid' AND INDEX_NAME = 'idx_status') > 0,
+    'ALTER TABLE `auction_bid` DROP KEY `idx_status`, ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
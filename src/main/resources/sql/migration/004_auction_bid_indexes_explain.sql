@@ -0,0 +1,53 @@
+-- 出价表热点查询执行计划核对（升级或修改出价查询后执行）
+-- 每条语句下方注释为预期结果：key 列应为注释中的索引，Extra 不应出现 Using filesort
+-- 参数取任意存在的拍品/拍卖会/用户即可，结果只看计划不看数据
+-- 最高出价、出价记录翻页、用户最高出价三条查询由 AuctionBidQueryPlanTest 自动校验（指定 -Dexplain.jdbc.url 时执行）
+USE auction_db;
+
+SET @item_id = (SELECT item_id FROM auction_bid ORDER BY id DESC LIMIT 1);
+SET @session_id = (SELECT session_id FROM auction_bid ORDER BY id DESC LIMIT 1);
+SET @user_id = (SELECT user_id FROM auction_bid ORDER BY id DESC LIMIT 1);
+
+-- 拍品出价记录首页：key = idx_item_status_time，无 filesort
+EXPLAIN SELECT id, session_id, item_id, user_id, bid_amount_yuan, bid_time, source, is_auto, status
+FROM auction_bid
+WHERE item_id = @item_id AND status = 0 AND deleted = 0 AND session_id = @session_id
+ORDER BY bid_time DESC, id DESC
+LIMIT 21;
+
+-- 拍品出价记录翻页（键集游标）：key = idx_item_status_time，type = range，无 filesort
+EXPLAIN SELECT id, session_id, item_id, user_id, bid_amount_yuan, bid_time, source, is_auto, status
+FROM auction_bid
+WHERE item_id = @item_id AND status = 0 AND deleted = 0
+AND (bid_time < NOW() OR (bid_time = NOW() AND id < 9223372036854775807))
+ORDER BY bid_time DESC, id DESC
+LIMIT 21;
+
+-- 拍品最高出价：key = idx_item_status_amount，无 filesort
+EXPLAIN SELECT id, bid_amount_yuan
+FROM auction_bid
+WHERE item_id = @item_id AND status = 0 AND deleted = 0
+ORDER BY bid_amount_yuan DESC, id ASC
+LIMIT 1;
+
+-- 用户在拍品上的最高出价：key = idx_item_session_user_amount，Extra = Using index（覆盖，不回表）
+EXPLAIN SELECT MAX(bid_amount_yuan)
+FROM auction_bid
+WHERE item_id = @item_id AND session_id = @session_id AND user_id = @user_id
+AND deleted = 0 AND status = 0;
+
+-- 最近出价缓冲核对：key = idx_item_status_time
+EXPLAIN SELECT session_id, item_id, MAX(id) AS id
+FROM auction_bid
+WHERE item_id IN (@item_id) AND status = 0 AND deleted = 0
+GROUP BY session_id, item_id;
+
+-- 拍卖会出价计数：key = idx_session_deleted_time，Extra = Using index
+EXPLAIN SELECT COUNT(*)
+FROM auction_bid
+WHERE session_id = @session_id AND deleted = 0;
+
+-- 已删除的单列索引不应再存在：结果应为空
+SELECT INDEX_NAME FROM information_schema.STATISTICS
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_bid'
+AND INDEX_NAME IN ('idx_item_id', 'idx_session_id', 'idx_status');
@@ -0,0 +1,30 @@
+-- 已有数据库升级：出价归档表
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+-- 归档任务在本表存在后才会迁移出价，执行本脚本前归档任务只会失败重试，不影响热表数据
+USE auction_db;
+
+CREATE TABLE IF NOT EXISTS `auction_bid_archive` (
+  `id` bigint(20) NOT NULL COMMENT '出价ID（沿用原出价ID）',
+  `session_id` bigint(20) NOT NULL COMMENT '拍卖会ID',
+  `item_id` bigint(20) NOT NULL COMMENT '拍品ID',
+  `user_id` bigint(20) NOT NULL COMMENT '出价用户ID',
+  `bid_amount_yuan` decimal(10,0) NOT NULL COMMENT '出价金额（元，整数）',
+  `bid_time` datetime NOT NULL COMMENT '出价时间',
+  `source` tinyint(1) NOT NULL DEFAULT '1' COMMENT '出价来源：1-手动出价，2-自动出价',
+  `is_auto` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否自动出价：0-否，1-是',
+  `status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '出价状态：0-有效，1-无效，2-被超越',
+  `client_ip` varchar(50) DEFAULT NULL COMMENT '客户端IP',
+  `user_agent` varchar(500) DEFAULT NULL COMMENT '用户代理',
+  `create_time` datetime NOT NULL COMMENT '创建时间',
+  `update_time` datetime NOT NULL COMMENT '更新时间',
+  `deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '删除标志：0-未删除，1-已删除',
+  `archive_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_session_id` (`session_id`),
+  KEY `idx_user_id` (`user_id`),
+  KEY `idx_item_status_time` (`item_id`,`status`,`deleted`,`bid_time`) COMMENT '拍品有效出价列表/键集分页'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT='拍卖出价归档表';
+
+-- 归档保留天数配置（已存在时保持不变）
+INSERT IGNORE INTO `sys_config` (`config_key`, `config_value`, `config_type`, `description`, `is_system`, `is_editable`) VALUES
+('auction.bid.archive_retention_days', '90', 'NUMBER', '已结束拍卖会出价记录归档保留天数', 1, 1);
@@ -0,0 +1,21 @@
+-- 已有数据库升级：管理端订单、保证金流水键集分页索引
+-- 新建数据库直接执行 1_schema.sql 即可，无需执行本脚本；本脚本可重复执行
+USE auction_db;
+
+-- 订单表（按 create_time, id 排序，索引隐含主键）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'auction_order' AND INDEX_NAME = 'idx_create_time') = 0,
+    'ALTER TABLE `auction_order` ADD KEY `idx_create_time` (`create_time`) COMMENT ''管理端键集分页（隐含主键，按 create_time, id 排序）'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 保证金交易流水表
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'user_deposit_transaction' AND INDEX_NAME = 'idx_create_time') = 0,
+    'ALTER TABLE `user_deposit_transaction` ADD KEY `idx_create_time` (`create_time`) COMMENT ''管理端键集分页（隐含主键，按 create_time, id 排序）'', ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
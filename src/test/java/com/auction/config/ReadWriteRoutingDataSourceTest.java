@@ -0,0 +1,207 @@
+package com.auction.config;
+
+import com.auction.entity.SysUser;
+import com.auction.security.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 读写分离路由测试
+ * 主库各连接池和从库都用Mock数据源代替，按取到连接的数据源判断路由结果；Redis同样使用Mock
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final Map<Workload, DataSource> primaryPools = new EnumMap<>(Workload.class);
+    private DataSource replica;
+    private StringRedisTemplate stringRedisTemplate;
+    private ReadYourWritesTracker tracker;
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        for (Workload workload : Workload.values()) {
+            primaryPools.put(workload, mockDataSource());
+        }
+        replica = mockDataSource();
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        when(stringRedisTemplate.hasKey(anyString())).thenReturn(false);
+        tracker = new ReadYourWritesTracker();
+        ReflectionTestUtils.setField(tracker, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(tracker, "stickyMillis", 3000L);
+
+        routing = newRouting(replica);
+
+        SysUser user = new SysUser();
+        user.setId(USER_ID);
+        user.setUserType(0);
+        CustomUserDetailsService.CustomUserPrincipal principal = new CustomUserDetailsService.CustomUserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testReadOnlyTransactionUsesReplica() throws Exception {
+        beginTransaction(true);
+        routing.getConnection();
+        verify(replica).getConnection();
+        verifyNoPrimaryConnection();
+    }
+
+    @Test
+    public void testWriteTransactionUsesCurrentWorkloadPool() throws Exception {
+        beginTransaction(false);
+        Workload previous = Workload.enter(Workload.USER);
+        try {
+            routing.getConnection();
+        } finally {
+            Workload.restore(previous);
+        }
+        verify(primaryPools.get(Workload.USER)).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    public void testUnannotatedPathUsesUserPool() throws Exception {
+        // 未标注@WorkloadPool的路径（登录、文件、WebSocket等）不占用出价池
+        beginTransaction(false);
+        routing.getConnection();
+        verify(primaryPools.get(Workload.USER)).getConnection();
+        verify(primaryPools.get(Workload.BID), never()).getConnection();
+    }
+
+    @Test
+    public void testWithoutReplicaReadOnlyUsesPrimary() throws Exception {
+        routing = newRouting(null);
+        beginTransaction(true);
+        routing.getConnection();
+        verify(primaryPools.get(Workload.current())).getConnection();
+    }
+
+    @Test
+    public void testNonReadOnlyTransactionWithoutWritesDoesNotStick() throws Exception {
+        // 非只读事务但没有执行写语句：提交后仍然读从库
+        beginTransaction(false);
+        routing.getConnection();
+        commit();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(replica).getConnection();
+    }
+
+    @Test
+    public void testCommittedWriteSticksToPrimaryWithoutRedisLookup() throws Exception {
+        beginTransaction(false);
+        routing.getConnection();
+        tracker.markAfterWrite();
+        tracker.markAfterWrite();
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size(), "同一事务只登记一次");
+        commit();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(replica, never()).getConnection();
+        // 本地标记命中，不查Redis
+        verify(stringRedisTemplate, never()).hasKey(anyString());
+        verify(stringRedisTemplate.opsForValue()).set(eq("db:rw-sticky:" + USER_ID), eq("1"), eq(3000L), any());
+    }
+
+    @Test
+    public void testRolledBackWriteDoesNotStick() throws Exception {
+        beginTransaction(false);
+        tracker.markAfterWrite();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.clear();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(replica).getConnection();
+    }
+
+    @Test
+    public void testRemoteMarkerCheckedOncePerRequest() throws Exception {
+        when(stringRedisTemplate.hasKey("db:rw-sticky:" + USER_ID)).thenReturn(true);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        beginTransaction(true);
+        routing.getConnection();
+        routing.getConnection();
+
+        verify(stringRedisTemplate, times(1)).hasKey("db:rw-sticky:" + USER_ID);
+        verify(replica, never()).getConnection();
+        verify(primaryPools.get(Workload.current()), times(2)).getConnection();
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private ReadWriteRoutingDataSource newRouting(DataSource replicaDataSource) {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primaryPools, replicaDataSource, tracker);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    private static DataSource mockDataSource() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        return dataSource;
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.clear();
+    }
+
+    private void verifyNoPrimaryConnection() throws Exception {
+        for (DataSource pool : primaryPools.values()) {
+            verify(pool, never()).getConnection();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.auction.mapper;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 出价表热点查询执行计划回归测试
+ * 直接解析 AuctionBidMapper.xml 得到实际执行的SQL，在MySQL上执行EXPLAIN并校验选用的索引
+ * 需要已执行 004_auction_bid_indexes.sql 且有出价数据的数据库，通过系统属性指定后才执行：
+ * mvn test -Dtest=AuctionBidQueryPlanTest -Dexplain.jdbc.url=jdbc:mysql://... -Dexplain.jdbc.username=... -Dexplain.jdbc.password=...
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@EnabledIfSystemProperty(named = "explain.jdbc.url", matches = ".+")
+public class AuctionBidQueryPlanTest {
+
+    private static final String NAMESPACE = "com.auction.mapper.AuctionBidMapper";
+
+    private static Configuration configuration;
+    private static Connection connection;
+    private static Map<String, Object> params;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        configuration = new Configuration();
+        configuration.getTypeAliasRegistry().registerAliases("com.auction.entity");
+        String resource = "mapper/AuctionBidMapper.xml";
+        try (InputStream in = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+
+        connection = DriverManager.getConnection(System.getProperty("explain.jdbc.url"),
+                System.getProperty("explain.jdbc.username", "root"), System.getProperty("explain.jdbc.password", ""));
+
+        // 参数取最新一条出价，结果只看计划不看数据
+        params = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT item_id, session_id, user_id, bid_time, id FROM auction_bid ORDER BY id DESC LIMIT 1");
+             ResultSet rs = ps.executeQuery()) {
+            assumeTrue(rs.next(), "auction_bid 没有数据，无法核对执行计划");
+            params.put("itemId", rs.getLong("item_id"));
+            params.put("sessionId", rs.getLong("session_id"));
+            params.put("userId", rs.getLong("user_id"));
+            params.put("cursorTime", rs.getTimestamp("bid_time").toLocalDateTime());
+            params.put("cursorId", rs.getLong("id"));
+            params.put("limit", 21);
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testHighestBidUsesAmountIndex() throws Exception {
+        Plan plan = explain("selectHighestBid", params);
+        assertEquals("idx_item_status_amount", plan.key);
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void testItemBidFirstPageUsesTimeIndex() throws Exception {
+        Map<String, Object> firstPage = new HashMap<>(params);
+        firstPage.put("cursorTime", null);
+        firstPage.put("cursorId", null);
+        Plan plan = explain("selectItemBidPage", firstPage);
+        assertEquals("idx_item_status_time", plan.key);
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void testItemBidCursorPageUsesTimeIndex() throws Exception {
+        Map<String, Object> nextPage = new HashMap<>(params);
+        nextPage.put("sessionId", null);
+        Plan plan = explain("selectItemBidPage", nextPage);
+        assertEquals("idx_item_status_time", plan.key);
+        assertNoFilesort(plan);
+    }
+
+    @Test
+    public void testUserMaxBidIsCoveredByIndex() throws Exception {
+        Plan plan = explain("selectUserMaxBidAmount", params);
+        assertEquals("idx_item_session_user_amount", plan.key);
+        assertTrue(plan.extra != null && plan.extra.contains("Using index"), "应为覆盖索引: " + plan.extra);
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 按映射文件生成SQL并执行EXPLAIN，返回第一行（出价表只有一张表参与）
+     */
+    private static Plan explain(String statementId, Map<String, Object> parameter) throws Exception {
+        BoundSql boundSql = configuration.getMappedStatement(NAMESPACE + "." + statementId).getBoundSql(parameter);
+        MetaObject meta = configuration.newMetaObject(parameter);
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            int index = 1;
+            for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+                Object value = meta.getValue(mapping.getProperty());
+                ps.setObject(index++, value instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) value) : value);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next(), "EXPLAIN 没有返回结果: " + statementId);
+                return new Plan(rs.getString("key"), rs.getString("Extra"));
+            }
+        }
+    }
+
+    private static void assertNoFilesort(Plan plan) {
+        assertFalse(plan.extra != null && plan.extra.contains("Using filesort"), "不应出现 filesort: " + plan.extra);
+    }
+
+    private static final class Plan {
+        private final String key;
+        private final String extra;
+
+        private Plan(String key, String extra) {
+            this.key = key;
+            this.extra = extra;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.auction.util;
+
+import com.auction.entity.BidIncrementRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 出价校验与保证金计算微基准：编译阶梯 + long分 对比 原BigDecimal逐条匹配
+ * 等价性校验每次构建都执行；计时部分需要 -Dbenchmark=true 才执行，结果输出到控制台
+ * （项目未引入JMH，这里用预热 + 多轮取最好成绩的方式近似，只用于比较量级）
+ *
+ * @author auction-system
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class BidMoneyBenchmarkTest {
+
+    private static final int SAMPLES = 4096;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 10;
+    private static final int OPERATIONS_PER_ROUND = 200_000;
+
+    private static final BigDecimal DEPOSIT_RATIO = new BigDecimal("0.15");
+
+    private List<BidIncrementRule> rules;
+    private BidIncrementLadder ladder;
+    private BigDecimal[] currentYuan;
+    private BigDecimal[] bidYuan;
+    private long[] currentFen;
+    private long[] bidFen;
+
+    @BeforeEach
+    public void setUp() {
+        rules = new ArrayList<>();
+        rules.add(rule(1L, "0", "1000", "10", 1));
+        rules.add(rule(2L, "1000", "5000", "50", 2));
+        rules.add(rule(3L, "5000", "20000", "100", 3));
+        rules.add(rule(4L, "20000", "100000", "500", 4));
+        rules.add(rule(5L, "100000", null, "1000", 5));
+        ladder = BidIncrementLadder.compile(rules);
+
+        Random random = new Random(42);
+        currentYuan = new BigDecimal[SAMPLES];
+        bidYuan = new BigDecimal[SAMPLES];
+        currentFen = new long[SAMPLES];
+        bidFen = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long current = random.nextInt(200_000) * 100L;
+            // 一半为合法加价，一半随机偏移
+            long bid = current + (i % 2 == 0 ? (1 + random.nextInt(5)) * 1000L : 1 + random.nextInt(100_000));
+            currentFen[i] = current;
+            bidFen[i] = bid;
+            currentYuan[i] = MoneyUtils.toYuan(current);
+            bidYuan[i] = MoneyUtils.toYuan(bid);
+        }
+    }
+
+    @Test
+    public void testLadderMatchesBigDecimalValidation() {
+        long ratio = MoneyUtils.toRatioBasisPoints(DEPOSIT_RATIO);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertEquals(legacyValidate(currentYuan[i], bidYuan[i]), ladder.isValidBid(currentFen[i], bidFen[i]),
+                    "校验结果不一致: current=" + currentYuan[i] + ", bid=" + bidYuan[i]);
+            assertEquals(0, legacyRequiredDeposit(bidYuan[i]).compareTo(MoneyUtils.toYuan(MoneyUtils.requiredDepositFen(bidFen[i], ratio))),
+                    "保证金不一致: bid=" + bidYuan[i]);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkValidationAndDeposit() {
+        long ratio = MoneyUtils.toRatioBasisPoints(DEPOSIT_RATIO);
+
+        double legacy = measure(() -> {
+            long sink = 0;
+            for (int n = 0; n < OPERATIONS_PER_ROUND; n++) {
+                int i = n & (SAMPLES - 1);
+                if (legacyValidate(currentYuan[i], bidYuan[i])) {
+                    sink += legacyRequiredDeposit(bidYuan[i]).longValue();
+                }
+            }
+            return sink;
+        });
+        double fen = measure(() -> {
+            long sink = 0;
+            for (int n = 0; n < OPERATIONS_PER_ROUND; n++) {
+                int i = n & (SAMPLES - 1);
+                if (ladder.isValidBid(currentFen[i], bidFen[i])) {
+                    sink += MoneyUtils.requiredDepositFen(bidFen[i], ratio);
+                }
+            }
+            return sink;
+        });
+
+        System.out.printf("出价校验+保证金计算: BigDecimal=%.1f ns/op, long分=%.1f ns/op, 加速=%.1fx%n",
+                legacy, fen, legacy / fen);
+        assertTrue(fen > 0 && legacy > 0);
+    }
+
+    // ==================== 原实现（BigDecimal逐条匹配） ====================
+
+    private BidIncrementRule legacyApplicableRule(BigDecimal price) {
+        for (BidIncrementRule rule : rules) {
+            boolean aboveMin = rule.getMinAmount() == null || price.compareTo(rule.getMinAmount()) >= 0;
+            boolean belowMax = rule.getMaxAmount() == null || price.compareTo(rule.getMaxAmount()) < 0;
+            if (aboveMin && belowMax) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private boolean legacyValidate(BigDecimal currentPrice, BigDecimal bidAmount) {
+        BidIncrementRule rule = legacyApplicableRule(currentPrice);
+        if (rule == null) {
+            return true;
+        }
+        if (bidAmount.compareTo(currentPrice) <= 0) {
+            return false;
+        }
+        BigDecimal remainder = bidAmount.subtract(currentPrice).remainder(rule.getIncrementAmount());
+        return remainder.compareTo(BigDecimal.ZERO) == 0;
+    }
+
+    private BigDecimal legacyRequiredDeposit(BigDecimal bidAmount) {
+        return bidAmount.multiply(DEPOSIT_RATIO).setScale(0, RoundingMode.CEILING);
+    }
+
+    // ==================== 计时 ====================
+
+    private interface Workload {
+        long run();
+    }
+
+    /**
+     * 预热后多轮计时，取最好一轮的每次操作耗时（纳秒）
+     */
+    private static double measure(Workload workload) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += workload.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += workload.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        // 使用结果，防止循环被优化掉
+        assertNotEquals(Long.MIN_VALUE, sink);
+        return (double) best / OPERATIONS_PER_ROUND;
+    }
+
+    private static BidIncrementRule rule(Long id, String min, String max, String increment, int sortOrder) {
+        BidIncrementRule rule = new BidIncrementRule();
+        rule.setId(id);
+        rule.setMinAmount(min != null ? new BigDecimal(min) : null);
+        rule.setMaxAmount(max != null ? new BigDecimal(max) : null);
+        rule.setIncrementAmount(new BigDecimal(increment));
+        rule.setSortOrder(sortOrder);
+        return rule;
+    }
+}